@@ -59,7 +59,9 @@ CREATE TABLE IF NOT EXISTS attendance_logs (
     
     FOREIGN KEY (person_id) REFERENCES persons(person_id) ON DELETE CASCADE,
     INDEX idx_person_id (person_id),
-    INDEX idx_event_time (event_time)
+    INDEX idx_event_time (event_time),
+    INDEX idx_attendance_person_time (person_id, event_time),
+    INDEX idx_attendance_activity_time (activity, event_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- =====================================================
@@ -2,6 +2,7 @@ package com.icefx;
 
 import com.icefx.config.AppConfig;
 import com.icefx.controller.LoginController;
+import com.icefx.service.AttendanceWriter;
 import com.icefx.util.NativeLoader;
 import com.icefx.util.SessionManager;
 import javafx.application.Application;
@@ -151,6 +152,10 @@ public class IceFXApplication extends Application {
         logger.info("Application shutdown initiated...");
         
         try {
+            // Write attendance still queued (recognitions accepted but not yet in the database)
+            logger.info("Draining attendance writer...");
+            AttendanceWriter.shutdownAll(AppConfig.getInt("attendance.writer.shutdown.ms", 5000));
+            
             // Close database connections
             logger.info("Closing database connections...");
             // DatabaseManager.getInstance().shutdown();
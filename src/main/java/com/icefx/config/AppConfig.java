@@ -116,27 +116,80 @@ public class AppConfig {
         properties.setProperty("db.mysql.password", DEFAULT_DB_MYSQL_PASSWORD);
         properties.setProperty("db.mysql.params", DEFAULT_DB_MYSQL_PARAMS);
         properties.setProperty("db.sqlite.path", DEFAULT_DB_SQLITE_PATH);
+        properties.setProperty("db.sqlite.journalMode", "WAL");
+        properties.setProperty("db.sqlite.synchronous", "NORMAL");
+        properties.setProperty("db.sqlite.cacheSize", "-16000");
+        properties.setProperty("db.sqlite.mmapSize", "268435456");
+        properties.setProperty("db.sqlite.busyTimeout", "5000");
         properties.setProperty("db.pool.maxSize", DEFAULT_DB_POOL_MAX);
         properties.setProperty("db.pool.minIdle", DEFAULT_DB_POOL_MIN);
         properties.setProperty("db.pool.connectionTimeout", DEFAULT_DB_POOL_TIMEOUT);
         properties.setProperty("db.pool.idleTimeout", DEFAULT_DB_POOL_IDLE);
         properties.setProperty("db.pool.maxLifetime", DEFAULT_DB_POOL_MAX_LIFETIME);
+        properties.setProperty("db.migrations.enabled", "true");
         
         // Camera configuration
         properties.setProperty("camera.index", DEFAULT_CAMERA_INDEX);
         properties.setProperty("camera.width", "640");
         properties.setProperty("camera.height", "480");
         properties.setProperty("camera.fps", "30");
+        properties.setProperty("camera.id", "CAM1");
+        properties.setProperty("camera.extra", "");
+        properties.setProperty("camera.source", "");
+        properties.setProperty("camera.source.pacing", "realtime");
+        properties.setProperty("camera.source.loop", "false");
+        properties.setProperty("motion.enabled", "true");
+        properties.setProperty("motion.width", "160");
+        properties.setProperty("motion.threshold", "25");
+        properties.setProperty("motion.min.area", "0.002");
+        properties.setProperty("motion.padding", "0.25");
+        properties.setProperty("motion.idle.minutes", "5");
+        properties.setProperty("motion.idle.fps", "2");
         
         // Recognition configuration
         properties.setProperty("recognition.confidence.threshold", DEFAULT_CONFIDENCE_THRESHOLD);
         properties.setProperty("recognition.debounce.millis", DEFAULT_DEBOUNCE_TIME);
         properties.setProperty("recognition.model.path", DEFAULT_MODEL_PATH);
+        properties.setProperty("recognition.model.format", "binary");
+        properties.setProperty("recognition.model.quantize", "false");
+        properties.setProperty("recognition.model.watch", "true");
+        properties.setProperty("recognition.java.parallel.threshold", "2048");
+        properties.setProperty("recognition.index.enabled", "false");
+        properties.setProperty("recognition.index.min.samples", "5000");
         properties.setProperty("recognition.haar.cascade", "/haar/haarcascade_frontalface_default.xml");
+        properties.setProperty("recognition.multiface.enabled", "true");
+        properties.setProperty("recognition.max.faces", "8");
+        properties.setProperty("recognition.detection.max.width", "640");
+        properties.setProperty("recognition.tracking.enabled", "true");
+        properties.setProperty("recognition.tracking.detect.interval", "5");
+        properties.setProperty("recognition.tracking.max.missed", "3");
+        properties.setProperty("recognition.tracking.retry.frames", "5");
+        properties.setProperty("recognition.tracking.recheck.frames", "90");
+        properties.setProperty("recognition.voting.window", "5");
+        properties.setProperty("recognition.voting.required", "3");
+        properties.setProperty("recognition.voting.topk", "3");
+        properties.setProperty("recognition.voting.margin", "0.1");
+        
+        // Frame pipeline configuration (capture -> detect -> recognize -> notify)
+        properties.setProperty("pipeline.enabled", "true");
+        properties.setProperty("pipeline.detect.queue", "1");
+        properties.setProperty("pipeline.detect.policy", "latest_wins");
+        properties.setProperty("pipeline.recognize.queue", "2");
+        properties.setProperty("pipeline.recognize.policy", "drop_oldest");
+        properties.setProperty("pipeline.notify.queue", "64");
+        properties.setProperty("pipeline.notify.policy", "block");
+        properties.setProperty("pipeline.notify.block.ms", "100");
+        properties.setProperty("pipeline.workers", "0");
+        properties.setProperty("pipeline.stats.interval.seconds", "60");
         
         // Attendance configuration
         properties.setProperty("attendance.duplicate.prevention.minutes", "60");
         properties.setProperty("attendance.auto.checkout", "false");
+        properties.setProperty("attendance.writer.queue", "1000");
+        properties.setProperty("attendance.writer.batch.size", "50");
+        properties.setProperty("attendance.writer.flush.ms", "100");
+        properties.setProperty("attendance.writer.shutdown.ms", "5000");
+        properties.setProperty("export.gzip", "false");
         
         // UI configuration
         properties.setProperty("ui.window.width", "1350");
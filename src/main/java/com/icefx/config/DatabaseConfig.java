@@ -15,14 +15,22 @@ import java.sql.SQLException;
 /**
  * Centralized database configuration using HikariCP. Supports MySQL (default)
  * and SQLite (portable deployments) with settings sourced from {@link AppConfig}.
+ *
+ * In SQLite mode the database runs in WAL mode with a read pool and a separate
+ * single-connection writer pool, so writes queue in the application instead of
+ * failing with {@code SQLITE_BUSY}; DAOs take write connections from
+ * {@link #getWriteConnection()}. The schema is created from the bundled
+ * {@code /db/sqlite_schema.sql} on start.
  */
 public final class DatabaseConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
     private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
     private static final String SQLITE_DRIVER = "org.sqlite.JDBC";
+    private static final String SQLITE_SCHEMA = "/db/sqlite_schema.sql";
 
     private static HikariDataSource dataSource;
+    private static HikariDataSource writeDataSource;
 
     static {
         initializeDataSource();
@@ -39,24 +47,45 @@ public final class DatabaseConfig {
             AppConfig.initialize();
             String dbType = AppConfig.getDatabaseType().toLowerCase();
 
+            boolean sqlite = "sqlite".equals(dbType);
             HikariConfig config = new HikariConfig();
 
-            if ("sqlite".equals(dbType)) {
-                configureSQLite(config);
+            if (sqlite) {
+                configureSQLite(config, "IceFX-SQLite");
+                writeDataSource = new HikariDataSource(sqliteWriterConfig());
+                try (Connection conn = writeDataSource.getConnection()) {
+                    SchemaScript.apply(conn, SQLITE_SCHEMA);
+                }
             } else {
                 configureMySql(config);
             }
 
-            applyPoolSettings(config, "sqlite".equals(dbType));
+            applyPoolSettings(config, sqlite);
             dataSource = new HikariDataSource(config);
             logger.info("✅ Database connection pool initialized ({})", config.getPoolName());
 
+            if (AppConfig.getBoolean("db.migrations.enabled", true)) {
+                runMigrations();
+            }
+
         } catch (Exception e) {
             logger.error("Failed to initialize database connection pool", e);
             throw new RuntimeException("Database initialization failed", e);
         }
     }
 
+    /**
+     * Bring the schema up to date. A failure is logged, not fatal: the
+     * migration is retried on the next start.
+     */
+    private static void runMigrations() {
+        try (Connection conn = writer().getConnection()) {
+            MigrationRunner.migrate(conn);
+        } catch (SQLException e) {
+            logger.error("Database schema migration failed - continuing with the current schema", e);
+        }
+    }
+
     private static void configureMySql(HikariConfig config) {
         String host = AppConfig.get("db.mysql.host", "localhost");
         String port = AppConfig.get("db.mysql.port", "3306");
@@ -76,19 +105,50 @@ public final class DatabaseConfig {
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
         config.addDataSourceProperty("useServerPrepStmts", "true");
+        // Lets statements with a fetch size (e.g. exports) read through a server-side cursor
+        config.addDataSourceProperty("useCursorFetch", "true");
     }
 
-    private static void configureSQLite(HikariConfig config) throws IOException {
+    private static void configureSQLite(HikariConfig config, String poolName) throws IOException {
         String configuredPath = AppConfig.get("db.sqlite.path", "data/facial_attendance.db");
         Path sqlitePath = Paths.get(configuredPath).toAbsolutePath();
         if (sqlitePath.getParent() != null) {
             Files.createDirectories(sqlitePath.getParent());
         }
 
-        config.setPoolName("IceFX-SQLite");
+        config.setPoolName(poolName);
         config.setJdbcUrl("jdbc:sqlite:" + sqlitePath);
         config.setDriverClassName(SQLITE_DRIVER);
         config.setConnectionTestQuery("SELECT 1");
+
+        // Applied by the driver as PRAGMAs on every new connection
+        config.addDataSourceProperty("journal_mode", AppConfig.get("db.sqlite.journalMode", "WAL"));
+        config.addDataSourceProperty("synchronous", AppConfig.get("db.sqlite.synchronous", "NORMAL"));
+        config.addDataSourceProperty("cache_size", String.valueOf(AppConfig.getInt("db.sqlite.cacheSize", -16000)));
+        config.addDataSourceProperty("mmap_size", String.valueOf(getLong("db.sqlite.mmapSize", 268_435_456L)));
+        config.addDataSourceProperty("busy_timeout", String.valueOf(AppConfig.getInt("db.sqlite.busyTimeout", 5000)));
+        config.addDataSourceProperty("foreign_keys", "true");
+    }
+
+    /**
+     * The single SQLite writer connection. Transactions begin IMMEDIATE so a
+     * transaction takes the write lock up front rather than failing when it
+     * first writes.
+     */
+    private static HikariConfig sqliteWriterConfig() throws IOException {
+        HikariConfig config = new HikariConfig();
+        configureSQLite(config, "IceFX-SQLite-Writer");
+        config.addDataSourceProperty("transaction_mode", "IMMEDIATE");
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(getLong("db.pool.connectionTimeout", 30_000L));
+        config.setIdleTimeout(getLong("db.pool.idleTimeout", 600_000L));
+        config.setMaxLifetime(getLong("db.pool.maxLifetime", 1_800_000L));
+        return config;
+    }
+
+    private static HikariDataSource writer() {
+        return writeDataSource != null ? writeDataSource : dataSource;
     }
 
     private static void applyPoolSettings(HikariConfig config, boolean sqlite) {
@@ -130,9 +190,27 @@ public final class DatabaseConfig {
     }
 
     /**
-     * Close the pool (invoked during application shutdown).
+     * Obtain a connection for inserts, updates and deletes. In SQLite mode this
+     * is the single writer connection (callers wait for it in turn); otherwise
+     * it is the same as {@link #getConnection()}.
+     */
+    public static Connection getWriteConnection() throws SQLException {
+        if (dataSource == null || dataSource.isClosed()) {
+            initializeDataSource();
+        }
+        return writer().getConnection();
+    }
+
+    /**
+     * Close the pools (invoked during application shutdown).
      */
     public static void closePool() {
+        if (writeDataSource != null) {
+            if (!writeDataSource.isClosed()) {
+                writeDataSource.close();
+            }
+            writeDataSource = null;
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Database connection pool closed");
@@ -156,11 +234,17 @@ public final class DatabaseConfig {
      */
     public static String getPoolStats() {
         if (dataSource != null) {
-            return String.format("Pool Stats - Active: %d, Idle: %d, Total: %d, Waiting: %d",
+            String stats = String.format("Pool Stats - Active: %d, Idle: %d, Total: %d, Waiting: %d",
                 dataSource.getHikariPoolMXBean().getActiveConnections(),
                 dataSource.getHikariPoolMXBean().getIdleConnections(),
                 dataSource.getHikariPoolMXBean().getTotalConnections(),
                 dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
+            if (writeDataSource != null) {
+                stats += String.format(" | Writer - Active: %d, Waiting: %d",
+                    writeDataSource.getHikariPoolMXBean().getActiveConnections(),
+                    writeDataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
+            }
+            return stats;
         }
         return "Pool not initialized";
     }
@@ -0,0 +1,135 @@
+package com.icefx.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Versioned schema migrations, applied at startup to existing MySQL and SQLite
+ * databases.
+ *
+ * Applied versions are recorded in {@code schema_version}; each migration runs
+ * once, in version order, and is written to be safe on databases that already
+ * have the change (e.g. created from a newer setup script). A failed migration
+ * is not recorded and is retried on the next start; the application keeps
+ * running without it.
+ *
+ * To change the schema, append a {@link Migration} with the next version and
+ * update {@code database_setup_simple.sql} for fresh installs.
+ */
+public final class MigrationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+
+    /**
+     * Work done by one migration on a connection in a transaction.
+     */
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    record Migration(int version, String description, Step step) {
+    }
+
+    static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Composite attendance indexes for per-person and per-activity time ranges", conn -> {
+            createIndexIfMissing(conn, "attendance_logs", "idx_attendance_person_time", "person_id, event_time");
+            createIndexIfMissing(conn, "attendance_logs", "idx_attendance_activity_time", "activity, event_time");
+        })
+    );
+
+    private MigrationRunner() {
+        // Utility class
+    }
+
+    /**
+     * Apply every migration newer than the database's schema version.
+     *
+     * @return Number of migrations applied
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        ensureVersionTable(conn);
+        int current = currentVersion(conn);
+        int applied = 0;
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                migration.step().apply(conn);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    ps.setInt(1, migration.version());
+                    ps.setString(2, migration.description());
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                applied++;
+                logger.info("✅ Schema migration {} applied: {}", migration.version(), migration.description());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Schema migration " + migration.version() + " failed", e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        if (applied == 0) {
+            logger.info("Database schema is up to date (version {})", current);
+        }
+        return applied;
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200), " +
+                "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Create an index unless one with that name exists. (MySQL has no
+     * {@code CREATE INDEX IF NOT EXISTS}, so the catalog is checked instead.)
+     *
+     * @throws SQLException if the table does not exist yet
+     */
+    static void createIndexIfMissing(Connection conn, String table, String index, String columns) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet tables = metaData.getTables(conn.getCatalog(), null, table, null)) {
+            if (!tables.next()) {
+                throw new SQLException("Table " + table + " does not exist");
+            }
+        }
+        try (ResultSet indexes = metaData.getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    logger.debug("Index {} already exists", index);
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.icefx.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a bundled SQL script (e.g. {@code /db/sqlite_schema.sql}) in one
+ * transaction.
+ *
+ * Kept deliberately simple: {@code --} comments are stripped line by line and
+ * statements are split on {@code ;}, so scripts must not use either inside
+ * string literals, and triggers are not supported.
+ */
+public final class SchemaScript {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaScript.class);
+
+    private SchemaScript() {
+        // Utility class
+    }
+
+    /**
+     * Execute every statement of a classpath script.
+     *
+     * @return Number of statements executed
+     * @throws SQLException if the script is missing or a statement fails (nothing is kept)
+     */
+    public static int apply(Connection conn, String resource) throws SQLException {
+        List<String> statements = parse(read(resource));
+        boolean autoCommit = conn.getAutoCommit();
+        try (Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema script " + resource + " failed", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        logger.info("✅ Schema script {} applied ({} statements)", resource, statements.size());
+        return statements.size();
+    }
+
+    static List<String> parse(String script) {
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            int comment = line.indexOf("--");
+            sql.append(comment >= 0 ? line.substring(0, comment) : line).append('\n');
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String statement : sql.toString().split(";")) {
+            String trimmed = statement.trim();
+            if (!trimmed.isEmpty()) {
+                statements.add(trimmed);
+            }
+        }
+        return statements;
+    }
+
+    private static String read(String resource) throws SQLException {
+        try (InputStream in = SchemaScript.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new SQLException("Schema script not found on classpath: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read schema script " + resource, e);
+        }
+    }
+}
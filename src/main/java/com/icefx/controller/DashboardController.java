@@ -8,6 +8,8 @@ import com.icefx.model.AttendanceLog;
 import com.icefx.model.Schedule;
 import com.icefx.model.User;
 import com.icefx.service.AttendanceService;
+import com.icefx.service.AttendanceWriter;
+import com.icefx.service.CameraManager;
 import com.icefx.service.CameraService;
 import com.icefx.service.FaceRecognitionService;
 import com.icefx.util.ModernToast;
@@ -20,7 +22,6 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
-import org.bytedeco.opencv.opencv_core.Mat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,9 +78,11 @@ public class DashboardController {
     @FXML private VBox scheduleList;
     
     // Services
-    private CameraService cameraService;
+    private CameraManager cameraManager;
+    private CameraService cameraService; // primary camera (shown in the preview)
     private FaceRecognitionService faceRecognitionService;
     private AttendanceService attendanceService;
+    private AttendanceWriter attendanceWriter;
     
     // DAOs
     private UserDAO userDAO;
@@ -91,8 +94,6 @@ public class DashboardController {
     private User currentUser; // The logged-in user
     
     // Configuration (loaded from AppConfig)
-    private final int cameraIndex = AppConfig.getInt("camera.index", 0);
-    private final int cameraFps = AppConfig.getInt("camera.fps", 30);
     private final String cascadePath = AppConfig.get("recognition.haar.cascade",
         "resources/haar/haarcascade_frontalface_default.xml");
     private final String modelPath = AppConfig.getModelPath();
@@ -112,13 +113,15 @@ public class DashboardController {
             
             // Initialize services
             attendanceService = new AttendanceService(attendanceDAO, userDAO);
+            attendanceWriter = AttendanceWriter.start(attendanceService);
             faceRecognitionService = new FaceRecognitionService(userDAO, cascadePath);
             
             // Load trained model
             loadFaceRecognitionModel();
             
-            // Initialize camera service
-            cameraService = new CameraService(cameraIndex, cameraFps);
+            // Initialize cameras (one per entrance; results arrive in handleResults)
+            cameraManager = new CameraManager(faceRecognitionService, this::handleResults);
+            cameraService = cameraManager.getPrimary();
             
             // Set up UI bindings
             setupUIBindings();
@@ -181,7 +184,7 @@ public class DashboardController {
                 loadingOverlay.setVisible(true);
             }
             
-            cameraService.start();
+            cameraManager.startAll();
             
             // Short delay for camera warmup
             new Thread(() -> {
@@ -239,6 +242,11 @@ public class DashboardController {
             logger.warn("Failed to load face recognition model: {}", e.getMessage());
             logger.info("Model can be trained later from the Admin panel");
         }
+        
+        // Pick up models saved by the registration station without a restart
+        if (AppConfig.getBoolean("recognition.model.watch", true)) {
+            faceRecognitionService.watchModelFile(modelPath);
+        }
     }
     
     /**
@@ -249,6 +257,7 @@ public class DashboardController {
         if (cameraView != null) {
             cameraView.imageProperty().bind(cameraService.currentFrameProperty());
             cameraView.setPreserveRatio(true);
+            cameraService.attachPreview(cameraView);
         }
         
         // Bind status label and detect camera errors
@@ -284,9 +293,7 @@ public class DashboardController {
                 );
             });
         }
-        
-        // Set up frame processing callback
-        cameraService.setFrameCallback(this::processFrame);
+
     }
     
     /**
@@ -343,27 +350,39 @@ public class DashboardController {
     }
     
     /**
-     * Process each camera frame for face recognition.
+     * Show a frame's results (primary camera only) and log attendance for fresh
+     * recognitions of any camera.
      */
-    private void processFrame(Mat frame) {
-        try {
-            // Perform face detection and recognition
-            FaceRecognitionService.RecognitionResult result = 
-                faceRecognitionService.detectAndRecognize(frame);
-            
-            // Update UI with recognition result
-            Platform.runLater(() -> updateRecognitionDisplay(result));
-            
-            // Log attendance if user is recognized
+    private void handleResults(String cameraId, List<FaceRecognitionService.RecognitionResult> results) {
+        if (cameraId.equals(cameraService.getCameraId())) {
+            FaceRecognitionService.RecognitionResult primary = selectPrimaryResult(results);
+            Platform.runLater(() -> updateRecognitionDisplay(primary));
+        }
+        
+        for (FaceRecognitionService.RecognitionResult result : results) {
             if (result.shouldLogAttendance()) {
-                logAttendance(result);
+                logAttendance(result, cameraId);
             }
-            
-        } catch (Exception e) {
-            logger.error("Error processing frame", e);
         }
     }
     
+    /**
+     * Pick the result shown in the recognition panel: a fresh recognition wins,
+     * otherwise the first (largest) face.
+     */
+    private FaceRecognitionService.RecognitionResult selectPrimaryResult(
+            List<FaceRecognitionService.RecognitionResult> results) {
+        if (results.isEmpty()) {
+            return FaceRecognitionService.RecognitionResult.noFace();
+        }
+        for (FaceRecognitionService.RecognitionResult result : results) {
+            if (result.shouldLogAttendance()) {
+                return result;
+            }
+        }
+        return results.get(0);
+    }
+    
     /**
      * Update the recognition display panel.
      */
@@ -393,6 +412,12 @@ public class DashboardController {
                 icon = "⚠️";
                 break;
                 
+            case VERIFYING:
+                mainText = "Verifying...";
+                detailText = "Hold still for a moment";
+                icon = "🔎";
+                break;
+                
             case DEBOUNCED:
                 mainText = "Recently Recognized";
                 detailText = "Already logged - Cooldown period active";
@@ -438,54 +463,49 @@ public class DashboardController {
     }
     
     /**
-     * Log attendance for recognized user.
+     * Log attendance for recognized user. Queued on the attendance writer (written
+     * in batches); the toast appears once the batch is written.
      */
-    private void logAttendance(FaceRecognitionService.RecognitionResult recognition) {
-        new Thread(() -> {
-            try {
-                logger.info("Logging attendance for user: {} (confidence: {})", 
-                    recognition.getUserName(), recognition.getConfidence());
-                
-                AttendanceService.AttendanceResult result = 
-                    attendanceService.logAttendance(
-                        recognition.getUserId(), 
-                        recognition.getConfidence()
-                    );
-                
-                Platform.runLater(() -> {
-                    if (result.isSuccess()) {
-                        ModernToast.success(String.format(
-                            "✅ Welcome, %s! Attendance logged successfully.",
-                            recognition.getUserName()
-                        ));
-                        
-                        // Show user's schedule for today
-                        displayUserSchedule(recognition.getUserId(), recognition.getUserName());
-                        
-                        // Refresh attendance table
-                        loadTodayAttendance();
-                        updateStatistics();
-                        
-                    } else if (result.getStatus() == AttendanceService.AttendanceResult.Status.DUPLICATE) {
-                        ModernToast.info(String.format(
-                            "Welcome back, %s! You already checked in earlier today.",
-                            recognition.getUserName()
-                        ));
-                        
-                        // Still show schedule even if duplicate
-                        displayUserSchedule(recognition.getUserId(), recognition.getUserName());
-                    } else {
-                        ModernToast.warning("Failed to log attendance: " + result.getMessage());
-                    }
-                });
-                
-            } catch (Exception e) {
-                logger.error("Error logging attendance", e);
-                Platform.runLater(() -> 
-                    ModernToast.error("Failed to log attendance: " + e.getMessage())
-                );
-            }
-        }).start();
+    private void logAttendance(FaceRecognitionService.RecognitionResult recognition, String cameraId) {
+        logger.info("Logging attendance for user: {} (confidence: {}, camera: {})", 
+            recognition.getUserName(), recognition.getConfidence(), cameraId);
+        
+        boolean queued = attendanceWriter.submit(recognition.getUserId(), recognition.getConfidence(), cameraId,
+            result -> Platform.runLater(() -> {
+                if (result.isSuccess()) {
+                    ModernToast.success(String.format(
+                        "✅ Welcome, %s! Attendance logged successfully.",
+                        recognition.getUserName()
+                    ));
+                    
+                    // Show user's schedule for today
+                    displayUserSchedule(recognition.getUserId(), recognition.getUserName());
+                    
+                    // Refresh attendance table
+                    loadTodayAttendance();
+                    updateStatistics();
+                    
+                } else if (result.getStatus() == AttendanceService.AttendanceResult.Status.DUPLICATE) {
+                    ModernToast.info(String.format(
+                        "Welcome back, %s! You already checked in earlier today.",
+                        recognition.getUserName()
+                    ));
+                    
+                    // Still show schedule even if duplicate
+                    displayUserSchedule(recognition.getUserId(), recognition.getUserName());
+                } else {
+                    ModernToast.warning("Failed to log attendance: " + result.getMessage());
+                }
+            }));
+        
+        if (!queued) {
+            // Let the next recognition of this user try again instead of being debounced
+            faceRecognitionService.clearDebounce(recognition.getUserId());
+            Platform.runLater(() ->
+                ModernToast.warning(String.format(
+                    "Attendance system busy - could not record %s", recognition.getUserName()))
+            );
+        }
     }
     
     /**
@@ -636,7 +656,7 @@ public class DashboardController {
                 cameraOffOverlay.setVisible(false);
             }
             
-            cameraService.start();
+            cameraManager.startAll();
             
             // Hide loading after short delay
             Platform.runLater(() -> {
@@ -679,7 +699,7 @@ public class DashboardController {
         logger.info("Stopping camera...");
         
         try {
-            cameraService.stop();
+            cameraManager.stopAll();
             
             startCameraButton.setDisable(false);
             stopCameraButton.setDisable(true);
@@ -840,8 +860,17 @@ public class DashboardController {
     public void cleanup() {
         logger.info("Cleaning up DashboardController...");
         
-        if (cameraService != null) {
-            cameraService.stop();
+        if (cameraManager != null) {
+            cameraManager.shutdown();
+        }
+        
+        // Write attendance still queued before the session ends
+        if (attendanceWriter != null) {
+            attendanceWriter.shutdown(AppConfig.getInt("attendance.writer.shutdown.ms", 5000));
+        }
+        
+        if (faceRecognitionService != null) {
+            faceRecognitionService.shutdown();
         }
         
         logger.info("DashboardController cleanup complete");
@@ -4,10 +4,13 @@ import com.icefx.config.AppConfig;
 import com.icefx.dao.UserDAO;
 import com.icefx.model.User;
 import com.icefx.service.CameraService;
+import com.icefx.service.CaptureBuffers;
+import com.icefx.service.CascadeRegistry;
 import com.icefx.service.FaceRecognitionService;
 import com.icefx.service.FaceRegistrationService;
 import com.icefx.service.FaceRegistrationService.CaptureAngle;
 import com.icefx.service.FaceRegistrationService.QualityResult;
+import com.icefx.service.TrainingSetLoader;
 import com.icefx.util.ModernToast;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -28,7 +31,6 @@ import org.bytedeco.javacv.JavaFXFrameConverter;
 import org.bytedeco.javacv.OpenCVFrameGrabber;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.global.opencv_imgcodecs;
-import org.bytedeco.opencv.global.opencv_core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,8 +88,15 @@ public class FaceRegistrationController {
     private List<CaptureAngle> recommendedAngles;
     private FrameGrabber grabber;
     private JavaFXFrameConverter converter = new JavaFXFrameConverter();
+    // Ring of 3: the FX thread checks quality on a frame while the next ones are grabbed
+    private final CaptureBuffers captureBuffers = new CaptureBuffers(3);
     private volatile boolean cameraRunning = false;
     private Thread cameraThread;
+    // Newest ring slot; the capture thread rewrites slots in toMat, so only touch it under frameLock
+    private final Object frameLock = new Object();
+    private Mat latestFrame;
+    // FX-thread copy of latestFrame used for quality checks and saving
+    private final Mat fxFrame = new Mat();
     private Mat currentFrame;
     private long lastCaptureTime = 0;
     private static final long CAPTURE_COOLDOWN_MS = 1000; // 1 second cooldown
@@ -341,23 +350,19 @@ public class FaceRegistrationController {
                     continue;
                 }
                 
-                // Convert to Mat for quality check
-                currentFrame = convertFrameToMat(frame);
-                
-                // Mirror the frame horizontally for intuitive display
-                if (currentFrame != null) {
-                    Mat flippedFrame = new Mat();
-                    opencv_core.flip(currentFrame, flippedFrame, 1); // 1 = horizontal flip
-                    
-                    // Update currentFrame to flipped version
-                    currentFrame.release();
-                    currentFrame = flippedFrame;
+                // Convert to Mat for quality check, mirrored horizontally for intuitive display
+                // (into a recycled buffer - nothing is allocated per frame)
+                Mat mirrored;
+                synchronized (frameLock) {
+                    mirrored = captureBuffers.toMat(frame, true);
+                    if (mirrored == null) {
+                        continue;
+                    }
+                    latestFrame = mirrored;
                 }
                 
                 // Convert flipped Mat back to Frame for JavaFX display
-                org.bytedeco.javacv.OpenCVFrameConverter.ToMat matConverter = 
-                    new org.bytedeco.javacv.OpenCVFrameConverter.ToMat();
-                Frame flippedFrameForDisplay = matConverter.convert(currentFrame);
+                Frame flippedFrameForDisplay = captureBuffers.toFrame(mirrored);
                 
                 // Convert to JavaFX Image for display
                 Image image = converter.convert(flippedFrameForDisplay);
@@ -372,7 +377,7 @@ public class FaceRegistrationController {
                     }
                     
                     // Check face quality
-                    if (currentFrame != null) {
+                    if (takeFrame() != null) {
                         QualityResult quality = registrationService.validateFaceQuality(currentFrame);
                         updateQualityDisplay(quality);
                         
@@ -393,21 +398,23 @@ public class FaceRegistrationController {
             }
         }
         
-        logger.info("Camera loop stopped");
+        logger.info("Camera loop stopped ({} frames, {} buffer allocations)",
+            captureBuffers.getFrames(), captureBuffers.getAllocations());
     }
     
     /**
-     * Convert Frame to Mat (simplified version)
+     * Copy the newest captured frame into {@link #fxFrame} and make it the current frame.
+     * Must run on the FX thread; returns null before the first frame arrives.
      */
-    private Mat convertFrameToMat(Frame frame) {
-        try {
-            org.bytedeco.javacv.OpenCVFrameConverter.ToMat matConverter = 
-                new org.bytedeco.javacv.OpenCVFrameConverter.ToMat();
-            return matConverter.convert(frame);
-        } catch (Exception e) {
-            logger.error("Failed to convert frame to Mat", e);
-            return null;
+    private Mat takeFrame() {
+        synchronized (frameLock) {
+            if (latestFrame == null) {
+                return null;
+            }
+            latestFrame.copyTo(fxFrame);
         }
+        currentFrame = fxFrame;
+        return currentFrame;
     }
     
     /**
@@ -525,26 +532,9 @@ public class FaceRegistrationController {
         }
         
         try {
-            // Detect face using the cascade classifier
-            org.bytedeco.opencv.opencv_objdetect.CascadeClassifier detector = 
-                new org.bytedeco.opencv.opencv_objdetect.CascadeClassifier();
-            
-            // Use the same cascade file as FaceRegistrationService
-            String cascadePath = "/haar/haarcascade_frontalface_default.xml";
-            java.io.InputStream cascadeStream = getClass().getResourceAsStream(cascadePath);
-            
-            if (cascadeStream != null) {
-                // Extract to temp file
-                java.io.File tempCascade = java.io.File.createTempFile("haarcascade", ".xml");
-                tempCascade.deleteOnExit();
-                java.nio.file.Files.copy(cascadeStream, tempCascade.toPath(), 
-                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                cascadeStream.close();
-                
-                detector.load(tempCascade.getAbsolutePath());
-            }
-            
-            // Detect faces
+            // Detect faces with this thread's shared classifier (no per-frame extraction or parsing)
+            org.bytedeco.opencv.opencv_objdetect.CascadeClassifier detector = CascadeRegistry.get(
+                AppConfig.get("recognition.haar.cascade", "/haar/haarcascade_frontalface_default.xml"));
             org.bytedeco.opencv.opencv_core.RectVector faces = 
                 new org.bytedeco.opencv.opencv_core.RectVector();
             detector.detectMultiScale(currentFrame, faces);
@@ -678,7 +668,7 @@ public class FaceRegistrationController {
      */
     @FXML
     private void handleCapture() {
-        if (selectedUser == null || currentFrame == null) {
+        if (selectedUser == null || takeFrame() == null) {
             ModernToast.warning("No frame to capture");
             return;
         }
@@ -764,6 +754,32 @@ public class FaceRegistrationController {
         });
     }
     
+    /**
+     * Add the user's faces to the saved model, or train from scratch if there is
+     * no model yet. Enrolling one person only costs their own photos, so this
+     * stays fast as the number of registered users grows.
+     * 
+     * @param progress Receives image loading progress (called off the FX thread)
+     * @return Number of face samples used
+     */
+    private int trainModelFor(User user, TrainingSetLoader.ProgressListener progress) {
+        String modelPath = AppConfig.getModelPath();
+        if (!recognitionService.isTrained() && FaceRecognitionService.modelExists(modelPath)) {
+            recognitionService.loadModel(modelPath);
+        }
+        
+        int count;
+        if (recognitionService.isTrained() && user != null) {
+            count = recognitionService.enrollFromDirectory(
+                user.getUserId(), registrationService.getUserDirectory(user.getUserId()), progress);
+        } else {
+            count = recognitionService.trainFromDirectory(registrationService.getFacesBaseDirectory(), progress);
+        }
+        
+        recognitionService.saveModel(modelPath);
+        return count;
+    }
+    
     /**
      * Perform model training in background
      */
@@ -773,17 +789,11 @@ public class FaceRegistrationController {
         trainingStatusLabel.setText("Training model...");
         trainButton.setDisable(true);
         
+        final User user = selectedUser;
         Task<Integer> task = new Task<>() {
             @Override
             protected Integer call() throws Exception {
-                String facesDir = registrationService.getFacesBaseDirectory();
-                int count = recognitionService.trainFromDirectory(facesDir);
-                
-                // Save model
-                String modelPath = AppConfig.getModelPath();
-                recognitionService.saveModel(modelPath);
-                
-                return count;
+                return trainModelFor(user, this::updateProgress);
             }
             
             @Override
@@ -818,6 +828,7 @@ public class FaceRegistrationController {
             }
         };
         
+        task.progressProperty().addListener((obs, old, value) -> trainingProgress.setProgress(value.doubleValue()));
         new Thread(task).start();
     }
     
@@ -831,17 +842,11 @@ public class FaceRegistrationController {
         captureButton.setDisable(true);
         trainButton.setDisable(true);
         
+        final User user = selectedUser;
         Task<Integer> task = new Task<>() {
             @Override
             protected Integer call() throws Exception {
-                String facesDir = registrationService.getFacesBaseDirectory();
-                int count = recognitionService.trainFromDirectory(facesDir);
-                
-                // Save model
-                String modelPath = AppConfig.getModelPath();
-                recognitionService.saveModel(modelPath);
-                
-                return count;
+                return trainModelFor(user, this::updateProgress);
             }
             
             @Override
@@ -886,6 +891,7 @@ public class FaceRegistrationController {
             }
         };
         
+        task.progressProperty().addListener((obs, old, value) -> trainingProgress.setProgress(value.doubleValue()));
         new Thread(task).start();
     }
     
@@ -943,5 +949,18 @@ public class FaceRegistrationController {
         if (converter != null) {
             converter.close();
         }
+        
+        // Free the frame buffers once the camera loop is gone
+        try {
+            if (cameraThread != null) {
+                cameraThread.join(1000);
+            }
+            if (cameraThread == null || !cameraThread.isAlive()) {
+                captureBuffers.close();
+                fxFrame.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -9,12 +9,25 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for AttendanceLog entities.
  */
 public class AttendanceDAO {
     
+    /**
+     * Rows fetched per round trip when streaming. (MySQL only honours it with
+     * {@code useCursorFetch}, which {@link DatabaseConfig} enables.)
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+    
+    private static final String STREAM_SELECT =
+        "SELECT a.log_id, a.person_id, a.event_time, a.event_type, " +
+        "a.camera_id, a.confidence, a.activity, u.full_name " +
+        "FROM attendance_logs a " +
+        "LEFT JOIN persons u ON a.person_id = u.person_id ";
+    
     /**
      * Log attendance (Time In or Time Out)
      */
@@ -22,7 +35,7 @@ public class AttendanceDAO {
         String sql = "INSERT INTO attendance_logs (person_id, event_time, event_type, camera_id, confidence, activity, snapshot) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             ps.setInt(1, log.getUserId());
@@ -49,6 +62,86 @@ public class AttendanceDAO {
         }
     }
     
+    /**
+     * Insert several attendance logs in one transaction with a single JDBC batch
+     * (one round trip on drivers that rewrite batches). Log IDs are not read back.
+     */
+    public void logAttendanceBatch(List<AttendanceLog> logs) throws SQLException {
+        if (logs.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO attendance_logs (person_id, event_time, event_type, camera_id, confidence, activity, snapshot) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getWriteConnection();
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (AttendanceLog log : logs) {
+                    ps.setInt(1, log.getUserId());
+                    ps.setTimestamp(2, Timestamp.valueOf(log.getEventTime()));
+                    ps.setString(3, log.getEventType());
+                    ps.setString(4, log.getCameraId());
+                    ps.setDouble(5, log.getConfidence());
+                    ps.setString(6, log.getActivity());
+                    ps.setBytes(7, null);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            
+            conn.commit();
+            
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+    
+    /**
+     * Latest event of a person for one activity.
+     */
+    public record LastEvent(int personId, String activity, LocalDateTime eventTime) {
+    }
+    
+    /**
+     * Latest event of every person and activity since {@code since}, in one
+     * aggregate query (used to warm the in-memory duplicate check).
+     */
+    public List<LastEvent> findLastEventsSince(LocalDateTime since) throws SQLException {
+        String sql = "SELECT person_id, activity, MAX(event_time) AS last_time " +
+                    "FROM attendance_logs " +
+                    "WHERE event_time >= ? " +
+                    "GROUP BY person_id, activity";
+        
+        List<LastEvent> events = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp lastTime = rs.getTimestamp("last_time");
+                    if (lastTime != null) {
+                        events.add(new LastEvent(rs.getInt("person_id"), rs.getString("activity"),
+                            lastTime.toLocalDateTime()));
+                    }
+                }
+            }
+        }
+        return events;
+    }
+    
     /**
      * Get all attendance logs for a specific user
      */
@@ -71,14 +164,14 @@ public class AttendanceDAO {
                     "al.activity, al.camera_id, al.confidence " +
                     "FROM attendance_logs al " +
                     "JOIN persons p ON al.person_id = p.person_id " +
-                    "WHERE al.person_id = ? AND DATE(al.event_time) = ? " +
+                    "WHERE al.person_id = ? AND al.event_time >= ? AND al.event_time < ? " +
                     "ORDER BY al.event_time DESC";
         
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
-            ps.setDate(2, Date.valueOf(date));
+            setDayRange(ps, 2, date, date);
             
             return mapResultSet(ps.executeQuery());
         }
@@ -92,7 +185,7 @@ public class AttendanceDAO {
                     "al.activity, al.camera_id, al.confidence " +
                     "FROM attendance_logs al " +
                     "JOIN persons p ON al.person_id = p.person_id " +
-                    "WHERE al.person_id = ? AND al.activity = ? AND DATE(al.event_time) = CURDATE() " +
+                    "WHERE al.person_id = ? AND al.activity = ? AND al.event_time >= ? AND al.event_time < ? " +
                     "ORDER BY al.event_time DESC LIMIT 1";
         
         try (Connection conn = DatabaseConfig.getConnection();
@@ -100,6 +193,7 @@ public class AttendanceDAO {
             
             ps.setInt(1, userId);
             ps.setString(2, activity);
+            setDayRange(ps, 3, LocalDate.now(), LocalDate.now());
             
             List<AttendanceLog> results = mapResultSet(ps.executeQuery());
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
@@ -114,14 +208,14 @@ public class AttendanceDAO {
                     "al.activity, al.camera_id, al.confidence " +
                     "FROM attendance_logs al " +
                     "JOIN persons p ON al.person_id = p.person_id " +
-                    "WHERE DATE(al.event_time) = CURDATE() " +
+                    "WHERE al.event_time >= ? AND al.event_time < ? " +
                     "ORDER BY al.event_time DESC";
         
         try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             
-            return mapResultSet(rs);
+            setDayRange(ps, 1, LocalDate.now(), LocalDate.now());
+            return mapResultSet(ps.executeQuery());
         }
     }
     
@@ -133,14 +227,13 @@ public class AttendanceDAO {
                     "al.activity, al.camera_id, al.confidence " +
                     "FROM attendance_logs al " +
                     "JOIN persons p ON al.person_id = p.person_id " +
-                    "WHERE DATE(al.event_time) BETWEEN ? AND ? " +
+                    "WHERE al.event_time >= ? AND al.event_time < ? " +
                     "ORDER BY al.event_time DESC";
         
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
-            ps.setDate(1, Date.valueOf(startDate));
-            ps.setDate(2, Date.valueOf(endDate));
+            setDayRange(ps, 1, startDate, endDate);
             
             return mapResultSet(ps.executeQuery());
         }
@@ -155,14 +248,13 @@ public class AttendanceDAO {
                     "SUM(CASE WHEN event_type = 'Time In' THEN 1 ELSE 0 END) as time_in_count, " +
                     "SUM(CASE WHEN event_type = 'Time Out' THEN 1 ELSE 0 END) as time_out_count " +
                     "FROM attendance_logs " +
-                    "WHERE person_id = ? AND DATE(event_time) BETWEEN ? AND ?";
+                    "WHERE person_id = ? AND event_time >= ? AND event_time < ?";
         
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
-            ps.setDate(2, Date.valueOf(startDate));
-            ps.setDate(3, Date.valueOf(endDate));
+            setDayRange(ps, 2, startDate, endDate);
             
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -184,7 +276,7 @@ public class AttendanceDAO {
     public boolean deleteByUserId(int userId) throws SQLException {
         String sql = "DELETE FROM attendance_logs WHERE person_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
@@ -192,6 +284,17 @@ public class AttendanceDAO {
         }
     }
     
+    /**
+     * Bind the half-open range [start of {@code firstDay}, start of the day after
+     * {@code lastDay}) to two parameters. Comparing the bare column (instead of
+     * {@code DATE(event_time)}) lets the database use the event_time indexes.
+     */
+    private static void setDayRange(PreparedStatement ps, int index, LocalDate firstDay, LocalDate lastDay)
+            throws SQLException {
+        ps.setTimestamp(index, Timestamp.valueOf(firstDay.atStartOfDay()));
+        ps.setTimestamp(index + 1, Timestamp.valueOf(lastDay.plusDays(1).atStartOfDay()));
+    }
+    
     /**
      * Helper method to execute queries with a single int parameter
      */
@@ -253,14 +356,75 @@ public class AttendanceDAO {
      * @throws SQLException if database error occurs
      */
     public List<AttendanceLog> getAllAttendanceLogs() throws SQLException {
-        String sql = "SELECT a.log_id, a.person_id, a.event_time, a.event_type, " +
-                    "a.camera_id, a.confidence, a.activity, u.full_name " +
-                    "FROM attendance_logs a " +
-                    "LEFT JOIN persons u ON a.person_id = u.person_id " +
-                    "ORDER BY a.event_time DESC";
-        
-        return mapResultSet(DatabaseConfig.getConnection()
-            .createStatement().executeQuery(sql));
+        List<AttendanceLog> logs = new ArrayList<>();
+        streamAllAttendanceLogs(logs::add);
+        return logs;
+    }
+    
+    /**
+     * Pass every attendance log, newest first, to {@code handler} one row at a
+     * time without holding the result in memory.
+     * 
+     * @return Number of rows passed to the handler
+     * @throws SQLException if database error occurs
+     */
+    public long streamAllAttendanceLogs(Consumer<AttendanceLog> handler) throws SQLException {
+        return stream(STREAM_SELECT + "ORDER BY a.event_time DESC", handler);
+    }
+    
+    /**
+     * Stream the attendance logs of one user, newest first.
+     * 
+     * @see #streamAllAttendanceLogs(Consumer)
+     */
+    public long streamAttendanceByUserId(int userId, Consumer<AttendanceLog> handler) throws SQLException {
+        return stream(STREAM_SELECT + "WHERE a.person_id = ? ORDER BY a.event_time DESC", handler, userId);
+    }
+    
+    /**
+     * Stream the attendance logs from {@code firstDay} through {@code lastDay},
+     * newest first.
+     * 
+     * @see #streamAllAttendanceLogs(Consumer)
+     */
+    public long streamAttendanceByDateRange(LocalDate firstDay, LocalDate lastDay, Consumer<AttendanceLog> handler)
+            throws SQLException {
+        return stream(STREAM_SELECT + "WHERE a.event_time >= ? AND a.event_time < ? ORDER BY a.event_time DESC",
+            handler, Timestamp.valueOf(firstDay.atStartOfDay()), Timestamp.valueOf(lastDay.plusDays(1).atStartOfDay()));
+    }
+    
+    /**
+     * Stream the attendance logs of one activity, newest first.
+     * 
+     * @see #streamAllAttendanceLogs(Consumer)
+     */
+    public long streamAttendanceByActivity(String activity, Consumer<AttendanceLog> handler) throws SQLException {
+        return stream(STREAM_SELECT + "WHERE a.activity = ? ORDER BY a.event_time DESC", handler, activity);
+    }
+    
+    /**
+     * Run a query on a forward-only, read-only cursor and hand each row over as
+     * it is read. Exceptions thrown by the handler propagate after the
+     * statement and connection are closed.
+     */
+    private long stream(String sql, Consumer<AttendanceLog> handler, Object... params) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            
+            long rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(mapResultSetToAttendanceLog(rs));
+                    rows++;
+                }
+            }
+            return rows;
+        }
     }
     
     /**
@@ -21,7 +21,7 @@ public class FaceTemplateDAO {
         String sql = "INSERT INTO face_templates (person_id, template_data, created_at, is_primary) " +
                     "VALUES (?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             ps.setInt(1, template.getUserId());
@@ -82,7 +82,7 @@ public class FaceTemplateDAO {
     public void replaceAllTemplates(int userId, byte[] newTemplateData) throws SQLException {
         Connection conn = null;
         try {
-            conn = DatabaseConfig.getConnection();
+            conn = DatabaseConfig.getWriteConnection();
             conn.setAutoCommit(false);
             
             // Delete all existing templates
@@ -121,7 +121,7 @@ public class FaceTemplateDAO {
     public boolean delete(int templateId) throws SQLException {
         String sql = "DELETE FROM face_templates WHERE template_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, templateId);
@@ -135,7 +135,7 @@ public class FaceTemplateDAO {
     public boolean deleteByData(int userId, byte[] templateData) throws SQLException {
         String sql = "DELETE FROM face_templates WHERE person_id = ? AND template_data = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
@@ -150,7 +150,7 @@ public class FaceTemplateDAO {
     public boolean deleteByUserId(int userId) throws SQLException {
         String sql = "DELETE FROM face_templates WHERE person_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
@@ -164,7 +164,7 @@ public class FaceTemplateDAO {
     public void setPrimaryTemplate(int templateId, int userId) throws SQLException {
         Connection conn = null;
         try {
-            conn = DatabaseConfig.getConnection();
+            conn = DatabaseConfig.getWriteConnection();
             conn.setAutoCommit(false);
             
             // Unset all primary flags for this user
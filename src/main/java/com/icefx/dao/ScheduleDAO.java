@@ -21,7 +21,7 @@ public class ScheduleDAO {
         String sql = "INSERT INTO schedules (person_id, day, start_time, end_time, activity) " +
                     "VALUES (?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             ps.setInt(1, userId);
@@ -109,7 +109,7 @@ public class ScheduleDAO {
         String sql = "UPDATE schedules SET day = ?, start_time = ?, end_time = ?, activity = ? " +
                     "WHERE schedule_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setString(1, schedule.getDayOfWeek().name());
@@ -128,7 +128,7 @@ public class ScheduleDAO {
     public boolean delete(int scheduleId) throws SQLException {
         String sql = "DELETE FROM schedules WHERE schedule_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, scheduleId);
@@ -142,7 +142,7 @@ public class ScheduleDAO {
     public boolean deleteByFields(int userId, Schedule schedule) throws SQLException {
         String sql = "DELETE FROM schedules WHERE person_id = ? AND day = ? AND start_time = ? AND end_time = ? AND activity = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
@@ -161,7 +161,7 @@ public class ScheduleDAO {
     public boolean deleteByUserId(int userId) throws SQLException {
         String sql = "DELETE FROM schedules WHERE person_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
@@ -3,6 +3,7 @@ package com.icefx.dao;
 import com.icefx.config.DatabaseConfig;
 import com.icefx.model.User;
 import com.icefx.model.User.UserRole;
+import com.icefx.model.UserIdentity;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -13,9 +14,14 @@ import java.util.Optional;
 /**
  * Data Access Object for User entities.
  * Handles all database operations related to users.
+ * 
+ * Identity lookups ({@link #findIdentityById(int)}) are served from the shared
+ * {@link UserIdentityCache}; every write below invalidates the affected entry.
  */
 public class UserDAO {
     
+    private final UserIdentityCache identityCache = UserIdentityCache.shared();
+    
     /**
      * Create a new user in the database
      */
@@ -23,7 +29,7 @@ public class UserDAO {
         String sql = "INSERT INTO persons (person_code, full_name, department, position, role, password, created_at, active) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             ps.setString(1, user.getUserCode());
@@ -42,6 +48,7 @@ public class UserDAO {
                     if (rs.next()) {
                         int userId = rs.getInt(1);
                         user.setUserId(userId);
+                        identityCache.invalidate(userId);
                         return userId;
                     }
                 }
@@ -73,6 +80,39 @@ public class UserDAO {
         return Optional.empty();
     }
     
+    /**
+     * Find the lightweight identity (name, role, active flag) of a user.
+     * Read-through cached; never loads the password column.
+     */
+    public Optional<UserIdentity> findIdentityById(int userId) throws SQLException {
+        return identityCache.get(userId, this::loadIdentity);
+    }
+    
+    private Optional<UserIdentity> loadIdentity(int userId) throws SQLException {
+        String sql = "SELECT person_id, person_code, full_name, role, active FROM persons WHERE person_id = ?";
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            
+            ps.setInt(1, userId);
+            
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    String roleStr = rs.getString("role");
+                    return Optional.of(new UserIdentity(
+                        rs.getInt("person_id"),
+                        rs.getString("person_code"),
+                        rs.getString("full_name"),
+                        roleStr != null ? UserRole.valueOf(roleStr) : UserRole.STUDENT,
+                        rs.getBoolean("active")
+                    ));
+                }
+            }
+        }
+        
+        return Optional.empty();
+    }
+    
     /**
      * Find user by user code
      */
@@ -168,7 +208,7 @@ public class UserDAO {
         String sql = "UPDATE persons SET person_code = ?, full_name = ?, department = ?, " +
                     "position = ?, role = ?, password = ?, active = ? WHERE person_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setString(1, user.getUserCode());
@@ -181,6 +221,8 @@ public class UserDAO {
             ps.setInt(8, user.getUserId());
             
             return ps.executeUpdate() > 0;
+        } finally {
+            identityCache.invalidate(user.getUserId());
         }
     }
     
@@ -190,11 +232,13 @@ public class UserDAO {
     public boolean deactivate(int userId) throws SQLException {
         String sql = "UPDATE persons SET active = FALSE WHERE person_id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             ps.setInt(1, userId);
             return ps.executeUpdate() > 0;
+        } finally {
+            identityCache.invalidate(userId);
         }
     }
     
@@ -204,7 +248,7 @@ public class UserDAO {
     public boolean delete(int userId) throws SQLException {
         Connection conn = null;
         try {
-            conn = DatabaseConfig.getConnection();
+            conn = DatabaseConfig.getWriteConnection();
             conn.setAutoCommit(false);
             
             // Delete face templates
@@ -240,6 +284,7 @@ public class UserDAO {
             }
             throw e;
         } finally {
+            identityCache.invalidate(userId);
             if (conn != null) {
                 conn.setAutoCommit(true);
                 conn.close();
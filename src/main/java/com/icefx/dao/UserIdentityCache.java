@@ -0,0 +1,160 @@
+package com.icefx.dao;
+
+import com.icefx.config.AppConfig;
+import com.icefx.model.UserIdentity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-based read-through cache of {@link UserIdentity} projections.
+ * 
+ * Reads are lock-free map lookups, so the camera thread never waits on MySQL
+ * just to resolve a display name. Entries expire after
+ * {@code cache.identity.ttlSeconds} and are invalidated explicitly by
+ * {@link UserDAO} whenever a user is created, updated, deactivated or deleted.
+ * Unknown ids are cached as well so a stale label cannot hammer the database.
+ */
+public final class UserIdentityCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserIdentityCache.class);
+
+    /**
+     * Loads an identity on cache miss.
+     */
+    @FunctionalInterface
+    public interface IdentityLoader {
+        Optional<UserIdentity> load(int userId) throws SQLException;
+    }
+
+    /**
+     * Cached value; {@code identity == null} records a confirmed miss.
+     */
+    private record Entry(UserIdentity identity, long expiresAtNanos) { }
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Bumped on every invalidation so a load racing with an update is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Process-wide instance shared by every {@link UserDAO}.
+     */
+    private static final class Holder {
+        static final UserIdentityCache INSTANCE = new UserIdentityCache(
+            AppConfig.getInt("cache.identity.maxSize", 10_000),
+            TimeUnit.SECONDS.toMillis(AppConfig.getInt("cache.identity.ttlSeconds", 300)));
+    }
+
+    public static UserIdentityCache shared() {
+        return Holder.INSTANCE;
+    }
+
+    public UserIdentityCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+    }
+
+    /**
+     * Return the cached identity, loading it on miss or expiry.
+     */
+    public Optional<UserIdentity> get(int userId, IdentityLoader loader) throws SQLException {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && now - entry.expiresAtNanos() < 0) {
+            hits.increment();
+            return Optional.ofNullable(entry.identity());
+        }
+
+        misses.increment();
+        long generation = invalidations.get();
+        Optional<UserIdentity> loaded = loader.load(userId);
+
+        if (generation == invalidations.get()) {
+            Entry added = new Entry(loaded.orElse(null), now + ttlNanos);
+            entries.put(userId, added);
+            // An invalidation between the check and the put would otherwise leave the old load cached
+            if (generation != invalidations.get()) {
+                entries.remove(userId, added);
+            } else if (entries.size() > maxSize) {
+                evict(now);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop one user's entry (call after any write to that user).
+     */
+    public void invalidate(int userId) {
+        invalidations.incrementAndGet();
+        entries.remove(userId);
+        logger.debug("Invalidated cached identity for user {}", userId);
+    }
+
+    /**
+     * Drop every entry.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+        logger.debug("Invalidated all cached identities");
+    }
+
+    /**
+     * Remove expired entries; if the cache is still over capacity, drop the
+     * entries closest to expiry until it is back to 90% of its bound.
+     */
+    private void evict(long now) {
+        entries.values().removeIf(e -> now - e.expiresAtNanos() >= 0);
+
+        int target = Math.max(1, maxSize * 9 / 10);
+        if (entries.size() <= target) {
+            return;
+        }
+        long cutoff = entries.values().stream()
+            .mapToLong(Entry::expiresAtNanos)
+            .sorted()
+            .skip(entries.size() - target)
+            .findFirst()
+            .orElse(Long.MAX_VALUE);
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && entries.size() > target) {
+            if (it.next().expiresAtNanos() - cutoff < 0) {
+                it.remove();
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Human-readable cache statistics for logging.
+     */
+    public String getStats() {
+        return String.format("Identity cache - Size: %d/%d, Hits: %d, Misses: %d",
+            size(), maxSize, getHitCount(), getMissCount());
+    }
+}
@@ -0,0 +1,35 @@
+package com.icefx.model;
+
+import com.icefx.model.User.UserRole;
+
+/**
+ * Lightweight, immutable projection of a user used on hot paths
+ * (recognition display names, attendance logging).
+ * Unlike {@link User} it carries no password hash and no JavaFX properties.
+ */
+public final class UserIdentity {
+    private final int userId;
+    private final String userCode;
+    private final String fullName;
+    private final UserRole role;
+    private final boolean active;
+
+    public UserIdentity(int userId, String userCode, String fullName, UserRole role, boolean active) {
+        this.userId = userId;
+        this.userCode = userCode;
+        this.fullName = fullName;
+        this.role = role;
+        this.active = active;
+    }
+
+    public int getUserId() { return userId; }
+    public String getUserCode() { return userCode; }
+    public String getFullName() { return fullName; }
+    public UserRole getRole() { return role; }
+    public boolean isActive() { return active; }
+
+    @Override
+    public String toString() {
+        return fullName + " (" + userCode + ")";
+    }
+}
@@ -4,14 +4,14 @@ import com.icefx.config.AppConfig;
 import com.icefx.dao.AttendanceDAO;
 import com.icefx.dao.UserDAO;
 import com.icefx.model.AttendanceLog;
-import com.icefx.model.User;
+import com.icefx.model.UserIdentity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +26,11 @@ public class AttendanceService {
     private final AttendanceDAO attendanceDAO;
     private final UserDAO userDAO;
     
+    // Last event per person and activity (duplicate checks without a query)
+    private static final String ACTIVITY = "Facial Recognition";
+    private final AttendanceStateIndex lastEvents = new AttendanceStateIndex();
+    private volatile boolean lastEventsLoaded;
+    
     public static class AttendanceResult {
         public enum Status {
             SUCCESS, DUPLICATE, USER_NOT_FOUND, ERROR
@@ -70,39 +75,102 @@ public class AttendanceService {
         }
     }
     
+    /**
+     * One recognition to record, as queued by {@link AttendanceWriter}.
+     *
+     * @param time When the user was recognized (not when the row is written)
+     */
+    public record Request(int userId, double confidence, String cameraId, LocalDateTime time) {
+    }
+    
     public AttendanceService(AttendanceDAO attendanceDAO, UserDAO userDAO) {
         this.attendanceDAO = attendanceDAO;
         this.userDAO = userDAO;
         this.duplicatePreventionMinutes = AppConfig.getInt("attendance.duplicate.prevention.minutes", 60);
         logger.info("AttendanceService initialized (duplicate prevention: {} minutes)", duplicatePreventionMinutes);
+        loadLastEvents();
+    }
+    
+    /**
+     * Warm the last-event index from today's logs with one aggregate query.
+     * Retried before the next duplicate check if the database is unavailable.
+     */
+    private synchronized void loadLastEvents() {
+        if (lastEventsLoaded) {
+            return;
+        }
+        try {
+            for (AttendanceDAO.LastEvent event : attendanceDAO.findLastEventsSince(LocalDate.now().atStartOfDay())) {
+                lastEvents.record(event.personId(), event.activity(), event.eventTime());
+            }
+            lastEventsLoaded = true;
+            logger.info("Loaded today's last attendance events ({} entries)", lastEvents.size());
+        } catch (Exception e) {
+            logger.warn("Could not load today's attendance events: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Check for a duplicate and reserve the event in one step.
+     *
+     * @return false if the user was already logged within the duplicate window
+     */
+    private boolean claim(int userId, LocalDateTime time) throws SQLException {
+        if (!lastEventsLoaded) {
+            loadLastEvents();
+            if (!lastEventsLoaded) {
+                throw new SQLException("Attendance history unavailable for the duplicate check");
+            }
+        }
+        return lastEvents.claim(userId, ACTIVITY, time, duplicatePreventionMinutes);
     }
     
     public AttendanceResult logAttendance(int userId, double confidence) {
+        return logAttendance(userId, confidence, AppConfig.get("camera.id", "CAM1"));
+    }
+    
+    /**
+     * Log attendance seen by a specific camera.
+     * 
+     * @param cameraId Camera that recognized the user (stored in attendance_logs.camera_id)
+     */
+    public AttendanceResult logAttendance(int userId, double confidence, String cameraId) {
         try {
-            Optional<User> userOpt = userDAO.findById(userId);
+            Optional<UserIdentity> userOpt = userDAO.findIdentityById(userId);
             if (!userOpt.isPresent()) {
                 logger.warn("Attempted to log attendance for non-existent user: {}", userId);
                 return AttendanceResult.userNotFound(userId);
             }
             
-            User user = userOpt.get();
+            UserIdentity user = userOpt.get();
+            if (!user.isActive()) {
+                logger.warn("Attempted to log attendance for deactivated user: {}", userId);
+                return AttendanceResult.userNotFound(userId);
+            }
+            
             logger.info("Logging attendance for user: {} (ID: {})", user.getFullName(), userId);
             
-            if (isDuplicateAttendance(userId)) {
+            LocalDateTime now = LocalDateTime.now();
+            if (!claim(userId, now)) {
                 logger.info("Duplicate attendance detected for user: {}", user.getFullName());
                 return AttendanceResult.duplicate(user.getFullName());
             }
             
-            LocalDateTime now = LocalDateTime.now();
             AttendanceLog log = new AttendanceLog(
                 0, userId, user.getFullName(), now,
-                "Time In", "Facial Recognition", "CAM1", confidence
+                "Time In", ACTIVITY, cameraId, confidence
             );
             
-            int logId = attendanceDAO.logAttendance(log);
+            int logId;
+            try {
+                logId = attendanceDAO.logAttendance(log);
+            } catch (SQLException e) {
+                lastEvents.release(userId, ACTIVITY, now);
+                throw e;
+            }
             
-            logger.info("✅ Attendance logged successfully for {} at {} (Log ID: {})", 
-                user.getFullName(), now, logId);
+            logger.info("✅ Attendance logged successfully for {} at {} on {} (Log ID: {})", 
+                user.getFullName(), now, cameraId, logId);
             
             return AttendanceResult.success("Attendance recorded successfully", log);
             
@@ -112,30 +180,75 @@ public class AttendanceService {
         }
     }
     
-    private boolean isDuplicateAttendance(int userId) {
+    /**
+     * Record several recognitions with one batch insert. Applies the same rules
+     * as {@link #logAttendance(int, double, String)}; a user recognized twice in
+     * one batch is logged once.
+     * 
+     * @return One result per request, in request order
+     */
+    public List<AttendanceResult> logAttendanceBatch(List<Request> requests) {
+        List<AttendanceResult> results = new ArrayList<>(requests.size());
+        if (requests.isEmpty()) {
+            return results;
+        }
+        
+        List<AttendanceLog> logs = new ArrayList<>();
         try {
-            List<AttendanceLog> todayLogs = attendanceDAO.findByUserIdAndDate(userId, LocalDate.now());
-            
-            if (todayLogs.isEmpty()) {
-                return false;
+            for (Request request : requests) {
+                Optional<UserIdentity> userOpt = userDAO.findIdentityById(request.userId());
+                if (userOpt.isEmpty() || !userOpt.get().isActive()) {
+                    logger.warn("Attempted to log attendance for unknown or deactivated user: {}", request.userId());
+                    results.add(AttendanceResult.userNotFound(request.userId()));
+                    continue;
+                }
+                UserIdentity user = userOpt.get();
+                
+                if (!claim(request.userId(), request.time())) {
+                    logger.info("Duplicate attendance detected for user: {}", user.getFullName());
+                    results.add(AttendanceResult.duplicate(user.getFullName()));
+                    continue;
+                }
+                
+                AttendanceLog log = new AttendanceLog(
+                    0, request.userId(), user.getFullName(), request.time(),
+                    "Time In", ACTIVITY, request.cameraId(), request.confidence()
+                );
+                logs.add(log);
+                results.add(AttendanceResult.success("Attendance recorded successfully", log));
             }
             
-            AttendanceLog mostRecent = todayLogs.get(0);
-            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(duplicatePreventionMinutes);
-            
-            boolean isDuplicate = mostRecent.getEventTime().isAfter(cutoff);
-            
-            if (isDuplicate) {
-                long minutesAgo = ChronoUnit.MINUTES.between(mostRecent.getEventTime(), LocalDateTime.now());
-                logger.debug("Last attendance was {} minutes ago (threshold: {})", 
-                    minutesAgo, duplicatePreventionMinutes);
+            try {
+                attendanceDAO.logAttendanceBatch(logs);
+            } catch (SQLException e) {
+                // The batch is one transaction: none of its rows were written
+                logger.error("Failed to insert attendance batch of {} log(s)", logs.size(), e);
+                releaseAll(logs);
+                results.replaceAll(result -> result.isSuccess() ? AttendanceResult.error(e.getMessage()) : result);
+                return results;
             }
-            
-            return isDuplicate;
+            if (!logs.isEmpty()) {
+                logger.info("✅ Attendance logged for {} user(s) in one batch", logs.size());
+            }
+            return results;
             
         } catch (Exception e) {
-            logger.error("Error checking duplicate attendance", e);
-            return false;
+            logger.error("Failed to log attendance batch of {} request(s)", requests.size(), e);
+            releaseAll(logs);
+            List<AttendanceResult> failed = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                failed.add(AttendanceResult.error(e.getMessage()));
+            }
+            return failed;
+        }
+    }
+    
+    /**
+     * Undo the duplicate-check reservations of logs that were not written.
+     */
+    private void releaseAll(List<AttendanceLog> logs) {
+        for (AttendanceLog log : logs) {
+            lastEvents.release(log.getUserId(), ACTIVITY, log.getEventTime());
         }
     }
     
@@ -161,6 +274,7 @@ public class AttendanceService {
     }
     
     public boolean deleteUserAttendance(int userId) throws SQLException {
+        lastEvents.forget(userId);
         return attendanceDAO.deleteByUserId(userId);
     }
 }
@@ -0,0 +1,90 @@
+package com.icefx.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last attendance event of each person and activity, kept in memory so the
+ * duplicate check is a map lookup instead of a query per recognition.
+ *
+ * Warmed from one aggregate query over today's logs and updated on every write
+ * ({@link AttendanceService}). Only today's events matter for duplicates, so
+ * older entries are simply ignored. Thread-safe; {@link #claim} is atomic, so
+ * two recognitions of one person racing each other log only once.
+ */
+public class AttendanceStateIndex {
+
+    private record Key(int personId, String activity) {
+    }
+
+    private final ConcurrentHashMap<Key, LocalDateTime> lastEvents = new ConcurrentHashMap<>();
+
+    /**
+     * Remember an event, unless a later one is already known.
+     */
+    public void record(int personId, String activity, LocalDateTime time) {
+        lastEvents.merge(new Key(personId, activity), time, (known, added) -> added.isAfter(known) ? added : known);
+    }
+
+    public Optional<LocalDateTime> lastEvent(int personId, String activity) {
+        return Optional.ofNullable(lastEvents.get(new Key(personId, activity)));
+    }
+
+    /**
+     * Whether an event at {@code time} would repeat one logged the same day less
+     * than {@code windowMinutes} earlier.
+     */
+    public boolean isDuplicate(int personId, String activity, LocalDateTime time, long windowMinutes) {
+        LocalDateTime last = lastEvents.get(new Key(personId, activity));
+        return isWithin(last, time, windowMinutes);
+    }
+
+    /**
+     * Atomically check for a duplicate and, if there is none, record the event.
+     * Undo with {@link #release} if the event then fails to be written.
+     *
+     * @return false if the event is a duplicate (nothing recorded)
+     */
+    public boolean claim(int personId, String activity, LocalDateTime time, long windowMinutes) {
+        boolean[] claimed = new boolean[1];
+        lastEvents.compute(new Key(personId, activity), (key, last) -> {
+            if (isWithin(last, time, windowMinutes)) {
+                return last;
+            }
+            claimed[0] = true;
+            return last == null || time.isAfter(last) ? time : last;
+        });
+        return claimed[0];
+    }
+
+    /**
+     * Undo a {@link #claim} whose event was not written. The entry is dropped
+     * only if it is still this event; any earlier event it replaced was already
+     * outside the duplicate window, so forgetting it changes no later decision.
+     */
+    public void release(int personId, String activity, LocalDateTime time) {
+        lastEvents.remove(new Key(personId, activity), time);
+    }
+
+    /**
+     * Forget every event of a person (e.g. after their logs are deleted).
+     */
+    public void forget(int personId) {
+        lastEvents.keySet().removeIf(key -> key.personId() == personId);
+    }
+
+    public void clear() {
+        lastEvents.clear();
+    }
+
+    public int size() {
+        return lastEvents.size();
+    }
+
+    private static boolean isWithin(LocalDateTime last, LocalDateTime time, long windowMinutes) {
+        return last != null
+            && last.toLocalDate().equals(time.toLocalDate())
+            && last.isAfter(time.minusMinutes(windowMinutes));
+    }
+}
@@ -0,0 +1,301 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind queue for attendance: recognitions are accepted without
+ * blocking and written by one thread in batches, through
+ * {@link AttendanceService#logAttendanceBatch} (duplicates are checked in
+ * memory, so a flush is one JDBC batch instead of several round trips per
+ * person).
+ *
+ * A batch is flushed when it reaches {@code attendance.writer.batch.size}
+ * requests or {@code attendance.writer.flush.ms} after its first request,
+ * whichever comes first. The queue holds at most
+ * {@code attendance.writer.queue} requests; when it is full, {@link #submit}
+ * refuses the request (backpressure) instead of growing without bound.
+ *
+ * Writers are created with {@link #start}, which also registers them, so
+ * {@link #shutdownAll} can drain whatever is still queued when the
+ * application exits.
+ */
+public final class AttendanceWriter {
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceWriter.class);
+
+    private static final Set<AttendanceWriter> active = ConcurrentHashMap.newKeySet();
+
+    // How often a waiting writer checks for shutdown
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private record Pending(AttendanceService.Request request,
+                           Consumer<AttendanceService.AttendanceResult> callback) {
+    }
+
+    private final AttendanceService service;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushNanos;
+    private final Thread thread;
+
+    // Guards accepting together with the enqueue, so nothing is queued after the final drain
+    private final Object intake = new Object();
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder flushNanosTotal = new LongAdder();
+
+    private AttendanceWriter(AttendanceService service, int capacity, int batchSize, long flushMillis) {
+        this.service = service;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushMillis));
+        this.thread = new Thread(this::run, "Attendance-Writer");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Start a writer with the {@code attendance.writer.*} settings from AppConfig.
+     */
+    public static AttendanceWriter start(AttendanceService service) {
+        return start(service,
+             AppConfig.getInt("attendance.writer.queue", 1000),
+             AppConfig.getInt("attendance.writer.batch.size", 50),
+             AppConfig.getInt("attendance.writer.flush.ms", 100));
+    }
+
+    /**
+     * Start a writer.
+     *
+     * @param capacity Requests that can wait before {@link #submit} refuses more
+     * @param batchSize Most requests written per batch
+     * @param flushMillis Longest a request waits for its batch to fill
+     */
+    public static AttendanceWriter start(AttendanceService service, int capacity, int batchSize, long flushMillis) {
+        AttendanceWriter writer = new AttendanceWriter(service, capacity, batchSize, flushMillis);
+        active.add(writer);
+        writer.thread.start();
+        logger.info("AttendanceWriter started (queue: {}, batch: {}, flush: {} ms)", capacity, batchSize, flushMillis);
+        return writer;
+    }
+
+    /**
+     * Queue a recognition for writing. Never waits for the database.
+     *
+     * @param callback Receives the result once the batch is written (on the
+     *                 writer thread), or null
+     * @return false if the queue is full or the writer is shut down; the
+     *         recognition is then not recorded
+     */
+    public boolean submit(int userId, double confidence, String cameraId,
+                          Consumer<AttendanceService.AttendanceResult> callback) {
+        Pending pending = new Pending(
+            new AttendanceService.Request(userId, confidence, cameraId, LocalDateTime.now()), callback);
+        boolean queued;
+        synchronized (intake) {
+            if (!accepting) {
+                rejected.increment();
+                return false;
+            }
+            queued = queue.offer(pending);
+        }
+        if (!queued) {
+            rejected.increment();
+            logger.warn("⚠️ Attendance queue full ({} waiting) - request for user {} refused", queue.size(), userId);
+            return false;
+        }
+        accepted.increment();
+        return true;
+    }
+
+    private void stopAccepting() {
+        synchronized (intake) {
+            accepting = false;
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or its flush time is up (no waiting once stopping)
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                stopAccepting();
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Write a batch and notify its callbacks. A batch that fails unexpectedly
+     * is reported to its callbacks as an error; the writer keeps running.
+     */
+    private void flush(List<Pending> batch) {
+        List<AttendanceService.AttendanceResult> results;
+        try {
+            results = write(batch);
+        } catch (RuntimeException e) {
+            logger.error("❌ Attendance batch of {} request(s) failed", batch.size(), e);
+            results = Collections.nCopies(batch.size(),
+                AttendanceService.AttendanceResult.error("Attendance write failed: " + e.getMessage()));
+        }
+        deliver(batch, results);
+    }
+
+    private List<AttendanceService.AttendanceResult> write(List<Pending> batch) {
+        List<AttendanceService.Request> requests = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            requests.add(pending.request());
+        }
+
+        long start = System.nanoTime();
+        List<AttendanceService.AttendanceResult> results = service.logAttendanceBatch(requests);
+        flushNanosTotal.add(System.nanoTime() - start);
+        batches.increment();
+        return results;
+    }
+
+    private void deliver(List<Pending> batch, List<AttendanceService.AttendanceResult> results) {
+        for (int i = 0; i < batch.size(); i++) {
+            AttendanceService.AttendanceResult result = results != null && i < results.size() && results.get(i) != null
+                ? results.get(i)
+                : AttendanceService.AttendanceResult.error("No result");
+            switch (result.getStatus()) {
+                case SUCCESS -> written.increment();
+                case DUPLICATE -> duplicates.increment();
+                default -> failed.increment();
+            }
+            Consumer<AttendanceService.AttendanceResult> callback = batch.get(i).callback();
+            if (callback != null) {
+                try {
+                    callback.accept(result);
+                } catch (Exception e) {
+                    logger.error("Attendance callback failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop accepting requests and write everything still queued.
+     *
+     * @return true if the queue was drained within the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        stopAccepting();
+        running = false;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        active.remove(this);
+        boolean drained = !thread.isAlive();
+        if (drained && !queue.isEmpty()) {
+            // Left behind by a writer thread that stopped early (interrupted)
+            List<Pending> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            flush(rest);
+        }
+        if (drained) {
+            logger.info("⏹️ AttendanceWriter stopped: {}", this);
+        } else {
+            logger.warn("⚠️ AttendanceWriter did not drain within {} ms ({} still queued)", timeoutMillis, queue.size());
+        }
+        return drained;
+    }
+
+    /**
+     * Drain and stop every writer (application exit).
+     */
+    public static void shutdownAll(long timeoutMillis) {
+        for (AttendanceWriter writer : List.copyOf(active)) {
+            writer.shutdown(timeoutMillis);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Requests refused because the queue was full or the writer stopped.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public double getAverageFlushMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0.0 : flushNanosTotal.sum() / 1_000_000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("accepted=%d, rejected=%d, written=%d, duplicates=%d, failed=%d, batches=%d, "
+                + "avgFlush=%.1fms, queued=%d", getAccepted(), getRejected(), getWritten(), getDuplicates(),
+            getFailed(), getBatches(), getAverageFlushMillis(), getQueueSize());
+    }
+}
@@ -0,0 +1,76 @@
+package com.icefx.service;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameGrabber;
+
+import java.io.IOException;
+
+/**
+ * Live camera frames from {@link OpenCVFrameGrabber}.
+ */
+public class CameraFrameSource implements FrameSource {
+
+    private final int cameraIndex;
+    private final int width;
+    private final int height;
+    private final int fps;
+    private FrameGrabber grabber;
+
+    /**
+     * @param cameraIndex Camera device index (0 for default camera)
+     */
+    public CameraFrameSource(int cameraIndex, int width, int height, int fps) {
+        this.cameraIndex = cameraIndex;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+    }
+
+    @Override
+    public void start() throws IOException {
+        FrameGrabber camera = new OpenCVFrameGrabber(cameraIndex);
+        camera.setImageWidth(width);
+        camera.setImageHeight(height);
+        camera.setFrameRate(fps);
+        camera.start();
+        grabber = camera;
+    }
+
+    @Override
+    public Frame grab() throws IOException {
+        return grabber.grab();
+    }
+
+    @Override
+    public boolean isFinite() {
+        return false;
+    }
+
+    @Override
+    public double getFrameRate() {
+        return fps;
+    }
+
+    @Override
+    public Pacing getPacing() {
+        return Pacing.REAL_TIME;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (grabber != null) {
+            try {
+                grabber.stop();
+                grabber.release();
+            } finally {
+                grabber = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "camera " + cameraIndex;
+    }
+}
@@ -0,0 +1,295 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs several cameras (entrances) from one machine.
+ *
+ * Every camera has its own {@link CameraService} (capture thread), face tracker
+ * and {@link RecognitionPipeline}. The pipelines run on two shared pools: one
+ * worker pool for detection and recognition, with cameras taking turns; and one
+ * notify thread. A further camera therefore costs a capture thread, not a
+ * recognition stack. The worker pool gets two threads per camera (its detect and
+ * recognize stages), up to the CPU count or {@code pipeline.workers}; the cores
+ * it leaves free go to the recognition service's per-face pool, so a single
+ * camera still recognizes the faces of a frame in parallel without the two
+ * pools oversubscribing the CPU.
+ *
+ * A {@link MotionDetector} on each capture thread skips detection while nothing
+ * moves and nobody is tracked, limits it to the moving region otherwise, and
+ * drops the camera to its idle processing rate after {@code motion.idle.minutes}
+ * of stillness.
+ *
+ * Cameras come from AppConfig: the primary one is {@code camera.id} with
+ * {@code camera.source} (or {@code camera.index} when empty); more are listed in
+ * {@code camera.extra} as {@code id:source} pairs, where a source is a camera
+ * index or a recording (see {@link FrameSource#fromSpec}), e.g.
+ * {@code CAM2:1,CAM3:video:/data/rush.mp4}. Only the primary camera renders a
+ * preview.
+ */
+public class CameraManager {
+    private static final Logger logger = LoggerFactory.getLogger(CameraManager.class);
+
+    /**
+     * A camera to run: the id recorded with attendance and its frame source spec.
+     */
+    public record CameraSpec(String id, String source) {
+
+        /**
+         * The primary camera followed by the {@code camera.extra} cameras.
+         */
+        public static List<CameraSpec> fromConfig() {
+            List<CameraSpec> specs = new ArrayList<>();
+            String source = AppConfig.get("camera.source", "");
+            specs.add(new CameraSpec(AppConfig.get("camera.id", "CAM1"),
+                source.isBlank() ? String.valueOf(AppConfig.getCameraIndex()) : source));
+            specs.addAll(parse(AppConfig.get("camera.extra", "")));
+            return specs;
+        }
+
+        /**
+         * Parse {@code id:source} pairs separated by commas; malformed entries are skipped.
+         */
+        static List<CameraSpec> parse(String value) {
+            List<CameraSpec> specs = new ArrayList<>();
+            if (value == null || value.isBlank()) {
+                return specs;
+            }
+            for (String entry : value.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                    logger.warn("Ignoring camera entry '{}' (expected id:source)", entry.trim());
+                    continue;
+                }
+                specs.add(new CameraSpec(parts[0].trim(), parts[1].trim()));
+            }
+            return specs;
+        }
+    }
+
+    /**
+     * One camera and the recognition state of its current session.
+     */
+    private static final class Session {
+        final CameraService camera;
+        final MotionDetector motion; // null when motion gating is disabled
+        volatile FaceTracker tracker;
+        volatile RecognitionPipeline pipeline;
+
+        Session(CameraService camera, MotionDetector motion) {
+            this.camera = camera;
+            this.motion = motion;
+        }
+    }
+
+    private final FaceRecognitionService recognitionService;
+    private final RecognitionPipeline.ResultListener listener;
+    private final List<Session> sessions = new ArrayList<>();
+
+    private final boolean multiFaceEnabled = AppConfig.getBoolean("recognition.multiface.enabled", true);
+    private final boolean trackingEnabled = AppConfig.getBoolean("recognition.tracking.enabled", true);
+    private final boolean pipelineEnabled = AppConfig.getBoolean("pipeline.enabled", true);
+    private final boolean motionEnabled = AppConfig.getBoolean("motion.enabled", true);
+
+    // Shared by every camera's pipeline (null when the pipeline is disabled)
+    private final LanePool workers;
+    private final LanePool notifier;
+
+    /**
+     * Create the cameras listed in AppConfig.
+     */
+    public CameraManager(FaceRecognitionService recognitionService, RecognitionPipeline.ResultListener listener) {
+        this(CameraSpec.fromConfig(), AppConfig.getInt("camera.fps", 30), recognitionService, listener);
+    }
+
+    /**
+     * @param specs Cameras to run; the first one is the primary camera
+     * @param fps Target capture rate of every camera
+     * @param recognitionService Service shared by every camera
+     * @param listener Receives each camera's results (tagged with the camera id)
+     */
+    public CameraManager(List<CameraSpec> specs, int fps, FaceRecognitionService recognitionService,
+                         RecognitionPipeline.ResultListener listener) {
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("At least one camera is required");
+        }
+        this.recognitionService = recognitionService;
+        this.listener = listener;
+
+        for (int i = 0; i < specs.size(); i++) {
+            CameraSpec spec = specs.get(i);
+            FrameSource source;
+            try {
+                source = FrameSource.fromSpec(spec.source(), fps);
+            } catch (IllegalArgumentException e) {
+                if (i == 0) {
+                    throw e;
+                }
+                logger.warn("Skipping camera {}: {}", spec.id(), e.getMessage());
+                continue;
+            }
+            Session session = new Session(new CameraService(spec.id(), source, fps),
+                motionEnabled ? new MotionDetector() : null);
+            session.camera.setPreviewEnabled(i == 0);
+            session.camera.setFrameCallback(frame -> processFrame(session, frame));
+            sessions.add(session);
+        }
+
+        if (pipelineEnabled) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            workers = new LanePool("Recognition-Worker", laneWorkers(sessions.size()));
+            notifier = new LanePool("Recognition-Notify", 1);
+            // Per-face fan-out gets the cores the lane workers leave free
+            recognitionService.setRecognitionWorkers(cores - workers.getWorkerCount());
+        } else {
+            workers = null;
+            notifier = null;
+        }
+        logger.info("CameraManager created for {} camera(s): {}", specs.size(), specs);
+    }
+
+    /**
+     * Lane workers for {@code cameras} pipelines on this machine ({@code pipeline.workers}
+     * when set). The per-face recognition workers should get the remaining cores.
+     */
+    public static int laneWorkers(int cameras) {
+        return laneWorkers(AppConfig.getInt("pipeline.workers", 0), cameras,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    static int laneWorkers(int configured, int cameras, int cores) {
+        int wanted = configured > 0 ? configured : 2 * Math.max(1, cameras);
+        return Math.max(1, Math.min(wanted, cores));
+    }
+
+    /**
+     * Start every camera with a fresh tracker and pipeline.
+     */
+    public void startAll() {
+        for (Session session : sessions) {
+            startSession(session);
+            session.camera.start();
+        }
+    }
+
+    /**
+     * Stop every camera and its pipeline.
+     */
+    public void stopAll() {
+        for (Session session : sessions) {
+            session.camera.stop();
+            stopSession(session);
+        }
+    }
+
+    /**
+     * Stop everything and release the cameras and the shared pools.
+     */
+    public void shutdown() {
+        stopAll();
+        for (Session session : sessions) {
+            session.camera.shutdown();
+            if (session.motion != null) {
+                session.motion.close();
+            }
+        }
+        if (workers != null) {
+            workers.shutdown();
+            notifier.shutdown();
+        }
+    }
+
+    /**
+     * The camera whose preview is shown.
+     */
+    public CameraService getPrimary() {
+        return sessions.get(0).camera;
+    }
+
+    public List<CameraService> getCameras() {
+        List<CameraService> cameras = new ArrayList<>(sessions.size());
+        for (Session session : sessions) {
+            cameras.add(session.camera);
+        }
+        return Collections.unmodifiableList(cameras);
+    }
+
+    /**
+     * Start a fresh tracker and pipeline (tracks never carry over between camera sessions).
+     */
+    private void startSession(Session session) {
+        stopSession(session);
+        FaceTracker tracker = trackingEnabled
+            ? new FaceTracker(multiFaceEnabled ? AppConfig.getInt("recognition.max.faces", 8) : 1)
+            : null;
+        session.tracker = tracker;
+        if (session.motion != null) {
+            session.motion.reset();
+        }
+        session.camera.setIdle(false);
+
+        // Single-face detection without tracking stays inline on the camera thread
+        if (pipelineEnabled && (multiFaceEnabled || tracker != null)) {
+            RecognitionPipeline pipeline = new RecognitionPipeline(session.camera.getCameraId(),
+                recognitionService, tracker, workers, notifier, listener);
+            pipeline.start();
+            session.pipeline = pipeline;
+        }
+    }
+
+    private void stopSession(Session session) {
+        RecognitionPipeline pipeline = session.pipeline;
+        session.pipeline = null;
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * Hand a captured frame to the camera's pipeline, or recognize it inline
+     * when there is none. Runs on the camera's capture thread.
+     */
+    private void processFrame(Session session, Mat frame) {
+        String cameraId = session.camera.getCameraId();
+        try {
+            // Nothing moved and nobody to follow: no detection at all
+            FaceTracker tracker = session.tracker;
+            FaceTracker.Box moved = null;
+            if (session.motion != null) {
+                moved = session.motion.detect(frame);
+                session.camera.setIdle(moved == null && session.motion.isIdle());
+                if (moved == null && (tracker == null || tracker.getTracks().isEmpty())) {
+                    return;
+                }
+            }
+
+            RecognitionPipeline pipeline = session.pipeline;
+            if (pipeline != null) {
+                pipeline.submit(frame, moved);
+                return;
+            }
+
+            // Recognize everyone in the frame (entrance queues often have several people)
+            // With tracking, faces are re-detected and re-recognized only when needed
+            List<FaceRecognitionService.RecognitionResult> results;
+            if (tracker != null) {
+                results = recognitionService.detectAndRecognizeTracked(frame, tracker, moved);
+            } else if (multiFaceEnabled) {
+                results = recognitionService.detectAndRecognizeAll(frame);
+            } else {
+                results = List.of(recognitionService.detectAndRecognize(frame));
+            }
+            listener.onResults(cameraId, results);
+
+        } catch (Exception e) {
+            logger.error("Error processing frame from camera {}", cameraId, e);
+        }
+    }
+}
@@ -3,19 +3,17 @@ package com.icefx.service;
 import com.icefx.config.AppConfig;
 import javafx.application.Platform;
 import javafx.beans.property.*;
+import javafx.scene.Node;
 import javafx.scene.image.Image;
 import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.FrameGrabber;
-import org.bytedeco.javacv.JavaFXFrameConverter;
-import org.bytedeco.javacv.OpenCVFrameGrabber;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Size;
-import org.bytedeco.opencv.global.opencv_core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.bytedeco.opencv.global.opencv_imgproc.*;
@@ -30,6 +28,8 @@ import static org.bytedeco.opencv.global.opencv_imgproc.*;
  * Features:
  * - Non-blocking camera operations
  * - Automatic FPS calculation
+ * - Pulse-synchronized preview without a new Image per frame ({@link PreviewPresenter})
+ * - Live camera, recorded video or image sequence input ({@link FrameSource})
  * - Frame callback for face detection
  * - Clean resource management
  * - Comprehensive error handling
@@ -45,32 +45,31 @@ public class CameraService {
     private final AtomicBoolean isPaused = new AtomicBoolean(false);
     
     // Dedicated camera thread (prevents UI blocking)
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "CameraService-Thread");
-        t.setDaemon(true);  // Allow JVM to exit even if camera is running
-        t.setPriority(Thread.NORM_PRIORITY);
-        return t;
-    });
+    private final ExecutorService executor;
     
     // Camera hardware
-    private FrameGrabber grabber;
-    private final int cameraIndex;
+    private final FrameSource source;
+    private final String cameraId;
     private final int targetFps;
     
-    // Frame converter for JavaFX
-    private final JavaFXFrameConverter converter = new JavaFXFrameConverter();
+    // Preview: frames are written into PixelBuffer-backed images and published once per pulse
+    private final PreviewPresenter preview = new PreviewPresenter();
+    
+    // Reused Frame/Mat converters and mirror buffer (the callback consumes each frame before the next grab)
+    private final CaptureBuffers captureBuffers = new CaptureBuffers(1);
     
     // JavaFX properties (thread-safe for UI binding)
-    private final ObjectProperty<Image> currentFrame = new SimpleObjectProperty<>();
     private final StringProperty statusText = new SimpleStringProperty("Disconnected");
-    private final DoubleProperty fpsProperty = new SimpleDoubleProperty(0.0);
-    private final IntegerProperty framesProcessed = new SimpleIntegerProperty(0);
     
     // Callback for frame processing (face detection, etc.)
     private FrameCallback callback;
     
     // Configuration
     private boolean mirrorHorizontally = true; // Mirror camera by default for intuitive display
+    private volatile boolean previewEnabled = true; // Headless cameras skip the preview entirely
+    private volatile boolean idle; // Nothing moving: process motion.idle.fps, still grab every frame
+    private final int idleFps = Math.max(1, AppConfig.getInt("motion.idle.fps", 2));
+    private final FrameThrottle throttle = new FrameThrottle(idleFps);
     
     /**
      * Callback interface for processing captured frames.
@@ -79,8 +78,10 @@ public class CameraService {
         /**
          * Called for each captured frame on the camera thread.
          * IMPORTANT: This runs on background thread - safe for OpenCV operations.
+         * Capture waits for the callback, so heavy work should be handed off
+         * (see {@link RecognitionPipeline#submit}).
          * 
-         * @param frame The captured frame (Mat format)
+         * @param frame The captured frame (Mat format), only valid during the call
          */
         void onFrameCaptured(Mat frame);
     }
@@ -88,13 +89,38 @@ public class CameraService {
     /**
      * Create a new camera service.
      * 
-     * @param cameraIndex Camera device index (0 for default camera)
+     * @param cameraId Camera id recorded with attendance (e.g. "CAM1")
+     * @param source Where frames come from (live camera, video file, image directory)
      * @param targetFps Target frames per second (typically 30)
      */
-    public CameraService(int cameraIndex, int targetFps) {
-        this.cameraIndex = cameraIndex;
+    public CameraService(String cameraId, FrameSource source, int targetFps) {
+        this.cameraId = cameraId;
+        this.source = source;
         this.targetFps = targetFps;
-        logger.info("CameraService created for camera {} at {} FPS", cameraIndex, targetFps);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "CameraService-" + cameraId);
+            t.setDaemon(true);  // Allow JVM to exit even if camera is running
+            t.setPriority(Thread.NORM_PRIORITY);
+            return t;
+        });
+        logger.info("CameraService {} created for {} at {} FPS", cameraId, source, targetFps);
+    }
+    
+    /**
+     * Create a service for a live camera.
+     * 
+     * @param cameraIndex Camera device index (0 for default camera)
+     */
+    public CameraService(String cameraId, int cameraIndex, int targetFps) {
+        this(cameraId, new CameraFrameSource(cameraIndex,
+            AppConfig.getInt("camera.width", 640), AppConfig.getInt("camera.height", 480), targetFps), targetFps);
+    }
+    
+    /**
+     * Create a camera service with the default camera id from AppConfig.
+     */
+    public CameraService(int cameraIndex, int targetFps) {
+        this(AppConfig.get("camera.id", "CAM1"), cameraIndex, targetFps);
     }
     
     /**
@@ -119,6 +145,7 @@ public class CameraService {
         if (isRunning.compareAndSet(false, true)) {
             logger.info("Starting camera service...");
             Platform.runLater(() -> statusText.set("Starting..."));
+            preview.start();
             executor.submit(this::captureLoop);
         } else {
             logger.warn("Camera already running");
@@ -160,18 +187,14 @@ public class CameraService {
     private void captureLoop() {
         try {
             // Initialize camera
-            logger.info("Initializing camera {} ...", cameraIndex);
-            grabber = new OpenCVFrameGrabber(cameraIndex);
-            grabber.setImageWidth(AppConfig.getInt("camera.width", 640));
-            grabber.setImageHeight(AppConfig.getInt("camera.height", 480));
-            grabber.setFrameRate(targetFps);
+            logger.info("Initializing {} ...", source);
             
             try {
-                grabber.start();
+                source.start();
                 logger.info("✅ Camera opened successfully");
                 Platform.runLater(() -> statusText.set("Running"));
-            } catch (FrameGrabber.Exception e) {
-                logger.error("Failed to open camera {}", cameraIndex, e);
+            } catch (Exception e) {
+                logger.error("Failed to open {}", source, e);
                 Platform.runLater(() -> {
                     statusText.set("Camera Error");
                 });
@@ -182,68 +205,70 @@ public class CameraService {
             // FPS calculation variables
             long lastTime = System.currentTimeMillis();
             int frameCount = 0;
-            long frameDelay = 1000 / targetFps;  // milliseconds per frame
+            int totalFrames = 0;
+            double fps = 0.0;
+            // Milliseconds per frame: a camera's target rate, a recording's own rate, or none
+            double rate = source instanceof CameraFrameSource || source.getFrameRate() <= 0
+                ? targetFps : source.getFrameRate();
+            long frameDelay = source.getPacing() == FrameSource.Pacing.REAL_TIME ? Math.round(1000 / rate) : 0;
             
             // Main capture loop
             while (isRunning.get()) {
                 try {
+                    long frameStart = System.currentTimeMillis();
+                    
                     // Grab frame from camera
-                    Frame frame = grabber.grab();
+                    Frame frame = source.grab();
                     
+                    if (frame == null && source.isFinite()) {
+                        logger.info("✅ {} finished after {} frames", source, totalFrames);
+                        isRunning.set(false);
+                        break;
+                    }
                     if (frame == null || frame.imageWidth == 0) {
                         logger.warn("Received null or empty frame");
                         Thread.sleep(100);
                         continue;
                     }
                     
-                    // Skip processing if paused
-                    if (!isPaused.get()) {
-                        // Convert to Mat for OpenCV processing
-                        org.bytedeco.javacv.OpenCVFrameConverter.ToMat matConverter = 
-                            new org.bytedeco.javacv.OpenCVFrameConverter.ToMat();
-                        Mat mat = matConverter.convert(frame);
-                        
-                        // Mirror horizontally if enabled (makes movements intuitive)
-                        if (mirrorHorizontally && mat != null) {
-                            Mat flippedMat = new Mat();
-                            opencv_core.flip(mat, flippedMat, 1); // 1 = horizontal flip
-                            mat.release();
-                            mat = flippedMat;
-                        }
+                    // Skip processing if paused, and all but idleFps frames while idle (unpaced
+                    // sources are never throttled - they have no device buffer to drain)
+                    if (!isPaused.get() && throttle.shouldProcess(idle && frameDelay > 0, System.nanoTime())) {
+                        // Convert to Mat for OpenCV processing, mirrored if enabled (makes movements
+                        // intuitive). Both reuse the same buffers every frame.
+                        boolean mirror = mirrorHorizontally;
+                        Mat mat = captureBuffers.toMat(frame, mirror);
                         
                         // Notify callback for face detection (runs on this thread - safe!)
                         if (callback != null && mat != null) {
                             callback.onFrameCaptured(mat);
                         }
                         
-                        // Convert flipped Mat back to Frame for display
-                        Frame displayFrame = mat != null ? matConverter.convert(mat) : frame;
-                        
-                        // Convert to JavaFX Image and update UI (must use Platform.runLater!)
-                        Image image = converter.convert(displayFrame);
-                        if (image != null) {
-                            Platform.runLater(() -> currentFrame.set(image));
+                        // Write the frame into the preview (published on the next JavaFX pulse)
+                        if (previewEnabled) {
+                            preview.offer(mat);
                         }
                         
                         frameCount++;
-                        
-                        // Update frame counter
-                        final int count = frameCount;
-                        Platform.runLater(() -> framesProcessed.set(count));
+                        totalFrames++;
+                        preview.updateStats(totalFrames, fps);
                     }
                     
                     // Calculate and update FPS every second
                     long currentTime = System.currentTimeMillis();
                     if (currentTime - lastTime >= 1000) {
-                        double fps = frameCount / ((currentTime - lastTime) / 1000.0);
-                        Platform.runLater(() -> fpsProperty.set(fps));
+                        fps = frameCount / ((currentTime - lastTime) / 1000.0);
                         logger.debug("FPS: {}", String.format("%.1f", fps));
                         frameCount = 0;
                         lastTime = currentTime;
                     }
                     
-                    // Limit to target FPS
-                    Thread.sleep(frameDelay);
+                    // Limit to target FPS (sleep only what is left of this frame's budget). Idle
+                    // cameras keep this pace, so the driver never buffers frames for the wake-up.
+                    long remaining = frameDelay - (System.currentTimeMillis() - frameStart);
+                    if (remaining > 0) {
+                        Thread.sleep(remaining);
+                    }
                     
                 } catch (InterruptedException e) {
                     logger.info("Camera thread interrupted");
@@ -285,20 +310,20 @@ public class CameraService {
         logger.info("Cleaning up camera resources...");
         
         try {
-            if (grabber != null) {
-                grabber.stop();
-                grabber.release();
-                logger.info("Camera released successfully");
-            }
+            source.close();
+            logger.info("Camera released successfully");
         } catch (Exception e) {
             logger.error("Error releasing camera", e);
         }
         
-        Platform.runLater(() -> {
-            statusText.set("Disconnected");
-            currentFrame.set(null);
-            fpsProperty.set(0.0);
-        });
+        logger.info("Capture buffers: {} frames, {} allocations",
+            captureBuffers.getFrames(), captureBuffers.getAllocations());
+        
+        logger.info("Preview: {} frames rendered, {} skipped",
+            preview.getRenderedFrames(), preview.getSkippedFrames());
+        
+        preview.stop();
+        Platform.runLater(() -> statusText.set("Disconnected"));
         
         logger.info("Camera cleanup complete");
     }
@@ -326,14 +351,23 @@ public class CameraService {
         logger.info("Shutting down camera service...");
         stop();
         executor.shutdownNow();
-        converter.close();
+        try {
+            // The capture thread must be done with the buffers before they are freed
+            if (executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                captureBuffers.close();
+            } else {
+                logger.warn("Camera thread did not stop within 2s - capture buffers left to GC");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         logger.info("Camera service shutdown complete");
     }
     
     // === Property Getters for JavaFX Binding ===
     
     public ObjectProperty<Image> currentFrameProperty() {
-        return currentFrame;
+        return preview.imageProperty();
     }
     
     public StringProperty statusTextProperty() {
@@ -341,23 +375,66 @@ public class CameraService {
     }
     
     public DoubleProperty fpsProperty() {
-        return fpsProperty;
+        return preview.fpsProperty();
     }
     
     public IntegerProperty framesProcessedProperty() {
-        return framesProcessed;
+        return preview.framesProcessedProperty();
     }
     
     public Image getCurrentFrame() {
-        return currentFrame.get();
+        return preview.imageProperty().get();
     }
     
     public String getStatusText() {
         return statusText.get();
     }
     
+    /**
+     * Native buffer allocations made by the capture loop. Stays flat while the
+     * camera runs at a fixed resolution.
+     */
+    public long getCaptureAllocations() {
+        return captureBuffers.getAllocations();
+    }
+    
+    /**
+     * Enable or disable the preview (disabled for cameras nobody watches).
+     */
+    public void setPreviewEnabled(boolean enabled) {
+        this.previewEnabled = enabled;
+    }
+    
+    public String getCameraId() {
+        return cameraId;
+    }
+    
+    /**
+     * Process only {@code motion.idle.fps} while the scene is still, or return to
+     * the target rate. Frames are still grabbed at the target rate either way
+     * (see {@link FrameThrottle}). Takes effect from the next frame.
+     */
+    public void setIdle(boolean idle) {
+        if (this.idle != idle) {
+            this.idle = idle;
+            logger.info(idle ? "💤 Camera {} idle ({} FPS)" : "⚡ Camera {} active ({} FPS)",
+                cameraId, idle ? idleFps : targetFps);
+        }
+    }
+    
+    public boolean isIdle() {
+        return idle;
+    }
+    
+    /**
+     * Only convert preview frames while this view is showing. Call on the FX thread.
+     */
+    public void attachPreview(Node view) {
+        preview.attach(view);
+    }
+    
     public double getFps() {
-        return fpsProperty.get();
+        return preview.fpsProperty().get();
     }
     
     public boolean isRunning() {
@@ -0,0 +1,114 @@
+package com.icefx.service;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.bytedeco.opencv.global.opencv_core.flip;
+
+/**
+ * Reusable conversion state for a camera capture loop, so a steady stream of
+ * same-sized frames allocates nothing per frame.
+ *
+ * Grabbed frames are wrapped (not copied) by one long-lived converter, and
+ * mirrored into a small ring of preallocated Mats. Each ring slot has its own
+ * Mat-to-Frame converter, whose cached Frame header is reused whenever that
+ * slot comes round again. Buffer (re)allocations are counted, so a flat
+ * allocation rate can be checked at runtime; after the first frames the count
+ * only moves when the camera resolution changes.
+ *
+ * Used by a single capture thread. A returned Mat stays valid until its ring
+ * slot is reused, i.e. for {@code ringSize - 1} further frames.
+ */
+public class CaptureBuffers implements AutoCloseable {
+
+    private final OpenCVFrameConverter.ToMat grabbedConverter = new OpenCVFrameConverter.ToMat();
+    private final Mat[] ring;
+    private final OpenCVFrameConverter.ToMat[] ringConverters;
+    private int next;
+    private Mat lastWrapped;
+
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder allocations = new LongAdder();
+
+    /**
+     * @param ringSize Number of mirror buffers (1 when frames are consumed
+     *                 before the next grab, more when another thread reads them)
+     */
+    public CaptureBuffers(int ringSize) {
+        int size = Math.max(1, ringSize);
+        this.ring = new Mat[size];
+        this.ringConverters = new OpenCVFrameConverter.ToMat[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Mat();
+            ringConverters[i] = new OpenCVFrameConverter.ToMat();
+        }
+    }
+
+    /**
+     * Convert a grabbed frame to a Mat, optionally mirrored horizontally.
+     *
+     * @return A Mat owned by these buffers (never release it), or null if the
+     *         frame has no image
+     */
+    public Mat toMat(Frame frame, boolean mirror) {
+        Mat wrapped = grabbedConverter.convert(frame);
+        if (wrapped == null) {
+            return null;
+        }
+        frames.increment();
+        if (wrapped != lastWrapped) {
+            allocations.increment(); // new header for the grabber's buffer
+            lastWrapped = wrapped;
+        }
+        if (!mirror) {
+            return wrapped;
+        }
+
+        Mat target = ring[next];
+        long before = target.empty() ? 0 : target.data().address();
+        flip(wrapped, target, 1); // 1 = horizontal flip
+        if (target.data().address() != before) {
+            allocations.increment(); // first use of the slot or resolution change
+        }
+        next = (next + 1) % ring.length;
+        return target;
+    }
+
+    /**
+     * Wrap a Mat from {@link #toMat} as a Frame (e.g. for display) without copying.
+     */
+    public Frame toFrame(Mat mat) {
+        for (int i = 0; i < ring.length; i++) {
+            if (ring[i] == mat) {
+                return ringConverters[i].convert(mat);
+            }
+        }
+        return ringConverters[0].convert(mat);
+    }
+
+    /**
+     * Frames converted so far.
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * Native buffer and header allocations so far.
+     */
+    public long getAllocations() {
+        return allocations.sum();
+    }
+
+    @Override
+    public void close() {
+        grabbedConverter.close();
+        for (int i = 0; i < ring.length; i++) {
+            ringConverters[i].close();
+            ring[i].release();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.icefx.service;
+
+import org.bytedeco.opencv.opencv_objdetect.CascadeClassifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of Haar cascade classifiers.
+ *
+ * A cascade given as a classpath resource ({@code /haar/...}) is extracted to a
+ * temp file once per process; any other path is used as a file path. Because
+ * {@link CascadeClassifier} is not thread-safe, every thread gets its own
+ * instance, parsed on its first use and reused for every frame after that.
+ */
+public final class CascadeRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(CascadeRegistry.class);
+
+    private static final Map<String, Cascade> cascades = new ConcurrentHashMap<>();
+
+    /**
+     * One cascade file and its per-thread classifiers.
+     */
+    private static final class Cascade {
+        final String file;
+        final ThreadLocal<CascadeClassifier> perThread;
+
+        Cascade(String file) {
+            this.file = file;
+            this.perThread = ThreadLocal.withInitial(() -> load(file));
+        }
+    }
+
+    private CascadeRegistry() {
+    }
+
+    /**
+     * The calling thread's classifier for a cascade.
+     *
+     * @param cascadePath Classpath resource (starting with '/') or file path
+     * @throws IllegalStateException if the cascade cannot be found or parsed
+     */
+    public static CascadeClassifier get(String cascadePath) {
+        return cascades.computeIfAbsent(cascadePath, CascadeRegistry::register).perThread.get();
+    }
+
+    private static Cascade register(String cascadePath) {
+        if (!cascadePath.startsWith("/")) {
+            return new Cascade(cascadePath);
+        }
+
+        // Resource path - extract to a temp file once
+        try (InputStream is = CascadeRegistry.class.getResourceAsStream(cascadePath)) {
+            if (is == null) {
+                throw new IllegalStateException("Cascade file not found in resources: " + cascadePath);
+            }
+            File tempFile = File.createTempFile("cascade", ".xml");
+            tempFile.deleteOnExit();
+            Files.copy(is, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Extracted cascade {} to temp file: {}", cascadePath, tempFile.getAbsolutePath());
+            return new Cascade(tempFile.getAbsolutePath());
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load cascade from resources: " + cascadePath, e);
+        }
+    }
+
+    private static CascadeClassifier load(String file) {
+        CascadeClassifier classifier = new CascadeClassifier(file);
+        if (classifier.empty()) {
+            classifier.close();
+            throw new IllegalStateException("Failed to load cascade classifier from: " + file);
+        }
+        logger.debug("Loaded cascade classifier for thread {}", Thread.currentThread().getName());
+        return classifier;
+    }
+}
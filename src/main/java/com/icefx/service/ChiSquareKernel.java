@@ -0,0 +1,92 @@
+package com.icefx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Chi-square histogram distance used for LBPH matching, as OpenCV's
+ * {@code HISTCMP_CHISQR_ALT}: {@code 2 * sum((a - b)^2 / (a + b))}.
+ *
+ * This base implementation is plain scalar Java. {@link #best()} returns the
+ * SIMD implementation ({@link VectorChiSquareKernel}) when the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, and this one otherwise.
+ */
+class ChiSquareKernel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChiSquareKernel.class);
+
+    static final double DBL_EPSILON = Math.ulp(1.0);
+    static final ValueLayout.OfFloat FLOAT_LE = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static volatile ChiSquareKernel best;
+
+    /**
+     * Fastest kernel available in this JVM (resolved once).
+     */
+    static ChiSquareKernel best() {
+        ChiSquareKernel kernel = best;
+        if (kernel == null) {
+            kernel = resolve();
+            best = kernel;
+        }
+        return kernel;
+    }
+
+    private static ChiSquareKernel resolve() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("icefx.simd", "true"));
+        if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                ChiSquareKernel kernel = (ChiSquareKernel) Class.forName("com.icefx.service.VectorChiSquareKernel")
+                    .getDeclaredConstructor().newInstance();
+                logger.info("LBPH matching uses SIMD chi-square ({})", kernel.describe());
+                return kernel;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("SIMD chi-square unavailable, using scalar kernel: {}", e.toString());
+            }
+        } else {
+            logger.info("LBPH matching uses scalar chi-square (start with --add-modules jdk.incubator.vector for SIMD)");
+        }
+        return new ChiSquareKernel();
+    }
+
+    String describe() {
+        return "scalar";
+    }
+
+    /**
+     * Distance between {@code query} and the sample starting at {@code offset} in a flat array.
+     */
+    double distance(float[] query, float[] samples, int offset) {
+        double result = 0;
+        for (int j = 0; j < query.length; j++) {
+            float value = samples[offset + j];
+            double a = query[j] - value;
+            double b = query[j] + value;
+            if (Math.abs(b) > DBL_EPSILON) {
+                result += a * a / b;
+            }
+        }
+        return 2 * result;
+    }
+
+    /**
+     * Distance between {@code query} and the little-endian float32 sample starting at
+     * {@code byteOffset} in {@code block} (e.g. a memory-mapped model file).
+     */
+    double distance(float[] query, MemorySegment block, long byteOffset) {
+        double result = 0;
+        for (int j = 0; j < query.length; j++) {
+            float value = block.get(FLOAT_LE, byteOffset + (long) j * Float.BYTES);
+            double a = query[j] - value;
+            double b = query[j] + value;
+            if (Math.abs(b) > DBL_EPSILON) {
+                result += a * a / b;
+            }
+        }
+        return 2 * result;
+    }
+}
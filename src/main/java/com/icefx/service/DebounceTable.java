@@ -0,0 +1,233 @@
+package com.icefx.service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Debounce window per user id: an open-addressed {@code int -> long} table of
+ * {@link System#nanoTime()} stamps.
+ *
+ * The common case under load (the same person seen again inside the window) is
+ * answered by a lock-free read. Marking a user takes a short lock. Expired
+ * entries are swept while marking, at most once per window, so memory stays
+ * bounded by the number of users seen within one window instead of growing
+ * for the whole uptime.
+ *
+ * {@code Integer.MIN_VALUE} marks empty slots and is not a valid user id.
+ */
+public class DebounceTable {
+
+    private static final int EMPTY_KEY = Integer.MIN_VALUE;
+    private static final long NO_STAMP = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 64;
+
+    /**
+     * One generation of the table. Keys of a slot never change once set. A new
+     * slot's stamp is written before its key, both with volatile writes, so a
+     * reader that sees the key also sees its stamp.
+     */
+    private static final class Table {
+        final AtomicIntegerArray keys;
+        final AtomicLongArray stamps;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            keys = new AtomicIntegerArray(capacity);
+            stamps = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, EMPTY_KEY);
+                stamps.set(i, NO_STAMP);
+            }
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return keys.length();
+        }
+
+        int slotOf(int key) {
+            int slot = mix(key) & mask;
+            while (true) {
+                int existing = keys.get(slot);
+                if (existing == key) {
+                    return slot;
+                }
+                if (existing == EMPTY_KEY) {
+                    return -1 - slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private final long windowNanos;
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private long lastSweep = System.nanoTime();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param windowMillis Debounce window; a user marked within it is debounced
+     */
+    public DebounceTable(long windowMillis) {
+        this.windowNanos = Math.max(0, windowMillis) * 1_000_000L;
+    }
+
+    /**
+     * Atomically check the debounce window and mark the user.
+     *
+     * @return true if the user was not marked within the window (and is marked now)
+     */
+    public boolean tryMark(int userId) {
+        return tryMark(userId, System.nanoTime());
+    }
+
+    boolean tryMark(int userId, long now) {
+        if (userId == EMPTY_KEY) {
+            throw new IllegalArgumentException("Invalid user id: " + userId);
+        }
+        // Lock-free fast path: recently marked
+        if (isWithinWindow(table, userId, now)) {
+            hits.increment();
+            return false;
+        }
+
+        synchronized (this) {
+            Table current = table;
+            int slot = current.slotOf(userId);
+            if (slot >= 0) {
+                long last = current.stamps.get(slot);
+                if (last != NO_STAMP && now - last < windowNanos) {
+                    hits.increment();
+                    return false;
+                }
+                current.stamps.set(slot, now);
+            } else {
+                if (now - lastSweep >= windowNanos || (current.size + 1) * 2 > current.capacity()) {
+                    current = rebuild(current, now);
+                    slot = current.slotOf(userId);
+                }
+                insert(current, -1 - slot, userId, now);
+            }
+            misses.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Whether the user was marked within the window (does not count as a check).
+     */
+    public boolean isDebounced(int userId) {
+        return isWithinWindow(table, userId, System.nanoTime());
+    }
+
+    /**
+     * Forget a user's mark (e.g. after a manual logout).
+     */
+    public synchronized void clear(int userId) {
+        if (userId == EMPTY_KEY) {
+            return;
+        }
+        Table current = table;
+        int slot = current.slotOf(userId);
+        if (slot >= 0) {
+            current.stamps.set(slot, NO_STAMP);
+        }
+    }
+
+    /**
+     * Forget every mark.
+     */
+    public synchronized void clearAll() {
+        table = new Table(MIN_CAPACITY);
+        lastSweep = System.nanoTime();
+    }
+
+    /**
+     * Drop expired entries now (normally done while marking).
+     */
+    public synchronized void sweep() {
+        rebuild(table, System.nanoTime());
+    }
+
+    /**
+     * Number of entries held, including expired ones not swept yet.
+     */
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * Checks answered "debounced".
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Checks that marked the user (outside the window).
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private boolean isWithinWindow(Table current, int userId, long now) {
+        if (userId == EMPTY_KEY) {
+            return false;
+        }
+        int slot = current.slotOf(userId);
+        if (slot < 0) {
+            return false;
+        }
+        long last = current.stamps.get(slot);
+        return last != NO_STAMP && now - last < windowNanos;
+    }
+
+    private static void insert(Table current, int slot, int userId, long now) {
+        current.stamps.set(slot, now);
+        current.keys.set(slot, userId); // publishes the stamp with the key
+        current.size++;
+    }
+
+    /**
+     * Copy the live entries into a table sized for them (plus room to grow) and publish it.
+     * Readers still on the old table only ever see older stamps, which can at
+     * worst debounce a user that was just cleared.
+     */
+    private Table rebuild(Table current, long now) {
+        int live = 0;
+        for (int i = 0; i < current.capacity(); i++) {
+            if (current.keys.get(i) != EMPTY_KEY && isLive(current.stamps.get(i), now)) {
+                live++;
+            }
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < (live + 1) * 4) {
+            capacity <<= 1;
+        }
+
+        Table next = new Table(capacity);
+        for (int i = 0; i < current.capacity(); i++) {
+            int key = current.keys.get(i);
+            long stamp = current.stamps.get(i);
+            if (key != EMPTY_KEY && isLive(stamp, now)) {
+                insert(next, -1 - next.slotOf(key), key, stamp);
+            }
+        }
+        table = next;
+        lastSweep = now;
+        return next;
+    }
+
+    private boolean isLive(long stamp, long now) {
+        return stamp != NO_STAMP && now - stamp < windowNanos;
+    }
+}
@@ -1,5 +1,6 @@
 package com.icefx.service;
 
+import com.icefx.config.AppConfig;
 import com.icefx.dao.AttendanceDAO;
 import com.icefx.model.AttendanceLog;
 import org.apache.commons.csv.CSVFormat;
@@ -7,21 +8,29 @@ import org.apache.commons.csv.CSVPrinter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Service for exporting attendance data to CSV format
  * 
+ * Rows are streamed from the database straight into a buffered (optionally
+ * gzipped, {@code export.gzip}) file, so memory use does not grow with the
+ * number of records exported.
+ * 
  * @author IceFX Team
  * @version 2.0
  * @since JDK 23.0.1
@@ -31,9 +40,30 @@ public class ExportService {
     private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1000;
+    
+    /**
+     * Export progress callback. Invoked on the exporting thread every
+     * {@value #PROGRESS_INTERVAL} records and once when the export completes.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long recordsWritten);
+    }
+    
+    /**
+     * One of the DAO's streaming queries, bound to its parameters.
+     */
+    @FunctionalInterface
+    private interface LogSource {
+        long stream(Consumer<AttendanceLog> handler) throws SQLException;
+    }
     
     private final AttendanceDAO attendanceDAO;
     private final String exportDirectory;
+    private volatile boolean gzip = AppConfig.getBoolean("export.gzip", false);
+    private volatile ProgressListener progressListener;
     
     /**
      * Creates ExportService with default export directory
@@ -80,10 +110,9 @@ public class ExportService {
      */
     public File exportAllAttendance() throws IOException, SQLException {
         logger.info("Exporting all attendance records...");
-        List<AttendanceLog> logs = attendanceDAO.getAllAttendanceLogs();
         String filename = String.format("attendance_all_%s.csv", 
             LocalDate.now().format(DATE_FORMATTER));
-        return exportToCSV(logs, filename);
+        return exportToCSV(attendanceDAO::streamAllAttendanceLogs, filename);
     }
     
     /**
@@ -96,10 +125,9 @@ public class ExportService {
      */
     public File exportUserAttendance(int userId) throws IOException, SQLException {
         logger.info("Exporting attendance for user ID: {}", userId);
-        List<AttendanceLog> logs = attendanceDAO.getAttendanceByUserId(userId);
         String filename = String.format("attendance_user_%d_%s.csv", 
             userId, LocalDate.now().format(DATE_FORMATTER));
-        return exportToCSV(logs, filename);
+        return exportToCSV(handler -> attendanceDAO.streamAttendanceByUserId(userId, handler), filename);
     }
     
     /**
@@ -115,14 +143,10 @@ public class ExportService {
             throws IOException, SQLException {
         logger.info("Exporting attendance from {} to {}", startDate, endDate);
         
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-        
-        List<AttendanceLog> logs = attendanceDAO.getAttendanceByDateRange(start, end);
         String filename = String.format("attendance_%s_to_%s.csv", 
             startDate.format(DATE_FORMATTER), 
             endDate.format(DATE_FORMATTER));
-        return exportToCSV(logs, filename);
+        return exportToCSV(handler -> attendanceDAO.streamAttendanceByDateRange(startDate, endDate, handler), filename);
     }
     
     /**
@@ -148,49 +172,101 @@ public class ExportService {
      */
     public File exportByActivity(String activity) throws IOException, SQLException {
         logger.info("Exporting attendance for activity: {}", activity);
-        List<AttendanceLog> logs = attendanceDAO.getAttendanceByActivity(activity);
         String filename = String.format("attendance_%s_%s.csv", 
             activity.replaceAll("\\s+", "_"), 
             LocalDate.now().format(DATE_FORMATTER));
-        return exportToCSV(logs, filename);
+        return exportToCSV(handler -> attendanceDAO.streamAttendanceByActivity(activity, handler), filename);
     }
     
     /**
-     * Core method to write attendance logs to CSV file
+     * Core method to stream attendance logs into a CSV file. A partially
+     * written file is deleted if the export fails.
      * 
-     * @param logs List of attendance logs to export
-     * @param filename Name of the CSV file
+     * @param source Streaming query supplying the logs
+     * @param filename Name of the CSV file ({@code .gz} is appended when gzipping)
      * @return File object of the created CSV file
      * @throws IOException if file write fails
+     * @throws SQLException if database query fails
      */
-    private File exportToCSV(List<AttendanceLog> logs, String filename) throws IOException {
-        File csvFile = new File(exportDirectory, filename);
+    private File exportToCSV(LogSource source, String filename) throws IOException, SQLException {
+        boolean compress = gzip;
+        ProgressListener listener = progressListener;
+        File csvFile = new File(exportDirectory, compress ? filename + ".gz" : filename);
+        long[] written = new long[1];
+        boolean completed = false;
         
-        try (FileWriter writer = new FileWriter(csvFile);
+        try (BufferedWriter writer = openWriter(csvFile.toPath(), compress);
              CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
                  .withHeader("Log ID", "User ID", "User Name", "Event Time", 
                             "Event Type", "Camera ID", "Confidence", "Activity"))) {
             
-            for (AttendanceLog log : logs) {
-                csvPrinter.printRecord(
-                    log.getLogId(),
-                    log.getUserId(),
-                    log.getUserName() != null ? log.getUserName() : "Unknown",
-                    log.getEventTime().format(DATETIME_FORMATTER),
-                    log.getEventType(),
-                    log.getCameraId() != null ? log.getCameraId() : "N/A",
-                    String.format("%.2f", log.getConfidence()),
-                    log.getActivity() != null ? log.getActivity() : "N/A"
-                );
-            }
+            source.stream(log -> {
+                try {
+                    printRecord(csvPrinter, log);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++written[0] % PROGRESS_INTERVAL == 0 && listener != null) {
+                    listener.onProgress(written[0]);
+                }
+            });
             
             csvPrinter.flush();
-            logger.info("Successfully exported {} records to: {}", logs.size(), csvFile.getAbsolutePath());
+            completed = true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(csvFile.toPath());
+            }
         }
         
+        if (listener != null) {
+            listener.onProgress(written[0]);
+        }
+        logger.info("Successfully exported {} records to: {}", written[0], csvFile.getAbsolutePath());
         return csvFile;
     }
     
+    private static BufferedWriter openWriter(Path path, boolean compress) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        if (compress) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+    
+    private static void printRecord(CSVPrinter csvPrinter, AttendanceLog log) throws IOException {
+        csvPrinter.printRecord(
+            log.getLogId(),
+            log.getUserId(),
+            log.getUserName() != null ? log.getUserName() : "Unknown",
+            log.getEventTime().format(DATETIME_FORMATTER),
+            log.getEventType(),
+            log.getCameraId() != null ? log.getCameraId() : "N/A",
+            String.format("%.2f", log.getConfidence()),
+            log.getActivity() != null ? log.getActivity() : "N/A"
+        );
+    }
+    
+    /**
+     * Sets whether exports are gzip-compressed (default from {@code export.gzip})
+     * 
+     * @param gzip true to write {@code .csv.gz} files
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+    
+    /**
+     * Sets the listener notified as records are exported
+     * 
+     * @param progressListener listener, or null for none
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+    
     /**
      * Gets the export directory path
      * 
@@ -201,7 +277,7 @@ public class ExportService {
     }
     
     /**
-     * Lists all CSV files in the export directory
+     * Lists all CSV files (plain or gzipped) in the export directory
      * 
      * @return Array of CSV files
      */
@@ -211,7 +287,10 @@ public class ExportService {
             return new File[0];
         }
         
-        File[] csvFiles = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".csv"));
+        File[] csvFiles = dir.listFiles((d, name) -> {
+            String lower = name.toLowerCase();
+            return lower.endsWith(".csv") || lower.endsWith(".csv.gz");
+        });
         return csvFiles != null ? csvFiles : new File[0];
     }
     
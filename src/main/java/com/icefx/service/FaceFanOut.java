@@ -0,0 +1,196 @@
+package com.icefx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Worker pool of {@link FaceRecognitionService} that spreads the faces of one
+ * frame over threads. The pool is created on first use (most service instances,
+ * e.g. the admin panel's, never recognize more than one face and never need it).
+ */
+final class FaceFanOut {
+    private static final Logger logger = LoggerFactory.getLogger(FaceFanOut.class);
+
+    private volatile int workerCount; // 0: every face on the calling thread
+    private volatile ExecutorService pool;
+
+    /**
+     * @param workers Pool threads (0 runs every face on the calling thread)
+     */
+    FaceFanOut(int workers) {
+        this.workerCount = Math.max(0, workers);
+    }
+
+    /**
+     * Run a task on several faces of one frame: the first on the calling thread,
+     * the rest on the worker pool. Results are in input order.
+     *
+     * The tasks read views of the caller's frame, so this never returns (or
+     * throws) while one of them is still running.
+     */
+    <S, T> List<T> map(List<S> faces, Function<S, T> task,
+                       Function<Throwable, T> onFailure) throws InterruptedException {
+        if (faces.size() <= 1) {
+            return faces.isEmpty() ? List.of() : List.of(task.apply(faces.get(0)));
+        }
+        if (workerCount == 0) {
+            List<T> results = new ArrayList<>(faces.size());
+            for (S face : faces) {
+                results.add(task.apply(face));
+            }
+            return results;
+        }
+
+        List<FaceTask<T>> pending = new ArrayList<>(faces.size() - 1);
+        boolean completed = false;
+        try {
+            // Fan out faces 2..n to the worker pool, process face 1 here
+            ExecutorService workers = pool();
+            for (int i = 1; i < faces.size(); i++) {
+                S face = faces.get(i);
+                FaceTask<T> faceTask = new FaceTask<>(() -> task.apply(face));
+                pending.add(faceTask);
+                faceTask.future = workers.submit(faceTask);
+            }
+
+            List<T> results = new ArrayList<>(faces.size());
+            results.add(task.apply(faces.get(0)));
+
+            for (FaceTask<T> faceTask : pending) {
+                try {
+                    results.add(faceTask.future.get());
+                } catch (ExecutionException e) {
+                    logger.error("Parallel recognition failed", e.getCause());
+                    results.add(onFailure.apply(e.getCause()));
+                }
+            }
+
+            completed = true;
+            return results;
+        } finally {
+            if (!completed) {
+                for (FaceTask<T> faceTask : pending) {
+                    faceTask.abandon();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resize the pool; 0 runs every face on the calling thread.
+     */
+    synchronized void setWorkers(int workers) {
+        int count = Math.max(0, workers);
+        if (pool instanceof ThreadPoolExecutor executor && count > 0) {
+            if (count > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(count);
+                executor.setCorePoolSize(count);
+            } else {
+                executor.setCorePoolSize(count);
+                executor.setMaximumPoolSize(count);
+            }
+        }
+        workerCount = count;
+    }
+
+    int getWorkers() {
+        return workerCount;
+    }
+
+    /**
+     * Stop the pool (a later {@link #map} starts a new one).
+     *
+     * @return false if no pool was running
+     */
+    synchronized boolean shutdown() {
+        ExecutorService running = pool;
+        pool = null;
+        if (running == null) {
+            return false;
+        }
+        running.shutdownNow();
+        return true;
+    }
+
+    private ExecutorService pool() {
+        ExecutorService workers = pool;
+        if (workers == null) {
+            synchronized (this) {
+                workers = pool;
+                if (workers == null) {
+                    AtomicInteger threadIndex = new AtomicInteger(1);
+                    workers = Executors.newFixedThreadPool(Math.max(1, workerCount), r -> {
+                        Thread t = new Thread(r, "FaceRecognition-Worker-" + threadIndex.getAndIncrement());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    pool = workers;
+                }
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * One face submitted by {@link #map}, which can be abandoned: it is
+     * either prevented from starting or waited for until it finishes.
+     */
+    private static final class FaceTask<T> implements Callable<T> {
+        private final Supplier<T> body;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile Future<T> future;
+
+        FaceTask(Supplier<T> body) {
+            this.body = body;
+        }
+
+        @Override
+        public T call() {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return body.get();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        void abandon() {
+            if (started.compareAndSet(false, true)) {
+                Future<T> submitted = future;
+                if (submitted != null) {
+                    submitted.cancel(false);
+                }
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
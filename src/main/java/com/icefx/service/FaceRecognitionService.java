@@ -2,20 +2,33 @@ package com.icefx.service;
 
 import com.icefx.config.AppConfig;
 import com.icefx.dao.UserDAO;
-import com.icefx.model.User;
-import org.bytedeco.javacpp.IntPointer;
-import org.bytedeco.javacpp.DoublePointer;
+import com.icefx.model.UserIdentity;
 import org.bytedeco.opencv.opencv_core.*;
 import org.bytedeco.opencv.opencv_face.LBPHFaceRecognizer;
+import org.bytedeco.opencv.opencv_face.StandardCollector;
 import org.bytedeco.opencv.opencv_objdetect.CascadeClassifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 import static org.bytedeco.opencv.global.opencv_face.*;
 import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
@@ -28,6 +41,11 @@ import static org.bytedeco.opencv.global.opencv_imgproc.*;
  * - LBPH face recognition (lightweight, CPU-friendly)
  * - Confidence threshold filtering
  * - Recognition debouncing (prevents duplicate recognitions)
+ * - Multi-face recognition on a bounded worker pool
+ * - Incremental enrollment (add / replace / remove one person without a full retrain)
+ * - Compact memory-mapped binary model format (see {@link LbphModel})
+ * - Hot model swap: retraining/reloading never pauses recognition, and the
+ *   model file can be watched for changes written by another process
  * - Thread-safe operations
  * - Comprehensive error handling
  * 
@@ -40,25 +58,360 @@ public class FaceRecognitionService {
     // Recognition settings (loaded from AppConfig)
     private static final int FACE_SIZE = 100;  // Standard face size for recognition
     
-    // Cascade classifier for face detection
-    private final CascadeClassifier faceDetector;
+    // Immutable native sizes shared by every call (never mutated after creation)
+    private static final Size FACE_DIMENSIONS = new Size(FACE_SIZE, FACE_SIZE);
+    private static final Size MIN_DETECTION_SIZE = new Size(30, 30);
+    private static final Size MAX_DETECTION_SIZE = new Size();
     
-    // LBPH recognizer
-    private final LBPHFaceRecognizer recognizer;
+    // Cascade for face detection (per-thread instances from CascadeRegistry)
+    private final String cascadePath;
     
     // Configuration
     private final double confidenceThreshold;
     private final long debounceMs;
+    private final int maxFacesPerFrame;
+    private final int topK;
+    private final int detectionMaxWidth;
+    private final double votingMargin;
+    
+    // Spreads the faces of one frame over worker threads
+    private final FaceFanOut fanOut;
+    
+    // Per-thread native buffers for the recognition hot path
+    private final ThreadLocal<RecognitionScratch> scratch = ThreadLocal.withInitial(RecognitionScratch::new);
     
     // DAO for user data
     private final UserDAO userDAO;
     
-    // Debouncing map: userId -> lastRecognitionTime
-    private final Map<Integer, LocalDateTime> recentRecognitions = new ConcurrentHashMap<>();
+    // Incremental enrollment bookkeeping. A full train uses label == userId.
+    // Replacing a person retires their old samples (LBPH cannot delete histograms)
+    // and appends the new ones under a fresh negative label mapped back to the user.
+    // Both facts are persisted in the model as label info and rebuilt on load.
+    private static final String RETIRED_LABEL_INFO = "retired";
+    private static final String USER_LABEL_INFO_PREFIX = "user=";
+    private static final int FIRST_REMAPPED_LABEL = -1_000_000;
+    
+    // Current model generation (null until trained or loaded). Training and loading
+    // build a new generation off to the side and swap it in; predictions (read lock)
+    // only wait for the swap itself or for an incremental update (write lock).
+    private volatile ModelGeneration current;
+    private final AtomicLong modelVersions = new AtomicLong();
+    private final ReadWriteLock modelLock = new ReentrantReadWriteLock();
+    private final TrainingSetLoader trainingSetLoader = new TrainingSetLoader(FaceRecognitionService::preprocessFace);
+    
+    // Binary model mode: the gallery is matched from Java (memory-mapped when loaded
+    // from disk) and OpenCV is only used to train. In XML mode the gallery stays null.
+    private final boolean binaryModelFormat;
+    private final LbphModel.HistogramType modelHistogramType;
+    
+    // Optional PCA + HNSW index for large galleries (binary mode only)
+    private final boolean indexEnabled;
+    private final int indexMinSamples;
+    
+    // Model file watching (reload when another process saves a new model)
+    private static final long MODEL_RELOAD_SETTLE_MS = 500;
+    private volatile Thread modelWatcher;
+    private volatile WatchService modelWatchService;
+    private volatile long ownModelWriteTime;
+    
+    // Debouncing: userId -> last recognition (monotonic clock, expired entries swept)
+    private final DebounceTable recentRecognitions;
+    
+    /**
+     * Native buffers reused across frames by one thread.
+     * 
+     * OpenCV only reallocates a Mat when the requested size or type changes, so
+     * once the first frame has been processed the gray, resized and equalized
+     * images, the detection vector and the predict outputs are all recycled and
+     * steady-state recognition does not touch the native allocator. Buffers are
+     * freed by JavaCPP when the owning thread (and its ThreadLocal) goes away.
+     */
+    private static final class RecognitionScratch {
+        final Mat frameGray = new Mat();
+        final Mat detectionGray = new Mat();
+        final RectVector faces = new RectVector();
+        final Mat faceGray = new Mat();
+        final Mat prepared = new Mat();
+        final int[] label = new int[1];
+        final double[] confidence = new double[1];
+        int[] topLabels = new int[0];
+        double[] topDistances = new double[0];
+        // Java-side matching (binary model format)
+        final byte[] pixels = new byte[FACE_SIZE * FACE_SIZE];
+        LbphHistogramExtractor extractor;
+        float[] histogram;
+        
+        LbphHistogramExtractor extractorFor(LbphModel model) {
+            if (extractor == null || histogram.length != model.getHistogramLength()) {
+                extractor = model.newExtractor();
+                histogram = new float[model.getHistogramLength()];
+            }
+            return extractor;
+        }
+    }
+    
+    /**
+     * One trained model: the OpenCV recognizer plus, in binary mode, the Java
+     * gallery converted from it (or mapped from disk), and the incremental
+     * enrollment bookkeeping of the recognizer's labels.
+     */
+    private static final class ModelGeneration {
+        final long version;
+        final LBPHFaceRecognizer recognizer;
+        LbphModel gallery;
+        final Map<Integer, Integer> remappedLabels = new ConcurrentHashMap<>(); // label -> userId
+        final Set<Integer> retiredLabels = ConcurrentHashMap.newKeySet();
+        int nextRemappedLabel = FIRST_REMAPPED_LABEL;
+        volatile int sampleCount;
+        
+        ModelGeneration(long version, LBPHFaceRecognizer recognizer) {
+            this.version = version;
+            this.recognizer = recognizer;
+        }
+        
+        /**
+         * Predict into {@code buffers.label} (resolved to a user id) and {@code buffers.confidence}.
+         */
+        void predict(Mat prepared, RecognitionScratch buffers, double threshold) {
+            LbphModel model = gallery;
+            if (model != null) {
+                prepared.data().get(buffers.pixels, 0, FACE_SIZE * FACE_SIZE);
+                buffers.extractorFor(model).extract(buffers.pixels, FACE_SIZE, FACE_SIZE, buffers.histogram);
+                model.predict(buffers.histogram, threshold, buffers.label, buffers.confidence);
+                return;
+            }
+            
+            recognizer.predict(prepared, buffers.label, buffers.confidence);
+            if (!retiredLabels.isEmpty() && retiredLabels.contains(buffers.label[0])) {
+                predictSkippingRetired(prepared, buffers, threshold);
+            }
+            buffers.label[0] = remappedLabels.getOrDefault(buffers.label[0], buffers.label[0]);
+        }
+        
+        /**
+         * Predict the {@code k} closest distinct users within the threshold into
+         * {@code buffers.topLabels} / {@code buffers.topDistances}, closest first.
+         * 
+         * @return Number of users found
+         */
+        int predictTopK(Mat prepared, RecognitionScratch buffers, double threshold, int k) {
+            if (buffers.topLabels.length < k) {
+                buffers.topLabels = new int[k];
+                buffers.topDistances = new double[k];
+            }
+            LbphModel model = gallery;
+            if (model != null) {
+                prepared.data().get(buffers.pixels, 0, FACE_SIZE * FACE_SIZE);
+                buffers.extractorFor(model).extract(buffers.pixels, FACE_SIZE, FACE_SIZE, buffers.histogram);
+                return model.predictTopK(buffers.histogram, threshold, k, buffers.topLabels, buffers.topDistances);
+            }
+            
+            // XML mode: collect every sample within the threshold, keep each user's best
+            int count = 0;
+            try (StandardCollector collector = StandardCollector.create(threshold)) {
+                recognizer.predict_collect(prepared, collector);
+                try (IntDoublePairVector results = collector.getResults(true)) {
+                    for (long i = 0; i < results.size() && count < k; i++) {
+                        int label = results.first(i);
+                        if (retiredLabels.contains(label)) {
+                            continue;
+                        }
+                        int userId = remappedLabels.getOrDefault(label, label);
+                        boolean seen = false;
+                        for (int j = 0; j < count && !seen; j++) {
+                            seen = buffers.topLabels[j] == userId;
+                        }
+                        if (!seen) {
+                            buffers.topLabels[count] = userId;
+                            buffers.topDistances[count] = results.second(i);
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+        
+        /**
+         * Re-run a prediction when the nearest sample belongs to a retired label:
+         * collect every sample within the threshold and take the best live one.
+         * Only happens between an incremental removal and the next full retrain.
+         */
+        private void predictSkippingRetired(Mat prepared, RecognitionScratch buffers, double threshold) {
+            buffers.label[0] = -1;
+            buffers.confidence[0] = Double.MAX_VALUE;
+            
+            try (StandardCollector collector = StandardCollector.create(threshold)) {
+                recognizer.predict_collect(prepared, collector);
+                try (IntDoublePairVector results = collector.getResults(true)) {
+                    for (long i = 0; i < results.size(); i++) {
+                        int label = results.first(i);
+                        if (!retiredLabels.contains(label)) {
+                            buffers.label[0] = label;
+                            buffers.confidence[0] = results.second(i);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Label new samples for a user should be stored under: the user id itself,
+         * unless that was retired, in which case a remapped label is used.
+         */
+        int activeLabelFor(int userId) {
+            for (Map.Entry<Integer, Integer> entry : remappedLabels.entrySet()) {
+                if (entry.getValue() == userId && !retiredLabels.contains(entry.getKey())) {
+                    return entry.getKey();
+                }
+            }
+            if (!retiredLabels.contains(userId)) {
+                return userId;
+            }
+            
+            int label = nextRemappedLabel--;
+            remappedLabels.put(label, userId);
+            recognizer.setLabelInfo(label, USER_LABEL_INFO_PREFIX + userId);
+            return label;
+        }
+        
+        void retireUser(int userId) {
+            retireLabel(userId);
+            for (Map.Entry<Integer, Integer> entry : remappedLabels.entrySet()) {
+                if (entry.getValue() == userId) {
+                    retireLabel(entry.getKey());
+                }
+            }
+        }
+        
+        private void retireLabel(int label) {
+            retiredLabels.add(label);
+            recognizer.setLabelInfo(label, RETIRED_LABEL_INFO);
+        }
+        
+        /**
+         * Rebuild remapped/retired labels and the sample count from a loaded recognizer.
+         */
+        void loadLabelBookkeeping() {
+            try (Mat labels = recognizer.getLabels()) {
+                IntBuffer labelBuffer = labels.createBuffer();
+                Set<Integer> distinctLabels = new HashSet<>();
+                for (int i = 0; i < labels.rows(); i++) {
+                    distinctLabels.add(labelBuffer.get(i));
+                }
+                sampleCount = labels.rows();
+                
+                for (int label : distinctLabels) {
+                    String info = recognizer.getLabelInfo(label).getString();
+                    if (RETIRED_LABEL_INFO.equals(info)) {
+                        retiredLabels.add(label);
+                    } else if (info.startsWith(USER_LABEL_INFO_PREFIX)) {
+                        remappedLabels.put(label, Integer.parseInt(info.substring(USER_LABEL_INFO_PREFIX.length())));
+                    }
+                    if (label <= nextRemappedLabel) {
+                        nextRemappedLabel = label - 1;
+                    }
+                }
+            }
+            
+            if (!retiredLabels.isEmpty() || !remappedLabels.isEmpty()) {
+                logger.info("Model has {} incrementally replaced and {} retired labels",
+                    remappedLabels.size(), retiredLabels.size());
+            }
+        }
+        
+        /**
+         * Copy the recognizer's histograms into a heap-backed gallery (live samples
+         * only, remapped labels resolved back to user ids), then drop OpenCV's copy.
+         */
+        void convertToGallery() {
+            LbphModel model = LbphModel.create(recognizer.getRadius(), recognizer.getNeighbors(),
+                recognizer.getGridX(), recognizer.getGridY());
+            
+            try (MatVector histograms = recognizer.getHistograms();
+                 Mat labels = recognizer.getLabels()) {
+                IntBuffer labelBuffer = labels.createBuffer();
+                for (int i = 0; i < histograms.size(); i++) {
+                    int label = labelBuffer.get(i);
+                    if (retiredLabels.contains(label)) {
+                        continue;
+                    }
+                    float[] histogram = new float[model.getHistogramLength()];
+                    try (Mat sample = histograms.get(i)) {
+                        FloatBuffer values = sample.createBuffer();
+                        values.get(histogram);
+                    }
+                    model.add(remappedLabels.getOrDefault(label, label), histogram);
+                }
+            }
+            
+            recognizer.clear();
+            retiredLabels.clear();
+            remappedLabels.clear();
+            nextRemappedLabel = FIRST_REMAPPED_LABEL;
+            gallery = model;
+            sampleCount = model.size();
+        }
+        
+        /**
+         * Free the recognizer and unmap the gallery. Only once no prediction can
+         * still reach this generation (i.e. after it was swapped out under the write lock).
+         */
+        void close() {
+            if (gallery != null) {
+                gallery.close();
+            }
+            recognizer.close();
+        }
+    }
+    
+    /**
+     * Faces found in one frame by {@link #detect}: per face its track (null when
+     * untracked), its bounding box, and its preprocessed crop when it needs a
+     * prediction (null when the track keeps its earlier result). Owns the crops.
+     */
+    public static final class DetectedFrame implements AutoCloseable {
+        private final List<FaceTracker.Track> tracks = new ArrayList<>();
+        private final List<FaceTracker.Box> boxes = new ArrayList<>();
+        private final List<Mat> crops = new ArrayList<>();
+        private final long modelVersion;
+        private final boolean fullDetection;
+        
+        private DetectedFrame(long modelVersion, boolean fullDetection) {
+            this.modelVersion = modelVersion;
+            this.fullDetection = fullDetection;
+        }
+        
+        private void add(FaceTracker.Track track, FaceTracker.Box box, Mat crop) {
+            tracks.add(track);
+            boxes.add(box);
+            crops.add(crop);
+        }
+        
+        public int size() {
+            return boxes.size();
+        }
+        
+        public boolean isFullDetection() {
+            return fullDetection;
+        }
+        
+        @Override
+        public void close() {
+            for (Mat crop : crops) {
+                if (crop != null) {
+                    crop.release();
+                }
+            }
+            crops.clear();
+        }
+    }
     
-    // Training status
-    private boolean isTrained = false;
-    private int trainedFacesCount = 0;
+    /**
+     * One possible identity for a face: a user and the distance of their closest sample.
+     */
+    public record Candidate(int userId, double distance) {}
     
     /**
      * Recognition result wrapper.
@@ -69,6 +422,7 @@ public class FaceRecognitionService {
             UNKNOWN,       // Face detected but not in database
             DEBOUNCED,     // Recently recognized (skip logging)
             LOW_CONFIDENCE,// Confidence below threshold
+            VERIFYING,     // Possible match, waiting for more agreeing frames
             NO_FACE,       // No face detected in image
             ERROR          // Processing error
         }
@@ -78,13 +432,27 @@ public class FaceRecognitionService {
         private final String userName;
         private final double confidence;
         private final String message;
+        private final Rect faceRect; // Face bounding box in frame coordinates (may be null)
         
         private RecognitionResult(Status status, Integer userId, String userName, double confidence, String message) {
+            this(status, userId, userName, confidence, message, null);
+        }
+        
+        private RecognitionResult(Status status, Integer userId, String userName, double confidence,
+                                  String message, Rect faceRect) {
             this.status = status;
             this.userId = userId;
             this.userName = userName;
             this.confidence = confidence;
             this.message = message;
+            this.faceRect = faceRect;
+        }
+        
+        /**
+         * Copy of this result tagged with the face bounding box it was computed from.
+         */
+        public RecognitionResult withFaceRect(Rect rect) {
+            return new RecognitionResult(status, userId, userName, confidence, message, rect);
         }
         
         // Factory methods
@@ -108,6 +476,11 @@ public class FaceRecognitionService {
                 String.format("Low confidence: %.1f%%", confidence));
         }
         
+        public static RecognitionResult verifying(int userId, double confidence) {
+            return new RecognitionResult(Status.VERIFYING, userId, null, confidence,
+                "Verifying identity...");
+        }
+        
         public static RecognitionResult noFace() {
             return new RecognitionResult(Status.NO_FACE, null, null, 0.0, "No face detected");
         }
@@ -122,6 +495,7 @@ public class FaceRecognitionService {
         public String getUserName() { return userName; }
         public double getConfidence() { return confidence; }
         public String getMessage() { return message; }
+        public Rect getFaceRect() { return faceRect; }
         public boolean shouldLogAttendance() { 
             return status == Status.RECOGNIZED; 
         }
@@ -149,53 +523,31 @@ public class FaceRecognitionService {
         this.userDAO = userDAO;
         this.confidenceThreshold = confidenceThreshold;
         this.debounceMs = debounceMs;
+        this.recentRecognitions = new DebounceTable(debounceMs);
+        this.maxFacesPerFrame = Math.max(1, AppConfig.getInt("recognition.max.faces", 8));
+        this.fanOut = new FaceFanOut(Math.max(1, AppConfig.getInt("recognition.workers",
+            Runtime.getRuntime().availableProcessors())));
+        this.topK = Math.max(1, AppConfig.getInt("recognition.voting.topk", 3));
+        this.detectionMaxWidth = AppConfig.getInt("recognition.detection.max.width", 640);
+        this.votingMargin = AppConfig.getDouble("recognition.voting.margin", 0.1);
+        this.binaryModelFormat = !"xml".equalsIgnoreCase(AppConfig.get("recognition.model.format", "binary"));
+        this.modelHistogramType = AppConfig.getBoolean("recognition.model.quantize", false)
+            ? LbphModel.HistogramType.UINT8 : LbphModel.HistogramType.FLOAT32;
+        this.indexEnabled = AppConfig.getBoolean("recognition.index.enabled", false);
+        this.indexMinSamples = AppConfig.getInt("recognition.index.min.samples", 5000);
         
-        // Initialize face detector - load from resources
+        // Validate the cascade now (extracted and parsed once per process and thread)
         logger.info("Initializing face detector with cascade: {}", cascadePath);
-        
-        // Try to load from resources first
-        String actualPath = cascadePath;
-        if (cascadePath.startsWith("/")) {
-            // Resource path - need to extract to temp file
-            try {
-                java.io.InputStream is = getClass().getResourceAsStream(cascadePath);
-                if (is == null) {
-                    throw new IllegalStateException("Cascade file not found in resources: " + cascadePath);
-                }
-                
-                // Create temp file
-                java.io.File tempFile = java.io.File.createTempFile("cascade", ".xml");
-                tempFile.deleteOnExit();
-                
-                // Copy resource to temp file
-                java.nio.file.Files.copy(is, tempFile.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                is.close();
-                
-                actualPath = tempFile.getAbsolutePath();
-                logger.info("Extracted cascade to temp file: {}", actualPath);
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to load cascade from resources: " + cascadePath, e);
-            }
-        }
-        
-        this.faceDetector = new CascadeClassifier(actualPath);
-        
-        if (faceDetector.empty()) {
-            throw new IllegalStateException("Failed to load cascade classifier from: " + actualPath);
-        }
-        
-        // Create LBPH recognizer with optimized parameters
-        this.recognizer = LBPHFaceRecognizer.create(
-            1,      // radius
-            8,      // neighbors
-            8,      // grid_x
-            8,      // grid_y
-            confidenceThreshold  // threshold
-        );
+        this.cascadePath = cascadePath;
+        CascadeRegistry.get(cascadePath);
         
         logger.info("✅ Face recognition service initialized");
         logger.info("  Confidence threshold: {}", confidenceThreshold);
         logger.info("  Debounce time: {}ms", debounceMs);
+        logger.info("  Recognition workers: {} (max {} faces per frame)", fanOut.getWorkers(), maxFacesPerFrame);
+        if (detectionMaxWidth > 0) {
+            logger.info("  Detection on frames downscaled to at most {}px wide", detectionMaxWidth);
+        }
     }
     
     /**
@@ -205,71 +557,47 @@ public class FaceRecognitionService {
      * @return Number of faces trained
      */
     public int trainFromDirectory(String facesDirectory) {
-        try {
-            logger.info("Training recognizer from directory: {}", facesDirectory);
-            
-            File dir = new File(facesDirectory);
-            if (!dir.exists() || !dir.isDirectory()) {
-                logger.error("Faces directory does not exist: {}", facesDirectory);
-                return 0;
-            }
-            
-            List<Mat> faceImages = new ArrayList<>();
-            List<Integer> labels = new ArrayList<>();
-            
-            // Load all face images
-            for (File userDir : Objects.requireNonNull(dir.listFiles())) {
-                if (!userDir.isDirectory()) continue;
-                
-                try {
-                    int userId = Integer.parseInt(userDir.getName());
-                    
-                    for (File imageFile : Objects.requireNonNull(userDir.listFiles())) {
-                        if (!imageFile.getName().endsWith(".png") && 
-                            !imageFile.getName().endsWith(".jpg")) {
-                            continue;
-                        }
-                        
-                        Mat face = imread(imageFile.getAbsolutePath(), IMREAD_GRAYSCALE);
-                        if (face.empty()) {
-                            logger.warn("Failed to load image: {}", imageFile);
-                            continue;
-                        }
-                        
-                        // Preprocess face
-                        Mat processed = preprocessFace(face);
-                        faceImages.add(processed);
-                        labels.add(userId);
-                    }
-                    
-                } catch (NumberFormatException e) {
-                    logger.warn("Invalid user directory name: {}", userDir.getName());
-                }
-            }
-            
-            if (faceImages.isEmpty()) {
+        return trainFromDirectory(facesDirectory, null);
+    }
+    
+    /**
+     * Train recognizer with faces from the filesystem, reporting load progress.
+     * 
+     * @param facesDirectory Directory containing one sub-directory per user id
+     * @param listener Progress callback (may be null; called from loader threads)
+     * @return Number of faces trained
+     */
+    public int trainFromDirectory(String facesDirectory, TrainingSetLoader.ProgressListener listener) {
+        logger.info("Training recognizer from directory: {}", facesDirectory);
+        
+        File dir = new File(facesDirectory);
+        if (!dir.exists() || !dir.isDirectory()) {
+            logger.error("Faces directory does not exist: {}", facesDirectory);
+            return 0;
+        }
+        
+        try (TrainingSetLoader.TrainingSet trainingSet = trainingSetLoader.loadAll(dir, listener)) {
+            if (trainingSet.isEmpty()) {
                 logger.warn("No face images found for training");
                 return 0;
             }
             
-            // Convert lists to OpenCV format
-            MatVector facesVector = new MatVector(faceImages.size());
-            Mat labelsMat = new Mat(labels.size(), 1, org.bytedeco.opencv.global.opencv_core.CV_32SC1);
-            
-            for (int i = 0; i < faceImages.size(); i++) {
-                facesVector.put(i, faceImages.get(i));
-                // Use Mat put method directly
-                labelsMat.ptr(i).putInt(labels.get(i));
+            // Train a new generation off to the side; recognition keeps using the
+            // current one until the swap (a full train also compacts away retired samples)
+            ModelGeneration trained = newGeneration();
+            try (MatVector facesVector = trainingSet.toMatVector();
+                 Mat labelsMat = trainingSet.toLabelsMat()) {
+                trained.recognizer.train(facesVector, labelsMat);
             }
+            trained.sampleCount = trainingSet.size();
+            if (binaryModelFormat) {
+                trained.convertToGallery();
+            }
+            publish(trained);
             
-            // Train recognizer
-            recognizer.train(facesVector, labelsMat);
-            
-            isTrained = true;
-            trainedFacesCount = faceImages.size();
-            
-            logger.info("✅ Training complete! Trained with {} face images", trainedFacesCount);
-            return trainedFacesCount;
+            logger.info("✅ Training complete! Trained with {} face images ({} users)",
+                trained.sampleCount, trainingSet.getPerUserCounts().size());
+            return trained.sampleCount;
             
         } catch (Exception e) {
             logger.error("Failed to train recognizer", e);
@@ -284,7 +612,7 @@ public class FaceRecognitionService {
      * @return Recognition result
      */
     public RecognitionResult recognize(Mat faceImage) {
-        if (!isTrained) {
+        if (current == null) {
             logger.warn("Recognizer not trained yet");
             return RecognitionResult.error("Recognizer not trained");
         }
@@ -294,50 +622,122 @@ public class FaceRecognitionService {
         }
         
         try {
-            // Preprocess face (resize, equalize)
-            Mat prepared = preprocessFace(faceImage);
-            
-            // Predict
-            IntPointer label = new IntPointer(1);
-            DoublePointer confidence = new DoublePointer(1);
-            recognizer.predict(prepared, label, confidence);
-            
-            int userId = label.get(0);
-            double conf = confidence.get(0);
-            
-            logger.debug("Recognition result: userId={}, confidence={}", userId, conf);
-            
-            // Check confidence threshold
-            if (conf > confidenceThreshold) {
-                logger.debug("Confidence {} exceeds threshold {} - unknown person", conf, confidenceThreshold);
-                return RecognitionResult.unknown(conf);
-            }
-            
-            // Get user info
-            User user = userDAO.findById(userId).orElse(null);
-            if (user == null) {
-                logger.warn("User ID {} not found in database", userId);
-                return RecognitionResult.unknown(conf);
-            }
-            
-            // Check debouncing
-            if (isRecentlyRecognized(userId)) {
-                logger.debug("User {} debounced (recognized recently)", user.getFullName());
-                return RecognitionResult.debounced(userId, user.getFullName(), conf);
-            }
-            
-            // Mark as recently recognized
-            recentRecognitions.put(userId, LocalDateTime.now());
-            
-            logger.info("✅ Recognized: {} (confidence: {:.1f})", user.getFullName(), conf);
-            return RecognitionResult.recognized(userId, user.getFullName(), conf);
-            
+            // Preprocess face (resize, equalize) into this thread's buffers
+            RecognitionScratch buffers = scratch.get();
+            return recognizePrepared(preprocessInto(faceImage, buffers), buffers);
+        } catch (Exception e) {
+            logger.error("Recognition failed", e);
+            return RecognitionResult.error(e.getMessage());
+        }
+    }
+    
+    /**
+     * Recognize an already preprocessed face (see {@link #preprocessFace}).
+     */
+    private RecognitionResult recognizePrepared(Mat prepared) {
+        if (current == null) {
+            return RecognitionResult.error("Recognizer not trained");
+        }
+        try {
+            return recognizePrepared(prepared, scratch.get());
         } catch (Exception e) {
             logger.error("Recognition failed", e);
             return RecognitionResult.error(e.getMessage());
         }
     }
     
+    private RecognitionResult recognizePrepared(Mat prepared, RecognitionScratch buffers) throws SQLException {
+        // Predict
+        modelLock.readLock().lock();
+        try {
+            current.predict(prepared, buffers, confidenceThreshold);
+        } finally {
+            modelLock.readLock().unlock();
+        }
+        
+        int userId = buffers.label[0];
+        double conf = buffers.confidence[0];
+        
+        logger.debug("Recognition result: userId={}, confidence={}", userId, conf);
+        
+        // Check confidence threshold
+        if (conf > confidenceThreshold) {
+            logger.debug("Confidence {} exceeds threshold {} - unknown person", conf, confidenceThreshold);
+            return RecognitionResult.unknown(conf);
+        }
+        
+        return resolve(userId, conf);
+    }
+    
+    /**
+     * Turn a matched user id into a result: look the user up, then apply debouncing.
+     */
+    private RecognitionResult resolve(int userId, double conf) throws SQLException {
+        // Get user info (served from the identity cache on the hot path)
+        UserIdentity user = userDAO.findIdentityById(userId).orElse(null);
+        if (user == null) {
+            logger.warn("User ID {} not found in database", userId);
+            return RecognitionResult.unknown(conf);
+        }
+        if (!user.isActive()) {
+            logger.debug("User ID {} is deactivated - treating as unknown", userId);
+            return RecognitionResult.unknown(conf);
+        }
+        
+        // Check debouncing and mark as recently recognized in one step, so two
+        // faces of the same person recognized in parallel cannot both pass
+        if (!tryMarkRecognized(userId)) {
+            logger.debug("User {} debounced (recognized recently)", user.getFullName());
+            return RecognitionResult.debounced(userId, user.getFullName(), conf);
+        }
+        
+        logger.info("✅ Recognized: {} (confidence: {:.1f})", user.getFullName(), conf);
+        return RecognitionResult.recognized(userId, user.getFullName(), conf);
+    }
+    
+    /**
+     * The {@code k} most likely users for a face image, closest first. Only users
+     * with a sample within the confidence threshold are listed.
+     * 
+     * @param faceImage Face image (Mat in grayscale)
+     * @param k Maximum number of candidates
+     * @return Candidates with their distances (empty if untrained or no match)
+     */
+    public List<Candidate> predictTopK(Mat faceImage, int k) {
+        if (current == null || faceImage == null || faceImage.empty()) {
+            return Collections.emptyList();
+        }
+        
+        RecognitionScratch buffers = scratch.get();
+        return predictTopKPrepared(preprocessInto(faceImage, buffers), buffers, k);
+    }
+    
+    /**
+     * {@link #predictTopK} for an already preprocessed face (see {@link #preprocessFace}).
+     */
+    private List<Candidate> predictTopKPrepared(Mat prepared, int k) {
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return predictTopKPrepared(prepared, scratch.get(), k);
+    }
+    
+    private List<Candidate> predictTopKPrepared(Mat prepared, RecognitionScratch buffers, int k) {
+        int count;
+        modelLock.readLock().lock();
+        try {
+            count = current.predictTopK(prepared, buffers, confidenceThreshold, k);
+        } finally {
+            modelLock.readLock().unlock();
+        }
+        
+        List<Candidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            candidates.add(new Candidate(buffers.topLabels[i], buffers.topDistances[i]));
+        }
+        return candidates;
+    }
+    
     /**
      * Detect and recognize face from full image.
      * 
@@ -347,78 +747,449 @@ public class FaceRecognitionService {
     public RecognitionResult detectAndRecognize(Mat image) {
         try {
             // Detect faces
-            RectVector faces = new RectVector();
-            Mat gray = new Mat();
+            RecognitionScratch buffers = scratch.get();
+            Mat gray = toGray(image, buffers);
+            List<FaceTracker.Box> faces = detectFaces(gray, buffers);
             
-            if (image.channels() > 1) {
-                cvtColor(image, gray, COLOR_BGR2GRAY);
-            } else {
-                image.copyTo(gray);
+            if (faces.isEmpty()) {
+                logger.debug("No faces detected in image");
+                return RecognitionResult.noFace();
             }
             
-            faceDetector.detectMultiScale(gray, faces, 1.1, 3, 0, new Size(30, 30), new Size());
+            // Process first face only (cropped from the full-resolution frame)
+            return recognizeRegion(gray, toRect(faces.get(0)));
+            
+        } catch (Exception e) {
+            logger.error("Face detection failed", e);
+            return RecognitionResult.error(e.getMessage());
+        }
+    }
+    
+    /**
+     * Detect and recognize every face in a frame.
+     * 
+     * The first face is recognized on the calling thread and the remaining faces
+     * on the recognition worker pool, so a frame with several people costs roughly
+     * one prediction of wall time instead of one per face. At most
+     * {@code recognition.max.faces} faces (largest first) are recognized per frame.
+     * 
+     * @param image Full image (may contain multiple faces)
+     * @return One result per recognized face, each tagged with its bounding box;
+     *         an empty list if no face was found
+     */
+    public List<RecognitionResult> detectAndRecognizeAll(Mat image) {
+        try {
+            RecognitionScratch buffers = scratch.get();
+            Mat gray = toGray(image, buffers);
+            List<FaceTracker.Box> faces = detectFaces(gray, buffers);
             
-            if (faces.size() == 0) {
+            if (faces.isEmpty()) {
                 logger.debug("No faces detected in image");
-                return RecognitionResult.noFace();
+                return Collections.emptyList();
+            }
+            
+            // Largest faces are closest to the camera - recognize those first
+            if (faces.size() > maxFacesPerFrame) {
+                faces.sort((a, b) -> Integer.compare(b.area(), a.area()));
+                faces = faces.subList(0, maxFacesPerFrame);
             }
             
-            // Process first face only
-            Rect faceRect = faces.get(0);
-            Mat faceImage = new Mat(gray, faceRect);
+            List<Rect> faceRects = new ArrayList<>(faces.size());
+            for (FaceTracker.Box face : faces) {
+                faceRects.add(toRect(face));
+            }
             
-            return recognize(faceImage);
+            return recognizeRegions(gray, faceRects);
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
         } catch (Exception e) {
             logger.error("Face detection failed", e);
-            return RecognitionResult.error(e.getMessage());
+            return List.of(RecognitionResult.error(e.getMessage()));
         }
     }
     
     /**
-     * Check if user was recognized recently (debouncing).
+     * Detect and recognize faces with a {@link FaceTracker}.
+     * 
+     * The whole frame is searched only when the tracker asks for it; otherwise
+     * only small regions around the tracked faces are. Only tracks that need it
+     * are recognized (in parallel, as in {@link #detectAndRecognizeAll}). The
+     * other tracks report their earlier result, with a recognition turned into
+     * {@code DEBOUNCED}, so a person is shown every frame but logged only once.
+     * 
+     * @param image Full frame
+     * @param tracker Tracker of the camera the frame came from
+     * @return One result per face seen in this frame, largest first
      */
-    private boolean isRecentlyRecognized(int userId) {
-        LocalDateTime lastTime = recentRecognitions.get(userId);
-        if (lastTime == null) {
-            return false;
-        }
-        
-        long millisSince = ChronoUnit.MILLIS.between(lastTime, LocalDateTime.now());
-        return millisSince < debounceMs;
+    public List<RecognitionResult> detectAndRecognizeTracked(Mat image, FaceTracker tracker) {
+        return detectAndRecognizeTracked(image, tracker, null);
     }
     
     /**
-     * Clear debounce cache for a user (e.g., after manual logout).
+     * As {@link #detectAndRecognizeTracked(Mat, FaceTracker)}, with full-frame
+     * detection limited to the region that moved (see {@link #detect(Mat, FaceTracker, FaceTracker.Box)}).
      */
-    public void clearDebounce(int userId) {
-        recentRecognitions.remove(userId);
-        logger.debug("Cleared debounce for user {}", userId);
+    public List<RecognitionResult> detectAndRecognizeTracked(Mat image, FaceTracker tracker, FaceTracker.Box motion) {
+        try (DetectedFrame detected = detect(image, tracker, motion)) {
+            return recognize(detected, tracker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (Exception e) {
+            logger.error("Tracked face detection failed", e);
+            return List.of(RecognitionResult.error(e.getMessage()));
+        }
     }
     
     /**
-     * Clear all debounce cache.
+     * Detection stage: find the faces of a frame and crop and preprocess every
+     * face that needs a prediction. The result owns its crops and does not refer
+     * to {@code image}, so it can be handed to another thread.
+     * 
+     * @param image Full frame
+     * @param tracker Tracker of the camera, or null to predict every face (largest first)
      */
-    public void clearAllDebounce() {
-        recentRecognitions.clear();
-        logger.debug("Cleared all debounce cache");
+    public DetectedFrame detect(Mat image, FaceTracker tracker) {
+        return detect(image, tracker, null);
     }
     
     /**
-     * Preprocess face for recognition (grayscale, resize, equalize).
+     * Detection stage with a motion hint: a full-frame search only looks inside
+     * {@code motion} (plus the search regions of tracked faces, so faces standing
+     * still are not lost), which on a quiet entrance is a small part of the frame.
+     * 
+     * @param motion Region that moved since the last frame ({@link MotionDetector}),
+     *               or null to search the whole frame
      */
-    private Mat preprocessFace(Mat face) {
-        Mat processed = new Mat();
+    public DetectedFrame detect(Mat image, FaceTracker tracker, FaceTracker.Box motion) {
+        RecognitionScratch buffers = scratch.get();
+        Mat gray = toGray(image, buffers);
+        long modelVersion = getModelVersion();
+        DetectedFrame detected;
         
-        // Ensure grayscale
-        if (face.channels() > 1) {
-            cvtColor(face, processed, COLOR_BGR2GRAY);
-        } else {
-            face.copyTo(processed);
+        if (tracker == null) {
+            List<FaceTracker.Box> faces = detectFaces(gray, motion, buffers);
+            faces.sort((a, b) -> Integer.compare(b.area(), a.area()));
+            detected = new DetectedFrame(modelVersion, true);
+            for (FaceTracker.Box face : faces.subList(0, Math.min(faces.size(), maxFacesPerFrame))) {
+                detected.add(null, face, crop(gray, face));
+            }
+            return detected;
+        }
+        
+        boolean fullDetection = tracker.isFullDetectionDue();
+        if (fullDetection && motion != null) {
+            for (FaceTracker.Box region : tracker.searchRegions(gray.cols(), gray.rows())) {
+                motion = motion.union(region);
+            }
+        }
+        List<FaceTracker.Box> detections = fullDetection
+            ? detectFaces(gray, motion, buffers)
+            : detectAround(gray, tracker.searchRegions(gray.cols(), gray.rows()), buffers);
+        
+        List<FaceTracker.Track> tracks = tracker.update(detections, fullDetection);
+        detected = new DetectedFrame(modelVersion, fullDetection);
+        for (FaceTracker.Track track : tracks.subList(0, Math.min(tracks.size(), maxFacesPerFrame))) {
+            FaceTracker.Box box = track.getBox();
+            boolean stale = tracker.needsRecognition(track, modelVersion, confidenceThreshold);
+            detected.add(track, box, stale ? crop(gray, box) : null);
+        }
+        return detected;
+    }
+    
+    /**
+     * Recognition stage: predict the cropped faces of a detected frame (in
+     * parallel), vote for tracked faces, and report every face of the frame.
+     * 
+     * @param detected Output of {@link #detect}
+     * @param tracker The tracker passed to {@link #detect}, or null
+     * @return One result per face, tagged with its bounding box
+     */
+    public List<RecognitionResult> recognize(DetectedFrame detected, FaceTracker tracker) throws InterruptedException {
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < detected.size(); i++) {
+            if (detected.crops.get(i) != null) {
+                pending.add(i);
+            }
+        }
+        
+        RecognitionResult[] fresh = new RecognitionResult[detected.size()];
+        if (tracker == null) {
+            List<RecognitionResult> results = fanOut.map(pending,
+                i -> recognizePrepared(detected.crops.get(i)),
+                failure -> RecognitionResult.error(String.valueOf(failure.getMessage())));
+            for (int p = 0; p < pending.size(); p++) {
+                fresh[pending.get(p)] = results.get(p);
+            }
+        } else if (!pending.isEmpty()) {
+            List<List<Candidate>> predictions = fanOut.map(pending,
+                i -> predictTopKPrepared(detected.crops.get(i), topK),
+                failure -> Collections.emptyList());
+            for (int p = 0; p < pending.size(); p++) {
+                FaceTracker.Track track = detected.tracks.get(pending.get(p));
+                RecognitionResult result = applyVote(tracker, track, predictions.get(p));
+                tracker.recordRecognition(track, result, detected.modelVersion);
+                fresh[pending.get(p)] = result;
+            }
+            logger.debug("Predicted {} of {} tracked faces (full detection: {})",
+                pending.size(), detected.size(), detected.fullDetection);
+        }
+        
+        List<RecognitionResult> results = new ArrayList<>(detected.size());
+        for (int i = 0; i < detected.size(); i++) {
+            RecognitionResult result = fresh[i];
+            if (result == null) {
+                result = detected.tracks.get(i).getResult();
+                if (result == null) {
+                    continue; // first prediction still in flight for the previous frame
+                }
+                if (result.getStatus() == RecognitionResult.Status.RECOGNIZED) {
+                    result = RecognitionResult.debounced(result.getUserId(), result.getUserName(),
+                        result.getConfidence());
+                }
+            }
+            results.add(result.withFaceRect(toRect(detected.boxes.get(i))));
+        }
+        return results;
+    }
+    
+    /**
+     * Crop a face from the full-resolution gray frame and preprocess it into a new Mat.
+     */
+    private static Mat crop(Mat gray, FaceTracker.Box box) {
+        try (Rect rect = toRect(box);
+             Mat face = new Mat(gray, rect)) {
+            return preprocessFace(face);
+        }
+    }
+    
+    /**
+     * Cast this frame's vote for a track and derive its result.
+     * 
+     * The best candidate only counts as a vote when it is clearly ahead of the
+     * runner-up (a lookalike within {@code recognition.voting.margin} abstains).
+     * The user is looked up and logged only once the tracker confirms the
+     * identity; until then the face shows as VERIFYING. A confirmed face whose
+     * recheck agrees keeps its identity without another lookup.
+     */
+    private RecognitionResult applyVote(FaceTracker tracker, FaceTracker.Track track, List<Candidate> candidates) {
+        Candidate best = candidates.isEmpty() ? null : candidates.get(0);
+        boolean clearWinner = best != null && (candidates.size() < 2
+            || candidates.get(1).distance() >= best.distance() * (1 + votingMargin));
+        int vote = clearWinner ? best.userId() : -1;
+        
+        boolean wasConfirmed = tracker.isConfirmed(track);
+        int confirmed = tracker.vote(track, vote);
+        if (confirmed >= 0) {
+            RecognitionResult previous = track.getResult();
+            if (wasConfirmed && previous != null && previous.getUserId() != null && previous.getUserId() == confirmed) {
+                return RecognitionResult.debounced(confirmed, previous.getUserName(), best.distance());
+            }
+            try {
+                return resolve(confirmed, best.distance());
+            } catch (SQLException e) {
+                logger.error("User lookup failed for confirmed user {}", confirmed, e);
+                return RecognitionResult.error(e.getMessage());
+            }
+        }
+        if (tracker.isVoting(track)) {
+            return RecognitionResult.verifying(vote >= 0 ? vote : best != null ? best.userId() : -1,
+                best != null ? best.distance() : 0.0);
+        }
+        return best == null ? RecognitionResult.unknown(Double.MAX_VALUE) : RecognitionResult.lowConfidence(best.distance());
+    }
+    
+    /**
+     * Full-frame face detection, in frame coordinates.
+     * 
+     * Frames wider than {@code recognition.detection.max.width} are searched on a
+     * downscaled copy (e.g. 0.5x for 1280x720 at the default 640) and the boxes
+     * are mapped back, so a high-resolution camera costs about as much to scan as
+     * a VGA one. Faces are still cropped from the full-resolution frame. The
+     * minimum face size applies to the downscaled copy.
+     */
+    private List<FaceTracker.Box> detectFaces(Mat gray, RecognitionScratch buffers) {
+        double scale = detectionMaxWidth > 0 && gray.cols() > detectionMaxWidth
+            ? (double) detectionMaxWidth / gray.cols() : 1.0;
+        Mat target = gray;
+        if (scale < 1.0) {
+            int width = (int) Math.round(gray.cols() * scale);
+            int height = (int) Math.round(gray.rows() * scale);
+            try (Size size = new Size(width, height)) {
+                resize(gray, buffers.detectionGray, size, 0, 0, INTER_AREA);
+            }
+            target = buffers.detectionGray;
+        }
+        
+        RectVector faces = buffers.faces;
+        detector().detectMultiScale(target, faces, 1.1, 3, 0, MIN_DETECTION_SIZE, MAX_DETECTION_SIZE);
+        List<FaceTracker.Box> boxes = new ArrayList<>((int) faces.size());
+        for (long i = 0; i < faces.size(); i++) {
+            Rect face = faces.get(i);
+            boxes.add(toFrame(face.x(), face.y(), face.width(), face.height(), scale, gray));
+        }
+        return boxes;
+    }
+    
+    /**
+     * Face detection limited to a region of the frame (the whole frame when
+     * {@code region} is null or covers it). Boxes are in frame coordinates.
+     */
+    private List<FaceTracker.Box> detectFaces(Mat gray, FaceTracker.Box region, RecognitionScratch buffers) {
+        if (region == null || region.area() >= gray.cols() * gray.rows()) {
+            return detectFaces(gray, buffers);
+        }
+        if (region.width() < MIN_DETECTION_SIZE.width() || region.height() < MIN_DETECTION_SIZE.height()) {
+            return new ArrayList<>();
+        }
+        List<FaceTracker.Box> boxes = new ArrayList<>();
+        try (Rect roi = toRect(region);
+             Mat view = new Mat(gray, roi)) {
+            for (FaceTracker.Box face : detectFaces(view, buffers)) {
+                boxes.add(face.shift(region.x(), region.y()));
+            }
+        }
+        return boxes;
+    }
+    
+    /**
+     * Map a box found on a copy downscaled by {@code scale} back to the frame,
+     * clipped to the frame bounds.
+     */
+    private static FaceTracker.Box toFrame(int x, int y, int width, int height, double scale, Mat frame) {
+        if (scale == 1.0) {
+            return new FaceTracker.Box(x, y, width, height);
+        }
+        int left = Math.min(frame.cols() - 1, (int) Math.round(x / scale));
+        int top = Math.min(frame.rows() - 1, (int) Math.round(y / scale));
+        int right = Math.min(frame.cols(), (int) Math.round((x + width) / scale));
+        int bottom = Math.min(frame.rows(), (int) Math.round((y + height) / scale));
+        return new FaceTracker.Box(left, top, Math.max(1, right - left), Math.max(1, bottom - top));
+    }
+    
+    /**
+     * Face detection restricted to search regions around tracked faces. Each region
+     * only looks for faces between a quarter of and the full region width, so it
+     * costs a small fraction of a full-frame pass. Boxes are in frame coordinates.
+     */
+    private List<FaceTracker.Box> detectAround(Mat gray, List<FaceTracker.Box> regions, RecognitionScratch buffers) {
+        RectVector faces = buffers.faces;
+        List<FaceTracker.Box> boxes = new ArrayList<>();
+        for (FaceTracker.Box region : regions) {
+            int minSide = Math.max(MIN_DETECTION_SIZE.width(), region.width() / 4);
+            if (region.width() < minSide || region.height() < minSide) {
+                continue;
+            }
+            try (Rect roi = toRect(region);
+                 Mat view = new Mat(gray, roi);
+                 Size minSize = new Size(minSide, minSide);
+                 Size maxSize = new Size(region.width(), region.height())) {
+                detector().detectMultiScale(view, faces, 1.1, 3, 0, minSize, maxSize);
+                for (long i = 0; i < faces.size(); i++) {
+                    Rect face = faces.get(i);
+                    boxes.add(new FaceTracker.Box(region.x() + face.x(), region.y() + face.y(),
+                        face.width(), face.height()));
+                }
+            }
+        }
+        return boxes;
+    }
+    
+    private static Rect toRect(FaceTracker.Box box) {
+        return new Rect(box.x(), box.y(), box.width(), box.height());
+    }
+    
+    /**
+     * Recognize several face regions of one frame. Results are in input order.
+     */
+    private List<RecognitionResult> recognizeRegions(Mat gray, List<Rect> faceRects) throws InterruptedException {
+        return fanOut.map(faceRects, faceRect -> recognizeRegion(gray, faceRect),
+            failure -> RecognitionResult.error(String.valueOf(failure.getMessage())));
+    }
+    
+    /**
+     * Recognize the face inside {@code faceRect} of a grayscale frame.
+     * The ROI is a header-only view and is released as soon as we are done.
+     */
+    private RecognitionResult recognizeRegion(Mat gray, Rect faceRect) {
+        try (Mat faceImage = new Mat(gray, faceRect)) {
+            return recognize(faceImage).withFaceRect(faceRect);
+        }
+    }
+    
+    /**
+     * The calling thread's face detector.
+     */
+    private CascadeClassifier detector() {
+        return CascadeRegistry.get(cascadePath);
+    }
+    
+    /**
+     * Convert a frame to a single-channel image for detection.
+     * Grayscale input is used as-is; color input is converted into the scratch buffer.
+     */
+    private Mat toGray(Mat image, RecognitionScratch buffers) {
+        if (image.channels() > 1) {
+            cvtColor(image, buffers.frameGray, COLOR_BGR2GRAY);
+            return buffers.frameGray;
+        }
+        return image;
+    }
+    
+    /**
+     * Limit the per-face worker pool. Used when recognition already runs on a
+     * shared worker pool ({@link CameraManager}) so that the two together stay
+     * within the CPU count; 0 recognizes every face on the calling thread.
+     */
+    public void setRecognitionWorkers(int workers) {
+        fanOut.setWorkers(workers);
+        int count = fanOut.getWorkers();
+        logger.info("Recognition workers per frame: {}", count == 0 ? "none (calling thread only)" : count);
+    }
+    
+    /**
+     * Atomically check the debounce window and mark the user as recognized.
+     * 
+     * @return true if the user was not recognized within the debounce window
+     */
+    private boolean tryMarkRecognized(int userId) {
+        return recentRecognitions.tryMark(userId);
+    }
+    
+    /**
+     * Clear debounce cache for a user (e.g., after manual logout).
+     */
+    public void clearDebounce(int userId) {
+        recentRecognitions.clear(userId);
+        logger.debug("Cleared debounce for user {}", userId);
+    }
+    
+    /**
+     * Clear all debounce cache.
+     */
+    public void clearAllDebounce() {
+        recentRecognitions.clearAll();
+        logger.debug("Cleared all debounce cache");
+    }
+    
+    /**
+     * Preprocess face for recognition (grayscale, resize, equalize).
+     * Returns a new Mat; shared with the training loaders.
+     */
+    public static Mat preprocessFace(Mat face) {
+        Mat processed = new Mat();
+        
+        // Ensure grayscale
+        if (face.channels() > 1) {
+            cvtColor(face, processed, COLOR_BGR2GRAY);
+        } else {
+            face.copyTo(processed);
         }
         
         // Resize to standard size
-        resize(processed, processed, new Size(FACE_SIZE, FACE_SIZE));
+        resize(processed, processed, FACE_DIMENSIONS);
         
         // Histogram equalization (improves lighting consistency)
         equalizeHist(processed, processed);
@@ -427,56 +1198,511 @@ public class FaceRecognitionService {
     }
     
     /**
-     * Add a new person to the recognizer (requires retraining).
+     * Same preprocessing as {@link #preprocessFace(Mat)}, but writes into the
+     * caller's reusable buffers instead of allocating a new Mat.
+     */
+    private Mat preprocessInto(Mat face, RecognitionScratch buffers) {
+        Mat source = face;
+        if (face.channels() > 1) {
+            cvtColor(face, buffers.faceGray, COLOR_BGR2GRAY);
+            source = buffers.faceGray;
+        }
+        
+        resize(source, buffers.prepared, FACE_DIMENSIONS);
+        equalizeHist(buffers.prepared, buffers.prepared);
+        return buffers.prepared;
+    }
+    
+    /**
+     * Add face samples for a person to the recognizer without retraining.
+     * 
+     * Uses {@code LBPHFaceRecognizer.update}, so the cost is proportional to the
+     * number of new images, not to the size of the enrolled population.
      * 
      * @param userId User ID
      * @param faceImages List of face images for the user
+     * @return Number of samples added
+     */
+    public synchronized int addPerson(int userId, List<Mat> faceImages) {
+        if (faceImages == null || faceImages.isEmpty()) {
+            logger.warn("No face images supplied for user {}", userId);
+            return 0;
+        }
+        
+        List<Mat> prepared = new ArrayList<>(faceImages.size());
+        try {
+            for (Mat face : faceImages) {
+                prepared.add(preprocessFace(face));
+            }
+            return appendSamples(userId, prepared);
+        } finally {
+            prepared.forEach(Mat::release);
+        }
+    }
+    
+    /**
+     * Append already preprocessed samples for a user via LBPH update().
      */
-    public void addPerson(int userId, List<Mat> faceImages) {
-        // TODO: Implement incremental training or trigger full retrain
-        logger.info("Adding person {} with {} face images", userId, faceImages.size());
-        // For now, user must retrain from directory
+    private synchronized int appendSamples(int userId, List<Mat> prepared) {
+        ModelGeneration model = currentOrEmpty();
+        if (binaryModelFormat) {
+            return appendToGallery(model, userId, prepared);
+        }
+        
+        int label = model.activeLabelFor(userId);
+        logger.info("Adding person {} with {} face images (label {})", userId, prepared.size(), label);
+        
+        try (MatVector facesVector = new MatVector(prepared.size());
+             Mat labelsMat = new Mat(prepared.size(), 1, org.bytedeco.opencv.global.opencv_core.CV_32SC1)) {
+            for (int i = 0; i < prepared.size(); i++) {
+                facesVector.put(i, prepared.get(i));
+                labelsMat.ptr(i).putInt(label);
+            }
+            
+            modelLock.writeLock().lock();
+            try {
+                model.recognizer.update(facesVector, labelsMat);
+                model.sampleCount += prepared.size();
+            } finally {
+                modelLock.writeLock().unlock();
+            }
+        }
+        
+        logger.info("✅ Enrolled user {} incrementally ({} samples in model)", userId, model.sampleCount);
+        return prepared.size();
     }
     
     /**
-     * Save trained model to file.
+     * Binary-format counterpart of {@link #appendSamples}: histograms are computed
+     * in Java and appended to the gallery overlay.
      */
-    public void saveModel(String filepath) {
-        if (!isTrained) {
-            logger.warn("Cannot save untrained model");
+    private int appendToGallery(ModelGeneration model, int userId, List<Mat> prepared) {
+        LbphModel gallery = model.gallery;
+        LbphHistogramExtractor extractor = gallery.newExtractor();
+        List<float[]> histograms = new ArrayList<>(prepared.size());
+        byte[] pixels = new byte[FACE_SIZE * FACE_SIZE];
+        for (Mat face : prepared) {
+            float[] histogram = new float[gallery.getHistogramLength()];
+            face.data().get(pixels, 0, pixels.length);
+            extractor.extract(pixels, FACE_SIZE, FACE_SIZE, histogram);
+            histograms.add(histogram);
+        }
+        
+        modelLock.writeLock().lock();
+        try {
+            for (float[] histogram : histograms) {
+                gallery.add(userId, histogram);
+            }
+            model.sampleCount = gallery.size();
+        } finally {
+            modelLock.writeLock().unlock();
+        }
+        
+        logger.info("✅ Enrolled user {} incrementally ({} samples in model)", userId, model.sampleCount);
+        return prepared.size();
+    }
+    
+    /**
+     * Replace all samples of a person with new ones (e.g. after re-registration).
+     * 
+     * @return Number of samples added
+     */
+    public synchronized int replacePerson(int userId, List<Mat> faceImages) {
+        removePerson(userId);
+        return addPerson(userId, faceImages);
+    }
+    
+    /**
+     * Remove a person from the recognizer. Their samples are retired immediately
+     * (never matched again) and physically dropped on the next full retrain.
+     */
+    public synchronized void removePerson(int userId) {
+        ModelGeneration model = current;
+        if (model == null) {
             return;
         }
         
+        modelLock.writeLock().lock();
+        try {
+            if (model.gallery != null) {
+                model.gallery.remove(userId);
+                model.sampleCount = model.gallery.size();
+            } else {
+                model.retireUser(userId);
+            }
+        } finally {
+            modelLock.writeLock().unlock();
+        }
+        logger.info("Retired face samples for user {}", userId);
+    }
+    
+    /**
+     * Enroll (or re-enroll) one user from their face image directory.
+     * 
+     * @param userId User ID
+     * @param userDirectory Directory containing only this user's face images
+     * @return Number of samples added
+     */
+    public int enrollFromDirectory(int userId, String userDirectory) {
+        return enrollFromDirectory(userId, userDirectory, null);
+    }
+    
+    /**
+     * Enroll (or re-enroll) one user from their face image directory, reporting load progress.
+     */
+    public int enrollFromDirectory(int userId, String userDirectory, TrainingSetLoader.ProgressListener listener) {
+        try (TrainingSetLoader.TrainingSet trainingSet =
+                 trainingSetLoader.loadUser(userId, new File(userDirectory), listener)) {
+            if (trainingSet.isEmpty()) {
+                logger.warn("No face images found for user {} in {}", userId, userDirectory);
+                return 0;
+            }
+            
+            synchronized (this) {
+                removePerson(userId);
+                return appendSamples(userId, trainingSet.getFaces());
+            }
+        }
+    }
+    
+    /**
+     * Create an empty model generation with this service's LBPH parameters.
+     */
+    private ModelGeneration newGeneration() {
+        LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create(
+            1,      // radius
+            8,      // neighbors
+            8,      // grid_x
+            8,      // grid_y
+            confidenceThreshold  // threshold
+        );
+        return new ModelGeneration(modelVersions.incrementAndGet(), recognizer);
+    }
+    
+    /**
+     * Current generation, or a new empty one if nothing was trained or loaded yet.
+     */
+    private synchronized ModelGeneration currentOrEmpty() {
+        ModelGeneration model = current;
+        if (model == null) {
+            model = newGeneration();
+            if (binaryModelFormat) {
+                model.gallery = LbphModel.create(model.recognizer.getRadius(), model.recognizer.getNeighbors(),
+                    model.recognizer.getGridX(), model.recognizer.getGridY());
+            }
+            publish(model);
+        }
+        return model;
+    }
+    
+    /**
+     * Make {@code next} the model used for recognition. The write lock is held only
+     * for the reference swap, so in-flight predictions finish on the old model and
+     * every later one sees the new model.
+     */
+    private synchronized void publish(ModelGeneration next) {
+        ModelGeneration previous;
+        modelLock.writeLock().lock();
+        try {
+            previous = current;
+            current = next;
+        } finally {
+            modelLock.writeLock().unlock();
+        }
+        
+        if (previous != null) {
+            previous.close();
+        }
+        logger.info("Model version {} active ({} samples)", next.version, next.sampleCount);
+        scheduleIndexBuild(next);
+    }
+    
+    /**
+     * Build the approximate nearest-neighbour index for a large gallery in the
+     * background. Until it is ready, predictions use the exact scan.
+     */
+    private void scheduleIndexBuild(ModelGeneration model) {
+        LbphModel gallery = model.gallery;
+        if (!indexEnabled || gallery == null) {
+            return;
+        }
+        
+        // addFace/removeUser change the gallery under the write lock, so snapshot it under the read lock
+        LbphModel.Snapshot snapshot;
+        modelLock.readLock().lock();
+        try {
+            if (gallery.size() < indexMinSamples) {
+                return;
+            }
+            snapshot = gallery.snapshot();
+        } finally {
+            modelLock.readLock().unlock();
+        }
+        
+        Thread builder = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                GalleryIndex index = gallery.buildIndex(snapshot, GalleryIndex.Settings.fromConfig());
+                logger.info("✅ Gallery index ready for model version {} ({} samples, {} ms)",
+                    model.version, index.size(), (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                if (current != model) {
+                    logger.debug("Model version {} retired before its index was built", model.version);
+                } else {
+                    logger.error("Failed to build gallery index (exact scan stays in use)", e);
+                }
+            }
+        }, "FaceRecognition-IndexBuilder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+    
+    /**
+     * Save trained model to file.
+     * 
+     * In binary mode the model is written next to {@code filepath} with the
+     * {@link LbphModel#FILE_EXTENSION} extension instead of as OpenCV XML, as a new
+     * numbered version (the loaded one may still be mapped, here or in a watching
+     * process). Both formats are written to a temporary file and renamed into
+     * place, so readers never see a half-written model.
+     */
+    public void saveModel(String filepath) {
+        // Read lock keeps the generation from being swapped out and closed mid-save
+        modelLock.readLock().lock();
         try {
-            recognizer.save(filepath);
-            logger.info("✅ Model saved to: {}", filepath);
+            ModelGeneration model = current;
+            if (model == null) {
+                logger.warn("Cannot save untrained model");
+                return;
+            }
+            
+            if (model.gallery != null) {
+                Path binaryPath = LbphModel.binaryPathFor(filepath);
+                Path saved = model.gallery.writeNextVersion(binaryPath, modelHistogramType);
+                ownModelWriteTime = Files.getLastModifiedTime(saved).toMillis();
+                logger.info("✅ Model saved to: {} ({} samples, {} KB)",
+                    saved, model.gallery.size(), Files.size(saved) / 1024);
+                LbphModel.deleteOlderVersions(binaryPath, saved);
+            } else {
+                Path target = Path.of(filepath).toAbsolutePath();
+                Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp.xml");
+                try {
+                    model.recognizer.save(temp.toString());
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    ownModelWriteTime = Files.getLastModifiedTime(target).toMillis();
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                logger.info("✅ Model saved to: {}", filepath);
+            }
         } catch (Exception e) {
             logger.error("Failed to save model", e);
+        } finally {
+            modelLock.readLock().unlock();
         }
     }
     
     /**
      * Load trained model from file.
+     * 
+     * The model is loaded off to the side and swapped in, so this can be called
+     * while recognition is running. In binary mode the newest binary version of
+     * {@code filepath} is memory-mapped when there is one and the XML model is not
+     * newer; the generation it replaces is unmapped. An XML model read instead
+     * (e.g. just retrained by {@link com.icefx.util.ModelTrainer}) is converted and
+     * saved as binary, so later starts take the fast path.
      */
     public void loadModel(String filepath) {
+        Path binaryPath = LbphModel.binaryPathFor(filepath);
+        ModelGeneration loaded = newGeneration();
+        boolean published = false;
         try {
-            recognizer.read(filepath);
-            isTrained = true;
-            logger.info("✅ Model loaded from: {}", filepath);
+            long start = System.nanoTime();
+            boolean convert = false;
+            
+            Path newest = newestModelFile(filepath);
+            Path latest = newest != null && LbphModel.versionOf(binaryPath, newest) >= 0 ? newest : null;
+            if (latest != null) {
+                loaded.gallery = LbphModel.map(latest);
+                loaded.sampleCount = loaded.gallery.size();
+            } else {
+                loaded.recognizer.read(filepath);
+                loaded.loadLabelBookkeeping();
+                if (binaryModelFormat) {
+                    loaded.convertToGallery();
+                    convert = true;
+                }
+            }
+            
+            publish(loaded);
+            published = true;
+            logger.info("✅ Model loaded from: {} ({} samples in {} ms)",
+                latest != null ? latest : filepath,
+                loaded.sampleCount, (System.nanoTime() - start) / 1_000_000);
+            
+            if (latest != null) {
+                // Versions this process had mapped are unmapped now
+                LbphModel.deleteOlderVersions(binaryPath, latest);
+            } else if (convert) {
+                logger.info("Converting XML model to binary format: {}", binaryPath);
+                saveModel(filepath);
+            }
         } catch (Exception e) {
             logger.error("Failed to load model", e);
-            isTrained = false;
+            if (!published) {
+                loaded.close();
+            }
+        }
+    }
+    
+    /**
+     * The saved model {@link #loadModel} reads: the newest binary version, unless the
+     * XML model was written after it. Null if neither exists.
+     */
+    private Path newestModelFile(String filepath) throws IOException {
+        Path xml = Path.of(filepath);
+        Path latest = binaryModelFormat ? LbphModel.latestVersion(LbphModel.binaryPathFor(filepath)) : null;
+        if (!Files.exists(xml)) {
+            return latest;
+        }
+        if (latest == null
+                || Files.getLastModifiedTime(xml).compareTo(Files.getLastModifiedTime(latest)) > 0) {
+            return xml;
+        }
+        return latest;
+    }
+    
+    /**
+     * Whether a saved model exists for {@code filepath} (XML or its binary sibling).
+     */
+    public static boolean modelExists(String filepath) {
+        try {
+            return new File(filepath).exists() || LbphModel.latestVersion(LbphModel.binaryPathFor(filepath)) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Reload the model whenever {@code filepath} is replaced (or a new binary
+     * version of it is saved) by another process, e.g. the registration station after enrolling someone.
+     * Saves made by this service are ignored. Replaces any previous watch.
+     */
+    public synchronized void watchModelFile(String filepath) {
+        stopWatchingModelFile();
+        
+        Path modelFile = Path.of(filepath).toAbsolutePath();
+        Path directory = modelFile.getParent();
+        Path binaryPath = LbphModel.binaryPathFor(modelFile.toString());
+        Predicate<Path> watchedNames = name -> name.equals(modelFile.getFileName())
+            || LbphModel.versionOf(binaryPath, name) >= 0;
+        
+        try {
+            WatchService watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+            
+            Thread watcher = new Thread(() -> watchLoop(watchService, filepath, watchedNames),
+                "FaceRecognition-ModelWatcher");
+            watcher.setDaemon(true);
+            modelWatchService = watchService;
+            modelWatcher = watcher;
+            watcher.start();
+            logger.info("Watching model file for changes: {}", modelFile);
+        } catch (IOException e) {
+            logger.warn("Cannot watch model file {}: {}", modelFile, e.getMessage());
+        }
+    }
+    
+    /**
+     * Stop watching the model file (no-op if not watching).
+     */
+    public synchronized void stopWatchingModelFile() {
+        WatchService watchService = modelWatchService;
+        modelWatchService = null;
+        modelWatcher = null;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Error closing model watcher", e);
+            }
+        }
+    }
+    
+    private void watchLoop(WatchService watchService, String filepath, Predicate<Path> watchedNames) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (watchedNames.test((Path) event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+                
+                // Let the writer finish and collapse the burst of events it produced
+                Thread.sleep(MODEL_RELOAD_SETTLE_MS);
+                while ((key = watchService.poll()) != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                
+                if (isOwnModelWrite(filepath)) {
+                    continue;
+                }
+                logger.info("Model file changed on disk, reloading: {}", filepath);
+                loadModel(filepath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // stopWatchingModelFile()
+        }
+    }
+    
+    private boolean isOwnModelWrite(String filepath) {
+        try {
+            Path saved = newestModelFile(filepath);
+            return saved != null && Files.getLastModifiedTime(saved).toMillis() == ownModelWriteTime;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Stop the recognition worker pool. Call this when the owning view closes.
+     */
+    public void shutdown() {
+        if (fanOut.shutdown()) {
+            logger.info("Recognition worker pool stopped");
         }
+        stopWatchingModelFile();
+        logger.info("Debounce checks: {} suppressed, {} passed ({} users tracked)",
+            recentRecognitions.getHits(), recentRecognitions.getMisses(), recentRecognitions.size());
     }
     
     // === Getters ===
     
     public boolean isTrained() {
-        return isTrained;
+        return current != null;
     }
     
     public int getTrainedFacesCount() {
-        return trainedFacesCount;
+        ModelGeneration model = current;
+        return model != null ? model.sampleCount : 0;
+    }
+    
+    /**
+     * Version of the active model (increases on every train/load; 0 if none).
+     */
+    public long getModelVersion() {
+        ModelGeneration model = current;
+        return model != null ? model.version : 0;
     }
     
     public double getConfidenceThreshold() {
@@ -486,4 +1712,15 @@ public class FaceRecognitionService {
     public long getDebounceMs() {
         return debounceMs;
     }
+    
+    /**
+     * Debounce checks that suppressed a recognition (hits) and that let one through (misses).
+     */
+    public long getDebounceHits() {
+        return recentRecognitions.getHits();
+    }
+    
+    public long getDebounceMisses() {
+        return recentRecognitions.getMisses();
+    }
 }
@@ -2,7 +2,6 @@ package com.icefx.service;
 
 import com.icefx.model.User;
 import org.bytedeco.opencv.opencv_core.*;
-import org.bytedeco.opencv.opencv_objdetect.CascadeClassifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,8 +48,8 @@ public class FaceRegistrationService {
     // Base directory for storing face images
     private final String facesBaseDirectory;
     
-    // Face detector for quality validation
-    private final CascadeClassifier faceDetector;
+    // Face detector for quality validation (per-thread instances from CascadeRegistry)
+    private final String cascadePath;
     
     /**
      * Capture angle guidance for users
@@ -117,39 +116,10 @@ public class FaceRegistrationService {
     public FaceRegistrationService(String facesBaseDirectory, String cascadePath) {
         this.facesBaseDirectory = facesBaseDirectory;
         
-        // Initialize face detector - load from resources
+        // Validate the cascade now (extracted and parsed once per process and thread)
         logger.info("Initializing face detector with cascade: {}", cascadePath);
-        
-        // Try to load from resources first
-        String actualPath = cascadePath;
-        if (cascadePath.startsWith("/")) {
-            // Resource path - need to extract to temp file
-            try {
-                java.io.InputStream is = getClass().getResourceAsStream(cascadePath);
-                if (is == null) {
-                    throw new IllegalStateException("Cascade file not found in resources: " + cascadePath);
-                }
-                
-                // Create temp file
-                java.io.File tempFile = java.io.File.createTempFile("cascade", ".xml");
-                tempFile.deleteOnExit();
-                
-                // Copy resource to temp file
-                java.nio.file.Files.copy(is, tempFile.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                is.close();
-                
-                actualPath = tempFile.getAbsolutePath();
-                logger.info("Extracted cascade to temp file: {}", actualPath);
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to load cascade from resources: " + cascadePath, e);
-            }
-        }
-        
-        this.faceDetector = new CascadeClassifier(actualPath);
-        
-        if (faceDetector.empty()) {
-            throw new IllegalStateException("Failed to load cascade classifier from: " + actualPath);
-        }
+        this.cascadePath = cascadePath;
+        CascadeRegistry.get(cascadePath);
         
         // Ensure base directory exists
         try {
@@ -182,7 +152,7 @@ public class FaceRegistrationService {
             
             // Detect faces
             RectVector faces = new RectVector();
-            faceDetector.detectMultiScale(gray, faces, 1.1, 3, 0, 
+            CascadeRegistry.get(cascadePath).detectMultiScale(gray, faces, 1.1, 3, 0, 
                 new Size(MIN_FACE_SIZE, MIN_FACE_SIZE), 
                 new Size(MAX_FACE_SIZE, MAX_FACE_SIZE));
             
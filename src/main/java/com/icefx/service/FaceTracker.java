@@ -0,0 +1,428 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lightweight multi-face tracker between detection and recognition.
+ *
+ * Faces are associated frame to frame by bounding-box overlap (IoU) and get a
+ * short-lived track id. Full-frame detection only runs every
+ * {@code recognition.tracking.detect.interval} frames; in between, the caller
+ * searches small regions around each track's predicted position
+ * ({@link #searchRegions}). A track keeps its recognition result and is only
+ * re-recognized when it is new, was not identified or only weakly matched,
+ * moved away from where it was recognized, or the model changed.
+ *
+ * Each prediction casts a vote for the track ({@link #vote}); an identity is
+ * only confirmed once {@code recognition.voting.required} of the last
+ * {@code recognition.voting.window} votes agree, so a single lookalike frame
+ * cannot log anyone. Tracks with an open vote are predicted every frame.
+ *
+ * One tracker per camera. Methods are synchronized so the detection and
+ * recognition stages of a {@link RecognitionPipeline} can share it.
+ */
+public class FaceTracker {
+
+    private static final double MATCH_IOU = 0.3;           // detection continues a track
+    private static final double RECOGNIZED_IOU = 0.5;      // face still where it was recognized
+    private static final double DUPLICATE_IOU = 0.5;       // same face detected twice
+    private static final double SEARCH_MARGIN = 0.5;       // search region around a track
+    private static final double WEAK_MATCH_FRACTION = 0.8; // weak match: distance above 80% of threshold
+
+    /**
+     * Axis-aligned box in frame pixels.
+     */
+    public record Box(int x, int y, int width, int height) {
+
+        public int area() {
+            return width * height;
+        }
+
+        /**
+         * Intersection over union with another box (0 when disjoint).
+         */
+        public double iou(Box other) {
+            int left = Math.max(x, other.x);
+            int top = Math.max(y, other.y);
+            int right = Math.min(x + width, other.x + other.width);
+            int bottom = Math.min(y + height, other.y + other.height);
+            if (right <= left || bottom <= top) {
+                return 0.0;
+            }
+            double intersection = (double) (right - left) * (bottom - top);
+            return intersection / (area() + other.area() - intersection);
+        }
+
+        /**
+         * This box grown by {@code margin} times its size on every side, clipped to the frame.
+         */
+        public Box expand(double margin, int frameWidth, int frameHeight) {
+            int dx = (int) Math.round(width * margin);
+            int dy = (int) Math.round(height * margin);
+            int left = Math.max(0, x - dx);
+            int top = Math.max(0, y - dy);
+            int right = Math.min(frameWidth, x + width + dx);
+            int bottom = Math.min(frameHeight, y + height + dy);
+            return new Box(left, top, Math.max(0, right - left), Math.max(0, bottom - top));
+        }
+
+        /**
+         * Smallest box containing this box and another.
+         */
+        public Box union(Box other) {
+            int left = Math.min(x, other.x);
+            int top = Math.min(y, other.y);
+            int right = Math.max(x + width, other.x + other.width);
+            int bottom = Math.max(y + height, other.y + other.height);
+            return new Box(left, top, right - left, bottom - top);
+        }
+
+        Box shift(int dx, int dy) {
+            return new Box(x + dx, y + dy, width, height);
+        }
+    }
+
+    /**
+     * One tracked face.
+     */
+    public static final class Track {
+        private final int id;
+        private volatile Box box;
+        private int velocityX;
+        private int velocityY;
+        private int missedFrames;
+        private int framesSinceRecognition;
+
+        private volatile FaceRecognitionService.RecognitionResult result;
+        private Box recognizedBox;
+        private long recognizedModelVersion;
+
+        // Last votes (user id, or -1 for no clear match) in a ring
+        private final int[] votes;
+        private int voteCount;
+        private int votePosition;
+        private int confirmedUserId = -1;
+
+        private Track(int id, Box box, int votingWindow) {
+            this.id = id;
+            this.box = box;
+            this.votes = new int[votingWindow];
+        }
+
+        public int getId() { return id; }
+        public Box getBox() { return box; }
+        public FaceRecognitionService.RecognitionResult getResult() { return result; }
+
+        /**
+         * Where the face is expected in the next frame (constant velocity).
+         */
+        public Box predictedBox() {
+            return box.shift(velocityX, velocityY);
+        }
+
+        private void addVote(int userId) {
+            votes[votePosition] = userId;
+            votePosition = (votePosition + 1) % votes.length;
+            voteCount = Math.min(voteCount + 1, votes.length);
+        }
+
+        private int votesFor(int userId) {
+            int count = 0;
+            for (int i = 0; i < voteCount; i++) {
+                if (votes[i] == userId) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private boolean hasOpenVote() {
+            for (int i = 0; i < voteCount; i++) {
+                if (votes[i] >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void clearVotes() {
+            voteCount = 0;
+            votePosition = 0;
+        }
+
+        private boolean isIdentified() {
+            if (result == null) {
+                return false;
+            }
+            FaceRecognitionService.RecognitionResult.Status status = result.getStatus();
+            return status == FaceRecognitionService.RecognitionResult.Status.RECOGNIZED
+                || status == FaceRecognitionService.RecognitionResult.Status.DEBOUNCED;
+        }
+    }
+
+    private final int detectionInterval;
+    private final int maxMissedFrames;
+    private final int maxTracks;
+    private final int retryFrames;
+    private final int recheckFrames;
+    private final int votingWindow;
+    private final int requiredVotes;
+
+    private final List<Track> tracks = new ArrayList<>();
+    private int nextTrackId = 1;
+    private long frame;
+    private boolean fullDetectionRequested = true;
+
+    /**
+     * Create a tracker configured from AppConfig ({@code recognition.tracking.*}).
+     *
+     * @param maxTracks Most faces tracked at once (largest kept)
+     */
+    public FaceTracker(int maxTracks) {
+        this(AppConfig.getInt("recognition.tracking.detect.interval", 5),
+             AppConfig.getInt("recognition.tracking.max.missed", 3),
+             maxTracks,
+             AppConfig.getInt("recognition.tracking.retry.frames", 5),
+             AppConfig.getInt("recognition.tracking.recheck.frames", 90),
+             AppConfig.getInt("recognition.voting.window", 5),
+             AppConfig.getInt("recognition.voting.required", 3));
+    }
+
+    /**
+     * Create a tracker with explicit settings.
+     *
+     * @param detectionInterval Run full-frame detection every this many frames
+     * @param maxMissedFrames Drop a track after this many frames without a detection
+     * @param maxTracks Most faces tracked at once
+     * @param retryFrames Frames between recognition attempts for an unidentified face
+     * @param recheckFrames Frames after which an identified face is recognized again
+     * @param votingWindow Number of recent votes considered per track
+     * @param requiredVotes Agreeing votes needed to confirm an identity (1 = first match)
+     */
+    public FaceTracker(int detectionInterval, int maxMissedFrames, int maxTracks,
+                       int retryFrames, int recheckFrames, int votingWindow, int requiredVotes) {
+        this.detectionInterval = Math.max(1, detectionInterval);
+        this.maxMissedFrames = Math.max(0, maxMissedFrames);
+        this.maxTracks = Math.max(1, maxTracks);
+        this.retryFrames = Math.max(1, retryFrames);
+        this.recheckFrames = Math.max(1, recheckFrames);
+        this.votingWindow = Math.max(1, votingWindow);
+        this.requiredVotes = Math.max(1, Math.min(requiredVotes, this.votingWindow));
+    }
+
+    /**
+     * Whether the next frame needs a full-frame detection: on the interval, when
+     * nothing is tracked, or after a track lost its face in the local search.
+     */
+    public synchronized boolean isFullDetectionDue() {
+        return fullDetectionRequested || tracks.isEmpty() || frame % detectionInterval == 0;
+    }
+
+    /**
+     * Regions to search for the next frame when no full detection is due: each
+     * track's predicted box with a margin, clipped to the frame.
+     */
+    public synchronized List<Box> searchRegions(int frameWidth, int frameHeight) {
+        List<Box> regions = new ArrayList<>(tracks.size());
+        for (Track track : tracks) {
+            Box region = track.predictedBox().expand(SEARCH_MARGIN, frameWidth, frameHeight);
+            if (region.area() > 0) {
+                regions.add(region);
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Associate this frame's detections with the tracks.
+     *
+     * Overlapping detections (e.g. the same face found from two search regions)
+     * are merged, each detection extends the best-overlapping track, unmatched
+     * detections start new tracks, and tracks missing for too long are dropped.
+     *
+     * @param detections Face boxes found in this frame
+     * @param fullDetection Whether the whole frame was searched
+     * @return Tracks that were seen in this frame, largest first
+     */
+    public synchronized List<Track> update(List<Box> detections, boolean fullDetection) {
+        frame++;
+        if (fullDetection) {
+            fullDetectionRequested = false;
+        }
+
+        List<Box> boxes = suppressOverlaps(detections);
+        List<Track> seen = new ArrayList<>(boxes.size());
+        boolean[] matched = new boolean[tracks.size()];
+
+        // Greedy association, best overlap first
+        List<double[]> pairs = new ArrayList<>();
+        for (int d = 0; d < boxes.size(); d++) {
+            for (int t = 0; t < tracks.size(); t++) {
+                double iou = boxes.get(d).iou(tracks.get(t).predictedBox());
+                if (iou >= MATCH_IOU) {
+                    pairs.add(new double[] {iou, d, t});
+                }
+            }
+        }
+        pairs.sort((a, b) -> Double.compare(b[0], a[0]));
+        boolean[] used = new boolean[boxes.size()];
+        for (double[] pair : pairs) {
+            int d = (int) pair[1];
+            int t = (int) pair[2];
+            if (used[d] || matched[t]) {
+                continue;
+            }
+            used[d] = true;
+            matched[t] = true;
+            Track track = tracks.get(t);
+            Box box = boxes.get(d);
+            track.velocityX = box.x() - track.box.x();
+            track.velocityY = box.y() - track.box.y();
+            track.box = box;
+            track.missedFrames = 0;
+            track.framesSinceRecognition++;
+            seen.add(track);
+        }
+
+        // Age tracks that were not found; a face lost in the local search
+        // (moved fast, turned away) triggers a full detection next frame
+        for (int t = tracks.size() - 1; t >= 0; t--) {
+            if (!matched[t]) {
+                Track track = tracks.get(t);
+                track.missedFrames++;
+                track.framesSinceRecognition++;
+                if (!fullDetection) {
+                    fullDetectionRequested = true;
+                }
+                if (track.missedFrames > maxMissedFrames) {
+                    tracks.remove(t);
+                }
+            }
+        }
+
+        // New faces
+        for (int d = 0; d < boxes.size(); d++) {
+            if (!used[d] && tracks.size() < maxTracks) {
+                Track track = new Track(nextTrackId++, boxes.get(d), votingWindow);
+                tracks.add(track);
+                seen.add(track);
+            }
+        }
+
+        seen.sort((a, b) -> Integer.compare(b.box.area(), a.box.area()));
+        return seen;
+    }
+
+    /**
+     * Whether a track needs a (new) recognition in this frame.
+     *
+     * Unidentified faces and weak matches (distance within the top fifth below
+     * the threshold) are retried every few frames; confident matches are kept
+     * until the face moved away from where it was recognized or the periodic
+     * recheck is due.
+     *
+     * @param modelVersion Version of the recognizer model currently in use
+     * @param confidenceThreshold Recognizer distance threshold
+     */
+    public synchronized boolean needsRecognition(Track track, long modelVersion, double confidenceThreshold) {
+        if (track.result == null || track.recognizedModelVersion != modelVersion || isVoting(track)) {
+            return true;
+        }
+        if (!track.isIdentified() || track.result.getConfidence() > confidenceThreshold * WEAK_MATCH_FRACTION) {
+            return track.framesSinceRecognition >= retryFrames;
+        }
+        return track.framesSinceRecognition >= recheckFrames
+            || track.box.iou(track.recognizedBox) < RECOGNIZED_IOU;
+    }
+
+    /**
+     * Cast a vote for a track's identity.
+     *
+     * A confirmed track stays confirmed while votes agree; a disagreeing vote
+     * reopens the vote.
+     *
+     * @param userId Best clear match of this frame, or -1 for none
+     * @return The confirmed user id, or -1 while unconfirmed
+     */
+    public synchronized int vote(Track track, int userId) {
+        if (track.confirmedUserId >= 0) {
+            if (userId == track.confirmedUserId) {
+                return userId;
+            }
+            track.confirmedUserId = -1;
+        }
+        track.addVote(userId);
+        if (userId >= 0 && track.votesFor(userId) >= requiredVotes) {
+            track.confirmedUserId = userId;
+            track.clearVotes();
+            return userId;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a track has an unconfirmed vote for someone in its window.
+     */
+    public synchronized boolean isVoting(Track track) {
+        return track.confirmedUserId < 0 && track.hasOpenVote();
+    }
+
+    public synchronized boolean isConfirmed(Track track) {
+        return track.confirmedUserId >= 0;
+    }
+
+    /**
+     * Remember the recognition result of a track.
+     */
+    public synchronized void recordRecognition(Track track, FaceRecognitionService.RecognitionResult result, long modelVersion) {
+        track.result = result;
+        track.recognizedBox = track.box;
+        track.recognizedModelVersion = modelVersion;
+        track.framesSinceRecognition = 0;
+    }
+
+    /**
+     * Forget every track (camera restarted or switched).
+     */
+    public synchronized void reset() {
+        tracks.clear();
+        frame = 0;
+        fullDetectionRequested = true;
+    }
+
+    public synchronized List<Track> getTracks() {
+        return List.copyOf(tracks);
+    }
+
+    public int getMaxTracks() {
+        return maxTracks;
+    }
+
+    /**
+     * Drop detections that duplicate a larger detection.
+     */
+    private static List<Box> suppressOverlaps(List<Box> detections) {
+        if (detections.size() < 2) {
+            return detections;
+        }
+        List<Box> sorted = new ArrayList<>(detections);
+        sorted.sort((a, b) -> Integer.compare(b.area(), a.area()));
+        List<Box> kept = new ArrayList<>(sorted.size());
+        for (Box box : sorted) {
+            boolean duplicate = false;
+            for (Box other : kept) {
+                if (box.iou(other) > DUPLICATE_IOU) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                kept.add(box);
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,99 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+import org.bytedeco.javacv.Frame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Where a {@link CameraService} gets its frames: a live camera, a recorded video
+ * or a directory of images. Recorded sources make it possible to replay real
+ * footage through the whole recognition and attendance pipeline without a
+ * webcam, for example on a CI machine.
+ *
+ * A source can be started again after {@link #close()}.
+ */
+public interface FrameSource extends AutoCloseable {
+
+    /**
+     * How fast a recorded source is played back.
+     */
+    enum Pacing {
+        /** At the source's own frame rate, like a live camera. */
+        REAL_TIME,
+        /** As fast as frames can be decoded (throughput tests). */
+        AS_FAST_AS_POSSIBLE;
+
+        /**
+         * Parse a config value ({@code realtime} or {@code fast}).
+         */
+        public static Pacing parse(String value) {
+            return value != null && value.trim().toLowerCase(Locale.ROOT).startsWith("fast")
+                ? AS_FAST_AS_POSSIBLE
+                : REAL_TIME;
+        }
+    }
+
+    /**
+     * Open the source.
+     */
+    void start() throws IOException;
+
+    /**
+     * The next frame, or null at the end of a recording (or if a camera
+     * delivered nothing). The frame is only valid until the next call.
+     */
+    Frame grab() throws IOException;
+
+    /**
+     * Whether {@link #grab()} returning null means the source is exhausted.
+     */
+    boolean isFinite();
+
+    /**
+     * Frames per second the source should be played at, or 0 if unknown.
+     */
+    double getFrameRate();
+
+    Pacing getPacing();
+
+    /**
+     * Release the device or file.
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Create a source from a spec:
+     * <ul>
+     *   <li>a camera index, e.g. {@code 0}</li>
+     *   <li>{@code video:<file>} for a recorded video</li>
+     *   <li>{@code images:<directory>} for an image sequence</li>
+     * </ul>
+     * Pacing and looping of recorded sources come from {@code camera.source.pacing}
+     * and {@code camera.source.loop}.
+     *
+     * @param spec Source spec
+     * @param fps Capture rate of cameras and image sequences
+     * @throws IllegalArgumentException if the spec is not understood
+     */
+    static FrameSource fromSpec(String spec, int fps) {
+        String value = spec.trim();
+        Pacing pacing = Pacing.parse(AppConfig.get("camera.source.pacing", "realtime"));
+        boolean loop = AppConfig.getBoolean("camera.source.loop", false);
+        if (value.startsWith("video:")) {
+            return new VideoFileFrameSource(Path.of(value.substring("video:".length())), pacing, loop);
+        }
+        if (value.startsWith("images:")) {
+            return new ImageDirectoryFrameSource(Path.of(value.substring("images:".length())), fps, pacing, loop);
+        }
+        try {
+            return new CameraFrameSource(Integer.parseInt(value),
+                AppConfig.getInt("camera.width", 640), AppConfig.getInt("camera.height", 480), fps);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown frame source: " + spec, e);
+        }
+    }
+}
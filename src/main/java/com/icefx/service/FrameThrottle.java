@@ -0,0 +1,42 @@
+package com.icefx.service;
+
+/**
+ * Decides which grabbed frames an idle camera processes.
+ *
+ * A live camera must be read at its own rate: a capture loop that sleeps
+ * between grabs lets the driver queue frames, and after waking it works
+ * through stale ones for several intervals. So an idle camera keeps grabbing
+ * every frame and only processes (mirrors, checks for motion, previews) one
+ * per idle interval. The frame that shows motion is then at most one idle
+ * interval old, and the camera is back at full rate from the next grab.
+ *
+ * Used by a single capture thread.
+ */
+final class FrameThrottle {
+
+    private final long idleIntervalNanos;
+    private long lastProcessed;
+    private boolean processedAny;
+
+    /**
+     * @param idleFps Frames processed per second while idle
+     */
+    FrameThrottle(int idleFps) {
+        this.idleIntervalNanos = 1_000_000_000L / Math.max(1, idleFps);
+    }
+
+    /**
+     * Whether to process the frame just grabbed.
+     *
+     * @param idle Whether the camera is idle (every frame is processed otherwise)
+     * @param now Grab time, from {@link System#nanoTime()}
+     */
+    boolean shouldProcess(boolean idle, long now) {
+        if (idle && processedAny && now - lastProcessed < idleIntervalNanos) {
+            return false;
+        }
+        lastProcessed = now;
+        processedAny = true;
+        return true;
+    }
+}
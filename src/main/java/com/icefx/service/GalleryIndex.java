@@ -0,0 +1,105 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+
+import java.util.Random;
+
+/**
+ * Approximate nearest-neighbour index over an {@link LbphModel} gallery:
+ * histograms are PCA-projected ({@link HistogramProjection}) and linked in an
+ * {@link HnswGraph}; a query returns the gallery indices of the top candidates,
+ * which the model then re-ranks with the exact chi-square distance.
+ *
+ * Node id {@code i} is gallery sample {@code i}. The index covers samples
+ * {@code [0, size())}; the model scans newer samples exactly.
+ */
+public final class GalleryIndex {
+
+    /**
+     * Index parameters ({@code recognition.index.*} in AppConfig).
+     */
+    public record Settings(int dimensions, int pcaSamples, int maxLinks, int efConstruction,
+                           int efSearch, int candidates) {
+
+        public static Settings fromConfig() {
+            return new Settings(
+                AppConfig.getInt("recognition.index.dimensions", 48),
+                AppConfig.getInt("recognition.index.pca.samples", 1024),
+                AppConfig.getInt("recognition.index.links", 16),
+                AppConfig.getInt("recognition.index.ef.construction", 100),
+                AppConfig.getInt("recognition.index.ef.search", 64),
+                AppConfig.getInt("recognition.index.candidates", 32));
+        }
+    }
+
+    private static final long SEED = 0x1CEF;
+
+    private final Settings settings;
+    private final HistogramProjection projection;
+    private final HnswGraph graph;
+    private final ThreadLocal<float[]> queryBuffer;
+
+    private GalleryIndex(Settings settings, HistogramProjection projection, HnswGraph graph) {
+        this.settings = settings;
+        this.projection = projection;
+        this.graph = graph;
+        this.queryBuffer = ThreadLocal.withInitial(() -> new float[projection.getDimensions()]);
+    }
+
+    /**
+     * Build an index over the samples of a gallery snapshot.
+     */
+    static GalleryIndex build(LbphModel.Snapshot samples, Settings settings) {
+        int count = samples.size();
+        // Fit PCA on an evenly spread sample of the gallery
+        int sampleCount = Math.min(count, settings.pcaSamples());
+        float[][] sample = new float[sampleCount][];
+        Random random = new Random(SEED);
+        for (int i = 0; i < sampleCount; i++) {
+            int index = sampleCount == count ? i : (int) ((long) i * count / sampleCount)
+                + random.nextInt(Math.max(1, count / sampleCount));
+            sample[i] = new float[samples.histogramLength()];
+            samples.copySample(Math.min(index, count - 1), sample[i]);
+        }
+        HistogramProjection projection = HistogramProjection.fit(sample, settings.dimensions(), SEED);
+
+        HnswGraph graph = new HnswGraph(projection.getDimensions(), settings.maxLinks(),
+            settings.efConstruction(), SEED);
+        GalleryIndex index = new GalleryIndex(settings, projection, graph);
+        float[] histogram = new float[samples.histogramLength()];
+        for (int i = 0; i < count; i++) {
+            samples.copySample(i, histogram);
+            index.add(histogram);
+        }
+        return index;
+    }
+
+    /**
+     * Index the next gallery sample (its id must be {@link #size()}).
+     */
+    void add(float[] histogram) {
+        float[] projected = new float[projection.getDimensions()];
+        projection.project(histogram, projected);
+        graph.add(projected);
+    }
+
+    /**
+     * Gallery indices of the most promising samples for {@code query}, closest first.
+     */
+    int[] candidates(float[] query) {
+        float[] projected = queryBuffer.get();
+        projection.project(query, projected);
+        return graph.search(projected, settings.candidates(), settings.efSearch());
+    }
+
+    /**
+     * Number of gallery samples covered.
+     */
+    public int size() {
+        return graph.size();
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+}
@@ -0,0 +1,176 @@
+package com.icefx.service;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * PCA projection of LBPH histograms to a few dozen dimensions.
+ *
+ * Histograms are first Hellinger-mapped (square root of every bin), which turns the
+ * chi-square-like geometry of normalized histograms into approximately Euclidean
+ * geometry, then centered and projected onto the top principal components.
+ *
+ * Components are found by subspace iteration on a sample of the gallery
+ * ({@code Q <- orth(X^T X Q)}), which never forms the D x D covariance matrix
+ * (D = 16,384 for the default LBPH grid).
+ */
+public final class HistogramProjection {
+
+    private static final int ITERATIONS = 6;
+
+    private final int inputDimensions;
+    private final int dimensions;
+    private final float[] mean;        // D
+    private final float[] components;  // dimensions x D, row-major
+
+    private HistogramProjection(int inputDimensions, int dimensions, float[] mean, float[] components) {
+        this.inputDimensions = inputDimensions;
+        this.dimensions = dimensions;
+        this.mean = mean;
+        this.components = components;
+    }
+
+    /**
+     * Fit the projection on (a sample of) the gallery.
+     *
+     * @param samples Histograms to fit on (not modified)
+     * @param dimensions Number of principal components to keep
+     * @param seed Seed for the random start basis (fixed for reproducible indexes)
+     */
+    public static HistogramProjection fit(float[][] samples, int dimensions, long seed) {
+        if (samples.length == 0) {
+            throw new IllegalArgumentException("Cannot fit a projection on an empty sample");
+        }
+        int n = samples.length;
+        int d = samples[0].length;
+        int k = Math.min(dimensions, Math.min(n, d));
+
+        // Hellinger map and center
+        float[] mean = new float[d];
+        float[][] x = new float[n][d];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < d; j++) {
+                x[i][j] = (float) Math.sqrt(Math.max(0f, samples[i][j]));
+                mean[j] += x[i][j];
+            }
+        }
+        for (int j = 0; j < d; j++) {
+            mean[j] /= n;
+        }
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (int j = 0; j < d; j++) {
+                x[i][j] -= mean[j];
+            }
+        });
+
+        // Random orthonormal start basis, then subspace iteration
+        Random random = new Random(seed);
+        float[][] q = new float[k][d];
+        for (float[] row : q) {
+            for (int j = 0; j < d; j++) {
+                row[j] = (float) random.nextGaussian();
+            }
+        }
+        orthonormalize(q);
+
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            // Y = X Q^T (n x k)
+            float[][] basis = q;
+            float[][] y = new float[n][];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                float[] row = new float[k];
+                for (int c = 0; c < k; c++) {
+                    row[c] = dot(x[i], basis[c]);
+                }
+                y[i] = row;
+            });
+            // Q = X^T Y (k x D), one component per task
+            float[][] next = new float[k][];
+            IntStream.range(0, k).parallel().forEach(c -> {
+                float[] row = new float[d];
+                for (int i = 0; i < n; i++) {
+                    float weight = y[i][c];
+                    float[] xi = x[i];
+                    for (int j = 0; j < d; j++) {
+                        row[j] += weight * xi[j];
+                    }
+                }
+                next[c] = row;
+            });
+            orthonormalize(next);
+            q = next;
+        }
+
+        float[] components = new float[k * d];
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(q[c], 0, components, c * d, d);
+        }
+        return new HistogramProjection(d, k, mean, components);
+    }
+
+    /**
+     * Project one histogram.
+     *
+     * @param histogram Input histogram (length {@link #getInputDimensions()})
+     * @param out Output vector (length {@link #getDimensions()})
+     */
+    public void project(float[] histogram, float[] out) {
+        project(histogram, 0, out);
+    }
+
+    /**
+     * Project the histogram starting at {@code offset} in a flat array.
+     */
+    public void project(float[] histograms, int offset, float[] out) {
+        for (int c = 0; c < dimensions; c++) {
+            int row = c * inputDimensions;
+            float sum = 0;
+            for (int j = 0; j < inputDimensions; j++) {
+                float centered = (float) Math.sqrt(Math.max(0f, histograms[offset + j])) - mean[j];
+                sum += centered * components[row + j];
+            }
+            out[c] = sum;
+        }
+    }
+
+    public int getDimensions() { return dimensions; }
+    public int getInputDimensions() { return inputDimensions; }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int j = 0; j < a.length; j++) {
+            sum += a[j] * b[j];
+        }
+        return sum;
+    }
+
+    /**
+     * Modified Gram-Schmidt on the rows (accumulated in double).
+     */
+    private static void orthonormalize(float[][] rows) {
+        for (int c = 0; c < rows.length; c++) {
+            float[] row = rows[c];
+            for (int p = 0; p < c; p++) {
+                double projection = 0;
+                for (int j = 0; j < row.length; j++) {
+                    projection += (double) row[j] * rows[p][j];
+                }
+                for (int j = 0; j < row.length; j++) {
+                    row[j] -= (float) (projection * rows[p][j]);
+                }
+            }
+            double norm = 0;
+            for (float value : row) {
+                norm += (double) value * value;
+            }
+            norm = Math.sqrt(norm);
+            if (norm < 1e-12) {
+                // Degenerate direction (sample has lower rank than requested): leave it zero
+                continue;
+            }
+            for (int j = 0; j < row.length; j++) {
+                row[j] /= (float) norm;
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.icefx.service;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Hierarchical navigable small-world graph (Malkov &amp; Yashunin) over small
+ * float vectors with squared Euclidean distance.
+ *
+ * Node ids are assigned in insertion order starting at 0. Searches may run
+ * concurrently with each other; {@link #add} needs exclusive access.
+ */
+public final class HnswGraph {
+
+    private final int dimensions;
+    private final int maxLinks;          // M, upper layers
+    private final int maxLinksLayer0;    // 2M, bottom layer
+    private final int efConstruction;
+    private final double levelFactor;
+    private final Random random;
+
+    private float[] vectors = new float[0];
+    private int[][][] links = new int[0][][];  // node -> layer -> [count, neighbor...]
+    private int size;
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+    /**
+     * Candidate with its distance to the query.
+     */
+    private record Scored(int id, float distance) {}
+
+    /**
+     * Visited marks reused across searches on one thread (epoch instead of clearing).
+     */
+    private static final class VisitedSet {
+        int[] marks = new int[0];
+        int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean visit(int id) {
+            if (marks[id] == epoch) {
+                return false;
+            }
+            marks[id] = epoch;
+            return true;
+        }
+    }
+
+    public HnswGraph(int dimensions, int maxLinks, int efConstruction, long seed) {
+        this.dimensions = dimensions;
+        this.maxLinks = maxLinks;
+        this.maxLinksLayer0 = maxLinks * 2;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1.0 / Math.log(maxLinks);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Insert a vector (copied).
+     *
+     * @return Node id
+     */
+    public int add(float[] vector) {
+        int id = size;
+        ensureCapacity(id + 1);
+        System.arraycopy(vector, 0, vectors, id * dimensions, dimensions);
+
+        int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelFactor);
+        links[id] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[id][layer] = new int[1 + (layer == 0 ? maxLinksLayer0 : maxLinks)];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            topLayer = level;
+            return id;
+        }
+
+        int current = entryPoint;
+        for (int layer = topLayer; layer > level; layer--) {
+            current = greedyClosest(vector, 0, current, layer);
+        }
+        for (int layer = Math.min(level, topLayer); layer >= 0; layer--) {
+            Scored[] nearest = searchLayer(vector, 0, current, efConstruction, layer);
+            int limit = layer == 0 ? maxLinksLayer0 : maxLinks;
+            int[] selected = selectNeighbors(id * dimensions, nearest, maxLinks);
+            int[] own = links[id][layer];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+            for (int neighbor : selected) {
+                connect(neighbor, id, layer, limit);
+            }
+            current = nearest[0].id();
+        }
+
+        if (level > topLayer) {
+            topLayer = level;
+            entryPoint = id;
+        }
+        return id;
+    }
+
+    /**
+     * Approximate nearest neighbours of {@code query}, closest first.
+     *
+     * @param k Number of ids to return
+     * @param ef Search breadth (larger is slower and more accurate; at least k)
+     */
+    public int[] search(float[] query, int k, int ef) {
+        if (entryPoint < 0) {
+            return new int[0];
+        }
+        int current = entryPoint;
+        for (int layer = topLayer; layer > 0; layer--) {
+            current = greedyClosest(query, 0, current, layer);
+        }
+        Scored[] nearest = searchLayer(query, 0, current, Math.max(ef, k), 0);
+        int[] ids = new int[Math.min(k, nearest.length)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nearest[i].id();
+        }
+        return ids;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int greedyClosest(float[] query, int queryOffset, int start, int layer) {
+        int current = start;
+        float currentDistance = distance(query, queryOffset, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links[current][layer];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float d = distance(query, queryOffset, neighbors[i]);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, returns up to {@code ef} nodes closest first.
+     */
+    private Scored[] searchLayer(float[] query, int queryOffset, int start, int ef, int layer) {
+        VisitedSet seen = visited.get();
+        seen.reset(size);
+        seen.visit(start);
+
+        PriorityQueue<Scored> candidates = new PriorityQueue<>((a, b) -> Float.compare(a.distance(), b.distance()));
+        PriorityQueue<Scored> results = new PriorityQueue<>((a, b) -> Float.compare(b.distance(), a.distance()));
+        Scored first = new Scored(start, distance(query, queryOffset, start));
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (candidate.distance() > results.peek().distance() && results.size() >= ef) {
+                break;
+            }
+            int[] neighbors = links[candidate.id()][layer];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (!seen.visit(neighbor)) {
+                    continue;
+                }
+                float d = distance(query, queryOffset, neighbor);
+                if (results.size() < ef || d < results.peek().distance()) {
+                    Scored scored = new Scored(neighbor, d);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        Scored[] sorted = results.toArray(new Scored[0]);
+        Arrays.sort(sorted, (a, b) -> Float.compare(a.distance(), b.distance()));
+        return sorted;
+    }
+
+    /**
+     * Add {@code to} to the neighbor list of {@code from}; when the list is full,
+     * re-select it with {@link #selectNeighbors}.
+     */
+    private void connect(int from, int to, int layer, int limit) {
+        int[] neighbors = links[from][layer];
+        int count = neighbors[0];
+        for (int i = 1; i <= count; i++) {
+            if (neighbors[i] == to) {
+                return;
+            }
+        }
+        if (count < limit) {
+            neighbors[count + 1] = to;
+            neighbors[0] = count + 1;
+            return;
+        }
+
+        int base = from * dimensions;
+        Scored[] candidates = new Scored[count + 1];
+        for (int i = 1; i <= count; i++) {
+            candidates[i - 1] = new Scored(neighbors[i], distance(vectors, base, neighbors[i]));
+        }
+        candidates[count] = new Scored(to, distance(vectors, base, to));
+        Arrays.sort(candidates, (a, b) -> Float.compare(a.distance(), b.distance()));
+        int[] selected = selectNeighbors(base, candidates, limit);
+        neighbors[0] = selected.length;
+        System.arraycopy(selected, 0, neighbors, 1, selected.length);
+    }
+
+    /**
+     * Neighbor selection heuristic (algorithm 4 of the paper): walk the candidates
+     * closest first and keep one only if it is closer to the node than to every
+     * neighbor kept so far. This keeps links between clusters, which the plain
+     * "closest M" rule prunes away, leaving well-separated clusters unreachable.
+     *
+     * @param base Offset of the node's vector in {@link #vectors}
+     * @param candidates Candidates sorted closest first
+     */
+    private int[] selectNeighbors(int base, Scored[] candidates, int limit) {
+        int[] selected = new int[Math.min(limit, candidates.length)];
+        int count = 0;
+        for (Scored candidate : candidates) {
+            if (count == selected.length) {
+                break;
+            }
+            if (candidate.id() * dimensions == base) {
+                continue;
+            }
+            boolean diverse = true;
+            int candidateBase = candidate.id() * dimensions;
+            for (int i = 0; i < count && diverse; i++) {
+                diverse = distance(vectors, candidateBase, selected[i]) >= candidate.distance();
+            }
+            if (diverse) {
+                selected[count++] = candidate.id();
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    private float distance(float[] query, int queryOffset, int node) {
+        int base = node * dimensions;
+        float sum = 0;
+        for (int j = 0; j < dimensions; j++) {
+            float diff = query[queryOffset + j] - vectors[base + j];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (nodes > links.length) {
+            int capacity = Math.max(64, links.length * 2);
+            links = Arrays.copyOf(links, capacity);
+            vectors = Arrays.copyOf(vectors, capacity * dimensions);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.icefx.service;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+
+/**
+ * Frames from a directory of images (jpg, png, bmp), played in file-name order,
+ * e.g. frames exported from a recording.
+ */
+public class ImageDirectoryFrameSource implements FrameSource {
+    private static final Logger logger = LoggerFactory.getLogger(ImageDirectoryFrameSource.class);
+
+    private final Path directory;
+    private final double fps;
+    private final Pacing pacing;
+    private final boolean loop;
+    private final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+
+    private List<Path> images = List.of();
+    private int next;
+    private Mat current;
+    private boolean exhausted;
+
+    /**
+     * @param fps Playback rate for {@link Pacing#REAL_TIME}
+     * @param loop Start over after the last image instead of finishing
+     */
+    public ImageDirectoryFrameSource(Path directory, double fps, Pacing pacing, boolean loop) {
+        this.directory = directory;
+        this.fps = fps;
+        this.pacing = pacing;
+        this.loop = loop;
+    }
+
+    @Override
+    public void start() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            images = files.filter(ImageDirectoryFrameSource::isImage).sorted().toList();
+        }
+        if (images.isEmpty()) {
+            throw new IllegalStateException("No images found in " + directory);
+        }
+        next = 0;
+        exhausted = false;
+        logger.info("Replaying {} images from {}", images.size(), directory);
+    }
+
+    /**
+     * The next readable image. Unreadable files are skipped; if a whole pass
+     * over the directory yields nothing, the source ends even when looping.
+     */
+    @Override
+    public Frame grab() {
+        if (exhausted) {
+            return null;
+        }
+        for (int skipped = 0; skipped < images.size(); skipped++) {
+            if (next >= images.size()) {
+                if (!loop) {
+                    return null;
+                }
+                next = 0;
+            }
+            Path file = images.get(next++);
+            Mat image = imread(file.toString(), IMREAD_COLOR);
+            if (image.empty()) {
+                logger.warn("Skipping unreadable image {}", file);
+                image.release();
+                continue;
+            }
+            // Keep the image alive until the next grab, as a camera keeps its buffer
+            releaseCurrent();
+            current = image;
+            return converter.convert(image);
+        }
+        logger.error("None of the {} images in {} could be read - stopping", images.size(), directory);
+        exhausted = true;
+        return null;
+    }
+
+    @Override
+    public boolean isFinite() {
+        return !loop || exhausted;
+    }
+
+    @Override
+    public double getFrameRate() {
+        return fps;
+    }
+
+    @Override
+    public Pacing getPacing() {
+        return pacing;
+    }
+
+    @Override
+    public void close() {
+        releaseCurrent();
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png") || name.endsWith(".bmp");
+    }
+
+    @Override
+    public String toString() {
+        return "images " + directory;
+    }
+}
@@ -0,0 +1,169 @@
+package com.icefx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A fixed set of worker threads shared by many serial lanes.
+ *
+ * A lane is a stream of work that must run one step at a time and in order,
+ * such as one camera's detection stage. Lanes with pending work wait in a FIFO.
+ * A worker runs one step of the lane at the head and puts the lane back at
+ * the tail if it has more work. Cameras therefore share the workers
+ * round-robin: a busy camera cannot starve a quiet one, and adding a camera
+ * adds no threads.
+ */
+public class LanePool {
+    private static final Logger logger = LoggerFactory.getLogger(LanePool.class);
+
+    private final String name;
+    private final LinkedBlockingQueue<Lane> ready = new LinkedBlockingQueue<>();
+    private final Thread[] workers;
+    private volatile boolean shutdown;
+
+    /**
+     * @param name Thread name prefix
+     * @param threads Number of workers (at least 1)
+     */
+    public LanePool(String name, int threads) {
+        this.name = name;
+        this.workers = new Thread[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            Thread t = new Thread(this::work, name + "-" + (i + 1));
+            t.setDaemon(true);
+            workers[i] = t;
+            t.start();
+        }
+        logger.info("Lane pool {} started with {} workers", name, workers.length);
+    }
+
+    /**
+     * Create a lane.
+     *
+     * @param laneName Name for logs
+     * @param step Runs one unit of work (e.g. one queued frame)
+     * @param pending Whether the lane has work waiting
+     */
+    public Lane newLane(String laneName, Runnable step, BooleanSupplier pending) {
+        return new Lane(laneName, step, pending);
+    }
+
+    /**
+     * Interrupt the workers. Lanes are not run after this.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        logger.info("Lane pool {} shut down", name);
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    private void work() {
+        // The flag, not just the interrupt, ends a worker: a step may have cleared the interrupt
+        while (!shutdown && !Thread.currentThread().isInterrupted()) {
+            Lane lane;
+            try {
+                lane = ready.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            lane.runStep();
+        }
+    }
+
+    /**
+     * A serial stream of work on the pool: its steps never run concurrently.
+     */
+    public final class Lane {
+        private final String laneName;
+        private final Runnable step;
+        private final BooleanSupplier pending;
+
+        // True while queued or running, so a lane sits in the ready queue at most once
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private boolean running; // guarded by this
+
+        private Lane(String laneName, Runnable step, BooleanSupplier pending) {
+            this.laneName = laneName;
+            this.step = step;
+            this.pending = pending;
+        }
+
+        /**
+         * Queue the lane for a worker unless it is already queued or running.
+         */
+        public void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                ready.offer(this);
+            }
+        }
+
+        /**
+         * Stop scheduling the lane and wait (up to {@code timeoutMillis}) for a
+         * running step to finish.
+         */
+        public synchronized void close(long timeoutMillis) {
+            closed = true;
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            try {
+                while (running) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        logger.warn("Lane {} did not finish its step within {}ms", laneName, timeoutMillis);
+                        return;
+                    }
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Stop scheduling the lane without waiting. Safe to call from the lane's own step.
+         */
+        public void cancel() {
+            closed = true;
+        }
+
+        private void runStep() {
+            synchronized (this) {
+                if (closed) {
+                    scheduled.set(false);
+                    return;
+                }
+                running = true;
+            }
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                logger.error("Lane {} failed", laneName, e);
+            } finally {
+                synchronized (this) {
+                    running = false;
+                    notifyAll();
+                }
+            }
+
+            if (!closed && pending.getAsBoolean()) {
+                ready.offer(this); // more work: go to the back of the line
+            } else {
+                scheduled.set(false);
+                // Work queued after the check above would otherwise wait for the next schedule()
+                if (pending.getAsBoolean()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.icefx.service;
+
+import java.util.Arrays;
+
+/**
+ * Pure-Java port of the feature extraction in OpenCV's {@code LBPHFaceRecognizer}:
+ * extended (circular, bilinearly interpolated) local binary patterns followed by a
+ * normalized spatial histogram per grid cell.
+ *
+ * Produces the same histograms OpenCV stores in a trained model, so a gallery that
+ * was trained natively can be matched from Java without loading it back into OpenCV.
+ * Instances hold scratch buffers and are not thread-safe; use one per thread.
+ */
+public final class LbphHistogramExtractor {
+
+    private final int radius;
+    private final int neighbors;
+    private final int gridX;
+    private final int gridY;
+    private final int numPatterns;
+
+    // Per-neighbor sampling offsets and interpolation weights (same float math as OpenCV)
+    private final int[] fx, fy, cx, cy;
+    private final float[] w1, w2, w3, w4;
+
+    private int[] lbp = new int[0];
+
+    public LbphHistogramExtractor(int radius, int neighbors, int gridX, int gridY) {
+        if (radius < 1 || neighbors < 1 || neighbors > 16 || gridX < 1 || gridY < 1) {
+            throw new IllegalArgumentException("Invalid LBPH parameters");
+        }
+        this.radius = radius;
+        this.neighbors = neighbors;
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.numPatterns = 1 << neighbors;
+
+        fx = new int[neighbors];
+        fy = new int[neighbors];
+        cx = new int[neighbors];
+        cy = new int[neighbors];
+        w1 = new float[neighbors];
+        w2 = new float[neighbors];
+        w3 = new float[neighbors];
+        w4 = new float[neighbors];
+        for (int n = 0; n < neighbors; n++) {
+            float x = (float) (radius * Math.cos(2.0 * Math.PI * n / (float) neighbors));
+            float y = (float) (-radius * Math.sin(2.0 * Math.PI * n / (float) neighbors));
+            fx[n] = (int) Math.floor(x);
+            fy[n] = (int) Math.floor(y);
+            cx[n] = (int) Math.ceil(x);
+            cy[n] = (int) Math.ceil(y);
+            float ty = y - fy[n];
+            float tx = x - fx[n];
+            w1[n] = (1 - tx) * (1 - ty);
+            w2[n] = tx * (1 - ty);
+            w3[n] = (1 - tx) * ty;
+            w4[n] = tx * ty;
+        }
+    }
+
+    /**
+     * Length of one feature vector: grid cells x patterns per cell.
+     */
+    public int histogramLength() {
+        return gridX * gridY * numPatterns;
+    }
+
+    /**
+     * Compute the spatial LBP histogram of an 8-bit grayscale image.
+     *
+     * @param pixels Row-major image bytes (unsigned)
+     * @param rows Image height
+     * @param cols Image width
+     * @param histogram Output, {@link #histogramLength()} floats (overwritten)
+     */
+    public void extract(byte[] pixels, int rows, int cols, float[] histogram) {
+        if (histogram.length < histogramLength()) {
+            throw new IllegalArgumentException("Histogram buffer too small");
+        }
+        int lbpRows = rows - 2 * radius;
+        int lbpCols = cols - 2 * radius;
+        Arrays.fill(histogram, 0, histogramLength(), 0f);
+        if (lbpRows <= 0 || lbpCols <= 0) {
+            return;
+        }
+
+        computeLbp(pixels, rows, cols, lbpRows, lbpCols);
+
+        int cellWidth = lbpCols / gridX;
+        int cellHeight = lbpRows / gridY;
+        int cellPixels = cellWidth * cellHeight;
+        if (cellPixels == 0) {
+            return;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < gridY; i++) {
+            for (int j = 0; j < gridX; j++) {
+                for (int r = i * cellHeight; r < (i + 1) * cellHeight; r++) {
+                    int row = r * lbpCols;
+                    for (int c = j * cellWidth; c < (j + 1) * cellWidth; c++) {
+                        histogram[offset + lbp[row + c]]++;
+                    }
+                }
+                for (int b = 0; b < numPatterns; b++) {
+                    histogram[offset + b] /= cellPixels;
+                }
+                offset += numPatterns;
+            }
+        }
+    }
+
+    private void computeLbp(byte[] src, int rows, int cols, int lbpRows, int lbpCols) {
+        int size = lbpRows * lbpCols;
+        if (lbp.length < size) {
+            lbp = new int[size];
+        }
+        Arrays.fill(lbp, 0, size, 0);
+
+        for (int n = 0; n < neighbors; n++) {
+            int o1 = fy[n] * cols + fx[n];
+            int o2 = fy[n] * cols + cx[n];
+            int o3 = cy[n] * cols + fx[n];
+            int o4 = cy[n] * cols + cx[n];
+            float a = w1[n], b = w2[n], c = w3[n], d = w4[n];
+            int bit = 1 << n;
+
+            for (int i = radius; i < rows - radius; i++) {
+                int out = (i - radius) * lbpCols - radius;
+                for (int j = radius; j < cols - radius; j++) {
+                    int p = i * cols + j;
+                    float t = a * (src[p + o1] & 0xFF) + b * (src[p + o2] & 0xFF)
+                            + c * (src[p + o3] & 0xFF) + d * (src[p + o4] & 0xFF);
+                    int center = src[p] & 0xFF;
+                    if (t > center || Math.abs(t - center) < Math.ulp(1.0f)) {
+                        lbp[out + j] += bit;
+                    }
+                }
+            }
+        }
+    }
+}
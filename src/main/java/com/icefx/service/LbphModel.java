@@ -0,0 +1,799 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * LBPH face gallery (one spatial histogram per training image) stored in a
+ * compact, versioned binary file that is memory-mapped on load.
+ *
+ * File layout (little-endian):
+ * <pre>
+ *   0  int   magic "LBPH"
+ *   4  int   format version
+ *   8  int   radius, neighbors, gridX, gridY
+ *  24  int   sample count
+ *  28  int   histogram length (floats per sample)
+ *  32  int   histogram type (0 = float32, 1 = uint8 quantized)
+ *  36  int   reserved
+ *  40  long  offset of the histogram block
+ *  48  ...   reserved up to HEADER_SIZE
+ *  64  int[] labels
+ *      (padding to a 64-byte boundary)
+ *      histogram block, sample-major
+ * </pre>
+ *
+ * The histogram block is read in place from the mapping, so loading costs a
+ * few page faults instead of parsing, and processes on the same machine share
+ * the pages through the OS page cache. The file is mapped as a
+ * {@link MemorySegment} with long offsets, so the block may exceed 2 GiB. The
+ * mapping is released by {@link #close}, not left to the garbage collector.
+ *
+ * A mapped file cannot be replaced on every platform (Windows refuses to rename
+ * over it), so saves go to numbered versions next to the model path
+ * ({@code trained_faces.1.lbph}, {@code trained_faces.2.lbph}, ...; see
+ * {@link #writeNextVersion}) and loads map the newest one. Older versions are
+ * deleted once nothing maps them any more.
+ *
+ * Samples added or removed after loading live in an in-heap overlay (one flat
+ * float array) and are folded into the file on the next {@link #write}. Predictions
+ * may run concurrently; {@link #add} and {@link #remove} need exclusive access.
+ *
+ * Matching uses {@link ChiSquareKernel#best()} (SIMD when available) and splits
+ * galleries larger than {@code recognition.java.parallel.threshold} samples across
+ * the common fork-join pool, so predict latency scales with cores as the gallery grows.
+ */
+public final class LbphModel implements AutoCloseable {
+
+    public static final String FILE_EXTENSION = ".lbph";
+
+    private static final int MAGIC = 0x4850424C; // "LBPH" read little-endian
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int BLOCK_ALIGNMENT = 64;
+    private static final float QUANTIZATION_SCALE = 255f;
+    private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Encoding of the histogram block.
+     */
+    public enum HistogramType {
+        FLOAT32(0, Float.BYTES),
+        UINT8(1, 1);
+
+        private final int code;
+        private final int bytes;
+
+        HistogramType(int code, int bytes) {
+            this.code = code;
+            this.bytes = bytes;
+        }
+
+        static HistogramType fromCode(int code) {
+            for (HistogramType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown histogram type: " + code);
+        }
+    }
+
+    private final int radius;
+    private final int neighbors;
+    private final int gridX;
+    private final int gridY;
+    private final int histogramLength;
+
+    // Base samples (mapped file or heap)
+    private final int baseCount;
+    private final int[] baseLabels;
+    private final HistogramType baseType;
+    private final MemorySegment baseBlock;
+    private final Arena arena; // owns the mapping, null for a heap-only model
+
+    // Overlay: samples added since load, and removed sample indices (base first, then added)
+    private float[] addedHistograms = new float[0];
+    private int[] addedLabels = new int[0];
+    private int addedCount;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    private final ChiSquareKernel kernel = ChiSquareKernel.best();
+    private volatile GalleryIndex index;
+    private final int parallelThreshold = Math.max(1, AppConfig.getInt("recognition.java.parallel.threshold", 2048));
+
+    /**
+     * Nearest sample of one slice of the gallery.
+     */
+    private record Match(int index, int label, double distance) {
+        static final Match NONE = new Match(Integer.MAX_VALUE, -1, Double.MAX_VALUE);
+
+        Match closer(Match other) {
+            if (other.distance < distance || (other.distance == distance && other.index < index)) {
+                return other;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Closest distinct labels of one slice of the gallery, closest first
+     * (insertion into a small sorted array; k is a handful).
+     */
+    private static final class TopLabels {
+        final int[] labels;
+        final double[] distances;
+        int count;
+
+        TopLabels(int k) {
+            labels = new int[k];
+            distances = new double[k];
+        }
+
+        void offer(int label, double distance) {
+            for (int i = 0; i < count; i++) {
+                if (labels[i] == label) {
+                    if (distance >= distances[i]) {
+                        return;
+                    }
+                    // Same label, closer: remove and re-insert below
+                    System.arraycopy(labels, i + 1, labels, i, count - i - 1);
+                    System.arraycopy(distances, i + 1, distances, i, count - i - 1);
+                    count--;
+                    break;
+                }
+            }
+            if (count == labels.length && distance >= distances[count - 1]) {
+                return;
+            }
+            int position = Math.min(count, labels.length - 1);
+            while (position > 0 && distances[position - 1] > distance) {
+                labels[position] = labels[position - 1];
+                distances[position] = distances[position - 1];
+                position--;
+            }
+            labels[position] = label;
+            distances[position] = distance;
+            count = Math.min(count + 1, labels.length);
+        }
+
+        TopLabels merge(TopLabels other) {
+            for (int i = 0; i < other.count; i++) {
+                offer(other.labels[i], other.distances[i]);
+            }
+            return this;
+        }
+    }
+
+    private LbphModel(int radius, int neighbors, int gridX, int gridY, int histogramLength,
+                      int[] baseLabels, HistogramType baseType, MemorySegment block, Arena arena) {
+        this.radius = radius;
+        this.neighbors = neighbors;
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.histogramLength = histogramLength;
+        this.baseCount = baseLabels.length;
+        this.baseLabels = baseLabels;
+        this.baseType = baseType;
+        this.baseBlock = block;
+        this.arena = arena;
+    }
+
+    /**
+     * Create an empty gallery for the given LBPH parameters.
+     */
+    public static LbphModel create(int radius, int neighbors, int gridX, int gridY) {
+        int histogramLength = gridX * gridY * (1 << neighbors);
+        return new LbphModel(radius, neighbors, gridX, gridY, histogramLength,
+            new int[0], HistogramType.FLOAT32, null, null);
+    }
+
+    /**
+     * Path of the binary model stored next to an (OpenCV XML) model path.
+     */
+    public static Path binaryPathFor(String modelPath) {
+        String base = modelPath.endsWith(".xml") || modelPath.endsWith(".yml")
+            ? modelPath.substring(0, modelPath.length() - 4)
+            : modelPath;
+        return Path.of(base.endsWith(FILE_EXTENSION) ? base : base + FILE_EXTENSION);
+    }
+
+    /**
+     * Path of save number {@code version} of a binary model (0 is the unnumbered
+     * {@code binaryPath} itself, as written by older releases).
+     */
+    public static Path versionPath(Path binaryPath, long version) {
+        if (version == 0) {
+            return binaryPath;
+        }
+        String name = binaryPath.getFileName().toString();
+        String stem = name.substring(0, name.length() - FILE_EXTENSION.length());
+        return binaryPath.resolveSibling(stem + "." + version + FILE_EXTENSION);
+    }
+
+    /**
+     * Save number of {@code fileName} if it is a version of {@code binaryPath}, otherwise -1.
+     */
+    public static long versionOf(Path binaryPath, Path fileName) {
+        String base = binaryPath.getFileName().toString();
+        String name = fileName.getFileName().toString();
+        if (name.equals(base)) {
+            return 0;
+        }
+        String stem = base.substring(0, base.length() - FILE_EXTENSION.length()) + ".";
+        if (!name.startsWith(stem) || !name.endsWith(FILE_EXTENSION)) {
+            return -1;
+        }
+        String number = name.substring(stem.length(), name.length() - FILE_EXTENSION.length());
+        if (number.isEmpty() || number.length() > 18 || !number.chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        return Long.parseLong(number);
+    }
+
+    /**
+     * Newest saved version of {@code binaryPath}, or null if there is none.
+     */
+    public static Path latestVersion(Path binaryPath) throws IOException {
+        Path latest = null;
+        long latestVersion = -1;
+        Path directory = binaryPath.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path file : files) {
+                long version = versionOf(binaryPath, file);
+                if (version > latestVersion) {
+                    latestVersion = version;
+                    latest = file;
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Delete the versions of {@code binaryPath} older than {@code keep}. A version
+     * that cannot be deleted (still mapped somewhere, on Windows) is left for a
+     * later call.
+     *
+     * @return Number of versions deleted
+     */
+    public static int deleteOlderVersions(Path binaryPath, Path keep) throws IOException {
+        return deleteVersionsBelow(binaryPath, versionOf(binaryPath, keep));
+    }
+
+    /**
+     * Delete every version of {@code binaryPath}, e.g. once the XML model it was
+     * converted from has been retrained. Versions that cannot be deleted are left.
+     *
+     * @return Number of versions deleted
+     */
+    public static int deleteAllVersions(Path binaryPath) throws IOException {
+        return deleteVersionsBelow(binaryPath, Long.MAX_VALUE);
+    }
+
+    private static int deleteVersionsBelow(Path binaryPath, long keepVersion) throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                binaryPath.toAbsolutePath().getParent(), "*" + FILE_EXTENSION)) {
+            for (Path file : files) {
+                long version = versionOf(binaryPath, file);
+                if (version >= 0 && version < keepVersion) {
+                    try {
+                        Files.deleteIfExists(file);
+                        deleted++;
+                    } catch (IOException e) {
+                        // Mapped by this or another process; retried after the next save
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Memory-map a binary model file. The mapping lives until {@link #close}.
+     */
+    public static LbphModel map(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not an LBPH model file: " + file);
+            }
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, arena);
+
+            if (mapped.get(INT_LE, 0) != MAGIC) {
+                throw new IOException("Not an LBPH model file: " + file);
+            }
+            int version = mapped.get(INT_LE, 4);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported LBPH model version " + version + ": " + file);
+            }
+
+            int radius = mapped.get(INT_LE, 8);
+            int neighbors = mapped.get(INT_LE, 12);
+            int gridX = mapped.get(INT_LE, 16);
+            int gridY = mapped.get(INT_LE, 20);
+            int count = mapped.get(INT_LE, 24);
+            int histogramLength = mapped.get(INT_LE, 28);
+            HistogramType type = HistogramType.fromCode(mapped.get(INT_LE, 32));
+            long blockOffset = mapped.get(LONG_LE, 40);
+
+            if (count < 0 || neighbors < 0 || neighbors > 16 || gridX <= 0 || gridY <= 0
+                    || histogramLength != gridX * gridY * (1 << neighbors)
+                    || blockOffset < HEADER_SIZE + 4L * count
+                    // blockOffset + blockSize <= fileSize, without overflowing
+                    || (long) count * histogramLength > (fileSize - blockOffset) / type.bytes) {
+                throw new IOException("Corrupt LBPH model header: " + file);
+            }
+            long blockSize = (long) count * histogramLength * type.bytes;
+
+            int[] labels = new int[count];
+            MemorySegment.copy(mapped, INT_LE, HEADER_SIZE, labels, 0, count);
+
+            MemorySegment block = mapped.asSlice(blockOffset, blockSize);
+            return new LbphModel(radius, neighbors, gridX, gridY, histogramLength, labels, type, block, arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Unmap the file this model was loaded from (no-op for a model built in memory).
+     * The caller must make sure no prediction is still running on it.
+     */
+    @Override
+    public void close() {
+        if (arena != null && arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+
+    /**
+     * Write the live samples as the next numbered version of {@code binaryPath}.
+     * Never replaces an existing file, so it works while any earlier version is
+     * still mapped.
+     *
+     * @return The file written
+     */
+    public Path writeNextVersion(Path binaryPath, HistogramType type) throws IOException {
+        Path latest = latestVersion(binaryPath);
+        Path file = versionPath(binaryPath, latest == null ? 1 : versionOf(binaryPath, latest) + 1);
+        write(file, type);
+        return file;
+    }
+
+    /**
+     * Write the live samples (overlay folded in, removed samples dropped) to {@code file}.
+     *
+     * Written to a temporary file and moved into place, so a reader never sees a
+     * half-written model. Replacing a file that is mapped fails on Windows; use
+     * {@link #writeNextVersion} for a model file that may be in use.
+     *
+     * @return Number of samples written
+     */
+    public int write(Path file, HistogramType type) throws IOException {
+        int count = size();
+        long labelsEnd = HEADER_SIZE + 4L * count;
+        long blockOffset = (labelsEnd + BLOCK_ALIGNMENT - 1) / BLOCK_ALIGNMENT * BLOCK_ALIGNMENT;
+        long blockSize = (long) count * histogramLength * type.bytes;
+
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+                 Arena arena = Arena.ofConfined()) {
+                MemorySegment out = channel.map(FileChannel.MapMode.READ_WRITE, 0, blockOffset + blockSize, arena);
+
+                out.set(INT_LE, 0, MAGIC);
+                out.set(INT_LE, 4, FORMAT_VERSION);
+                out.set(INT_LE, 8, radius);
+                out.set(INT_LE, 12, neighbors);
+                out.set(INT_LE, 16, gridX);
+                out.set(INT_LE, 20, gridY);
+                out.set(INT_LE, 24, count);
+                out.set(INT_LE, 28, histogramLength);
+                out.set(INT_LE, 32, type.code);
+                out.set(LONG_LE, 40, blockOffset);
+
+                long labelOffset = HEADER_SIZE;
+                long sampleOffset = blockOffset;
+                float[] histogram = new float[histogramLength];
+                for (int i = 0, total = totalSamples(); i < total; i++) {
+                    if (removed.get(i)) {
+                        continue;
+                    }
+                    out.set(INT_LE, labelOffset, labelAt(i));
+                    labelOffset += Integer.BYTES;
+                    copySample(i, histogram);
+                    if (type == HistogramType.FLOAT32) {
+                        MemorySegment.copy(histogram, 0, out, ChiSquareKernel.FLOAT_LE, sampleOffset, histogramLength);
+                    } else {
+                        for (int j = 0; j < histogramLength; j++) {
+                            out.set(ValueLayout.JAVA_BYTE, sampleOffset + j,
+                                (byte) Math.min(255, Math.round(histogram[j] * QUANTIZATION_SCALE)));
+                        }
+                    }
+                    sampleOffset += (long) histogramLength * type.bytes;
+                }
+                out.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count;
+    }
+
+    /**
+     * Append a sample.
+     */
+    public void add(int label, float[] histogram) {
+        if (histogram.length != histogramLength) {
+            throw new IllegalArgumentException("Expected histogram of length " + histogramLength);
+        }
+        if (addedCount == addedLabels.length) {
+            int capacity = Math.max(16, addedCount * 2);
+            addedLabels = Arrays.copyOf(addedLabels, capacity);
+            addedHistograms = Arrays.copyOf(addedHistograms, capacity * histogramLength);
+        }
+        System.arraycopy(histogram, 0, addedHistograms, addedCount * histogramLength, histogramLength);
+        addedLabels[addedCount++] = label;
+
+        GalleryIndex current = index;
+        if (current != null && current.size() == totalSamples() - 1) {
+            current.add(histogram);
+        }
+    }
+
+    /**
+     * Remove every sample of a label.
+     *
+     * @return Number of samples removed
+     */
+    public int remove(int label) {
+        int count = 0;
+        for (int i = 0, total = totalSamples(); i < total; i++) {
+            if (!removed.get(i) && labelAt(i) == label) {
+                removed.set(i);
+                count++;
+            }
+        }
+        removedCount += count;
+        return count;
+    }
+
+    /**
+     * Nearest live sample by chi-square distance, like {@code LBPHFaceRecognizer.predict}.
+     * Writes label -1 and {@code Double.MAX_VALUE} when nothing is closer than the threshold.
+     * Uses the approximate index when one was built ({@link #buildIndex}).
+     */
+    public void predict(float[] query, double threshold, int[] label, double[] distance) {
+        GalleryIndex current = index;
+        Match best = current != null
+            ? searchIndexed(current, query, threshold, -1)
+            : searchExact(query, threshold, -1);
+        label[0] = best.label();
+        distance[0] = best.distance();
+    }
+
+    /**
+     * Exact scan, optionally ignoring one sample (leave-one-out evaluation).
+     */
+    public void predictExact(float[] query, double threshold, int excludeIndex, int[] label, double[] distance) {
+        Match best = searchExact(query, threshold, excludeIndex);
+        label[0] = best.label();
+        distance[0] = best.distance();
+    }
+
+    /**
+     * Index search with exact re-ranking, optionally ignoring one sample.
+     * Falls back to the exact scan when no index was built.
+     */
+    public void predictIndexed(float[] query, double threshold, int excludeIndex, int[] label, double[] distance) {
+        GalleryIndex current = index;
+        Match best = current != null
+            ? searchIndexed(current, query, threshold, excludeIndex)
+            : searchExact(query, threshold, excludeIndex);
+        label[0] = best.label();
+        distance[0] = best.distance();
+    }
+
+    /**
+     * The {@code k} closest distinct labels within {@code threshold}, closest first,
+     * each with the distance of its nearest sample. Uses the approximate index when
+     * one was built (labels outside its candidates are then not reported).
+     *
+     * @param labels Output labels (length at least k)
+     * @param distances Output distances (length at least k)
+     * @return Number of labels written (at most k)
+     */
+    public int predictTopK(float[] query, double threshold, int k, int[] labels, double[] distances) {
+        TopLabels top;
+        GalleryIndex current = index;
+        if (current != null) {
+            top = new TopLabels(k);
+            for (int i : current.candidates(query)) {
+                if (removedCount == 0 || !removed.get(i)) {
+                    double dist = distanceTo(query, i);
+                    if (dist < threshold) {
+                        top.offer(labelAt(i), dist);
+                    }
+                }
+            }
+            top.merge(scanTop(query, threshold, k, current.size(), totalSamples()));
+        } else {
+            int total = totalSamples();
+            if (total < parallelThreshold) {
+                top = scanTop(query, threshold, k, 0, total);
+            } else {
+                int slices = Math.min(ForkJoinPool.getCommonPoolParallelism() * 2,
+                    Math.max(1, total / Math.max(1, parallelThreshold / 4)));
+                top = IntStream.range(0, slices).parallel()
+                    .mapToObj(slice -> scanTop(query, threshold, k,
+                        (int) ((long) total * slice / slices), (int) ((long) total * (slice + 1) / slices)))
+                    .reduce(TopLabels::merge)
+                    .orElseGet(() -> new TopLabels(k));
+            }
+        }
+        System.arraycopy(top.labels, 0, labels, 0, top.count);
+        System.arraycopy(top.distances, 0, distances, 0, top.count);
+        return top.count;
+    }
+
+    /**
+     * Build the approximate index over the current samples and start using it.
+     * Must not run concurrently with {@link #add} or {@link #remove}; to build
+     * in the background, use {@link #buildIndex(Snapshot, GalleryIndex.Settings)}.
+     */
+    public GalleryIndex buildIndex(GalleryIndex.Settings settings) {
+        return buildIndex(snapshot(), settings);
+    }
+
+    /**
+     * Build the approximate index over the samples of {@code snapshot} and start
+     * using it. Safe to call from a background thread while predictions, adds and
+     * removes run; samples added after the snapshot are scanned exactly until the
+     * next build, and removed samples are skipped at query time.
+     */
+    public GalleryIndex buildIndex(Snapshot snapshot, GalleryIndex.Settings settings) {
+        GalleryIndex built = GalleryIndex.build(snapshot, settings);
+        index = built;
+        return built;
+    }
+
+    /**
+     * The samples stored right now. Take it under the same lock as {@link #add}
+     * and {@link #remove}; it can then be read from any thread without one.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * Samples {@code [0, size())} of the gallery as they were when the snapshot
+     * was taken. Later adds do not affect it: overlay entries below the count
+     * are never rewritten, and a grown overlay array is a fresh copy.
+     */
+    public final class Snapshot {
+        private final int count;
+        private final float[] added;
+
+        private Snapshot() {
+            this.count = totalSamples();
+            this.added = addedHistograms;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        int histogramLength() {
+            return histogramLength;
+        }
+
+        void copySample(int index, float[] target) {
+            if (index >= baseCount) {
+                System.arraycopy(added, (index - baseCount) * histogramLength, target, 0, histogramLength);
+            } else {
+                copyBaseSample(index, target);
+            }
+        }
+    }
+
+    /**
+     * The approximate index in use, or null.
+     */
+    public GalleryIndex getIndex() {
+        return index;
+    }
+
+    private Match searchExact(float[] query, double threshold, int excludeIndex) {
+        int total = totalSamples();
+        if (total < parallelThreshold) {
+            return scan(query, threshold, 0, total, excludeIndex);
+        }
+        // Contiguous slices, at least parallelThreshold / 4 samples each
+        int slices = Math.min(ForkJoinPool.getCommonPoolParallelism() * 2,
+            Math.max(1, total / Math.max(1, parallelThreshold / 4)));
+        return IntStream.range(0, slices).parallel()
+            .mapToObj(slice -> scan(query, threshold,
+                (int) ((long) total * slice / slices), (int) ((long) total * (slice + 1) / slices), excludeIndex))
+            .reduce(Match.NONE, Match::closer);
+    }
+
+    private Match searchIndexed(GalleryIndex current, float[] query, double threshold, int excludeIndex) {
+        Match best = Match.NONE;
+        for (int i : current.candidates(query)) {
+            if (i == excludeIndex || (removedCount > 0 && removed.get(i))) {
+                continue;
+            }
+            double dist = distanceTo(query, i);
+            if (dist < threshold) {
+                best = best.closer(new Match(i, labelAt(i), dist));
+            }
+        }
+        // Samples added after the index was built
+        return best.closer(scan(query, threshold, current.size(), totalSamples(), excludeIndex));
+    }
+
+    /**
+     * Nearest live sample within {@code threshold} among samples [from, to).
+     */
+    private Match scan(float[] query, double threshold, int from, int to, int excludeIndex) {
+        double minDist = Double.MAX_VALUE;
+        int minIndex = -1;
+
+        for (int i = from; i < to; i++) {
+            if (i == excludeIndex || (removedCount > 0 && removed.get(i))) {
+                continue;
+            }
+            double dist = distanceTo(query, i);
+            if (dist < minDist && dist < threshold) {
+                minDist = dist;
+                minIndex = i;
+            }
+        }
+        return minIndex < 0 ? Match.NONE : new Match(minIndex, labelAt(minIndex), minDist);
+    }
+
+    private TopLabels scanTop(float[] query, double threshold, int k, int from, int to) {
+        TopLabels top = new TopLabels(k);
+        for (int i = from; i < to; i++) {
+            if (removedCount > 0 && removed.get(i)) {
+                continue;
+            }
+            double dist = distanceTo(query, i);
+            if (dist < threshold) {
+                top.offer(labelAt(i), dist);
+            }
+        }
+        return top;
+    }
+
+    private double distanceTo(float[] query, int i) {
+        if (i >= baseCount) {
+            return kernel.distance(query, addedHistograms, (i - baseCount) * histogramLength);
+        } else if (baseType == HistogramType.FLOAT32) {
+            return kernel.distance(query, baseBlock, (long) i * histogramLength * Float.BYTES);
+        }
+        return chiSquareQuantized(query, baseBlock, (long) i * histogramLength);
+    }
+
+    /**
+     * Extractor producing histograms compatible with this gallery.
+     */
+    public LbphHistogramExtractor newExtractor() {
+        return new LbphHistogramExtractor(radius, neighbors, gridX, gridY);
+    }
+
+    /**
+     * Number of live samples.
+     */
+    public int size() {
+        return totalSamples() - removedCount;
+    }
+
+    public int getRadius() { return radius; }
+    public int getNeighbors() { return neighbors; }
+    public int getGridX() { return gridX; }
+    public int getGridY() { return gridY; }
+    public int getHistogramLength() { return histogramLength; }
+
+    /**
+     * Number of stored samples including removed ones (valid sample indices are below this).
+     */
+    public int getSampleCount() {
+        return totalSamples();
+    }
+
+    /**
+     * Label of sample {@code index}.
+     */
+    public int sampleLabel(int index) {
+        return labelAt(index);
+    }
+
+    /**
+     * Whether sample {@code index} was removed.
+     */
+    public boolean isRemoved(int index) {
+        return removed.get(index);
+    }
+
+    /**
+     * Copy of the histogram of sample {@code index}.
+     */
+    public float[] sampleHistogram(int index) {
+        float[] histogram = new float[histogramLength];
+        copySample(index, histogram);
+        return histogram;
+    }
+
+    private int totalSamples() {
+        return baseCount + addedCount;
+    }
+
+    private int labelAt(int index) {
+        return index < baseCount ? baseLabels[index] : addedLabels[index - baseCount];
+    }
+
+    void copySample(int index, float[] target) {
+        if (index >= baseCount) {
+            System.arraycopy(addedHistograms, (index - baseCount) * histogramLength, target, 0, histogramLength);
+        } else {
+            copyBaseSample(index, target);
+        }
+    }
+
+    private void copyBaseSample(int index, float[] target) {
+        if (baseType == HistogramType.FLOAT32) {
+            MemorySegment.copy(baseBlock, ChiSquareKernel.FLOAT_LE, (long) index * histogramLength * Float.BYTES,
+                target, 0, histogramLength);
+        } else {
+            long offset = (long) index * histogramLength;
+            for (int j = 0; j < histogramLength; j++) {
+                target[j] = (baseBlock.get(ValueLayout.JAVA_BYTE, offset + j) & 0xFF) / QUANTIZATION_SCALE;
+            }
+        }
+    }
+
+    /**
+     * Chi-square against a uint8-quantized sample (scalar; quantized galleries trade
+     * matching speed for a 4x smaller file).
+     */
+    private static double chiSquareQuantized(float[] query, MemorySegment block, long offset) {
+        double result = 0;
+        for (int j = 0; j < query.length; j++) {
+            float value = (block.get(ValueLayout.JAVA_BYTE, offset + j) & 0xFF) / QUANTIZATION_SCALE;
+            double a = query[j] - value;
+            double b = query[j] + value;
+            if (Math.abs(b) > ChiSquareKernel.DBL_EPSILON) {
+                result += a * a / b;
+            }
+        }
+        return 2 * result;
+    }
+}
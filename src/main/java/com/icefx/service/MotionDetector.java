@@ -0,0 +1,159 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import static org.bytedeco.opencv.global.opencv_core.absdiff;
+import static org.bytedeco.opencv.global.opencv_core.countNonZero;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Cheap motion check in front of face detection: frame differencing on a small
+ * grayscale copy of each frame (160 px wide by default).
+ *
+ * A frame where nothing moved needs no detection at all; when something did,
+ * detection can be limited to the (padded) bounding box of what changed. The
+ * detector also tracks how long the scene has been still, so the camera can
+ * drop to an idle processing rate ({@code motion.idle.*}) and come back on the first
+ * frame with motion.
+ *
+ * Used by a single capture thread.
+ */
+public class MotionDetector implements AutoCloseable {
+
+    private final int width;
+    private final double threshold;
+    private final double minArea;
+    private final double padding;
+    private final long idleAfterNanos;
+
+    private Mat small = new Mat();
+    private Mat gray = new Mat();
+    private Mat previous = new Mat();
+    private final Mat diff = new Mat();
+    private final Mat kernel = new Mat();
+
+    private long lastMotion = System.nanoTime();
+
+    /**
+     * Detector with the {@code motion.*} settings from AppConfig.
+     */
+    public MotionDetector() {
+        this(AppConfig.getInt("motion.width", 160),
+             AppConfig.getInt("motion.threshold", 25),
+             AppConfig.getDouble("motion.min.area", 0.002),
+             AppConfig.getDouble("motion.padding", 0.25),
+             AppConfig.getInt("motion.idle.minutes", 5) * 60_000L);
+    }
+
+    /**
+     * @param width Width of the copy frames are compared at
+     * @param threshold Gray level change (0-255) a pixel needs to count as moved
+     * @param minArea Fraction of moved pixels below which the frame counts as still
+     * @param padding Margin added around the motion box, as a fraction of its size
+     *                (a moving shoulder should still include the face above it)
+     * @param idleAfterMillis Stillness after which {@link #isIdle()} is true (0 = never)
+     */
+    public MotionDetector(int width, double threshold, double minArea, double padding, long idleAfterMillis) {
+        this.width = Math.max(16, width);
+        this.threshold = threshold;
+        this.minArea = minArea;
+        this.padding = padding;
+        this.idleAfterNanos = idleAfterMillis * 1_000_000L;
+    }
+
+    /**
+     * Compare a frame with the previous one.
+     *
+     * @param frame Full frame (BGR or gray)
+     * @return The region that moved, in frame coordinates and padded, or null if
+     *         nothing did. The first frame counts as motion over the whole frame.
+     */
+    public FaceTracker.Box detect(Mat frame) {
+        double scale = Math.min(1.0, (double) width / frame.cols());
+        int smallWidth = Math.max(1, (int) Math.round(frame.cols() * scale));
+        int smallHeight = Math.max(1, (int) Math.round(frame.rows() * scale));
+        try (Size size = new Size(smallWidth, smallHeight)) {
+            resize(frame, small, size, 0, 0, INTER_AREA);
+        }
+        switch (small.channels()) {
+            case 3 -> cvtColor(small, gray, COLOR_BGR2GRAY);
+            case 4 -> cvtColor(small, gray, COLOR_BGRA2GRAY);
+            default -> small.copyTo(gray);
+        }
+        try (Size blur = new Size(5, 5)) {
+            GaussianBlur(gray, gray, blur, 0);
+        }
+
+        boolean first = previous.empty() || previous.cols() != gray.cols() || previous.rows() != gray.rows();
+        FaceTracker.Box moved = null;
+        if (first) {
+            moved = new FaceTracker.Box(0, 0, frame.cols(), frame.rows());
+        } else {
+            absdiff(gray, previous, diff);
+            threshold(diff, diff, threshold, 255, THRESH_BINARY);
+            dilate(diff, diff, kernel);
+            if (countNonZero(diff) >= minArea * diff.total()) {
+                try (Rect box = boundingRect(diff)) {
+                    moved = toFrame(box.x(), box.y(), box.width(), box.height(), scale, padding,
+                        frame.cols(), frame.rows());
+                }
+            }
+        }
+
+        // This frame becomes the reference for the next one (swap instead of copying)
+        Mat swap = previous;
+        previous = gray;
+        gray = swap;
+
+        if (moved != null) {
+            lastMotion = System.nanoTime();
+        }
+        return moved;
+    }
+
+    /**
+     * Whether nothing has moved for {@code motion.idle.minutes}.
+     */
+    public boolean isIdle() {
+        return isIdle(System.nanoTime());
+    }
+
+    boolean isIdle(long now) {
+        return idleAfterNanos > 0 && now - lastMotion >= idleAfterNanos;
+    }
+
+    /**
+     * Forget the reference frame, so the next frame counts as motion (e.g. after
+     * the camera restarts).
+     */
+    public void reset() {
+        previous.release();
+        lastMotion = System.nanoTime();
+    }
+
+    /**
+     * Map a box found on a copy downscaled by {@code scale} back to the frame,
+     * grown by {@code padding} and clipped to the frame.
+     */
+    static FaceTracker.Box toFrame(int x, int y, int width, int height, double scale, double padding,
+                                   int frameWidth, int frameHeight) {
+        int left = (int) Math.floor(x / scale);
+        int top = (int) Math.floor(y / scale);
+        int right = (int) Math.ceil((x + width) / scale);
+        int bottom = (int) Math.ceil((y + height) / scale);
+        return new FaceTracker.Box(left, top, right - left, bottom - top)
+            .expand(padding, frameWidth, frameHeight);
+    }
+
+    @Override
+    public void close() {
+        small.release();
+        gray.release();
+        previous.release();
+        diff.release();
+        kernel.release();
+    }
+}
@@ -0,0 +1,121 @@
+package com.icefx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a {@link RecognitionPipeline}: takes items from its input
+ * queue, processes them, and puts the result on the next queue.
+ *
+ * A stage has no thread of its own. It runs as a lane of a shared
+ * {@link LanePool}, scheduled whenever its queue receives an item, so items are
+ * processed one at a time and in order. The stage owns each item it takes and
+ * releases it after processing; results are handed over to the output queue.
+ */
+final class PipelineStage<I, O> {
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    private static final long STOP_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * Work done on one item. A null result is not passed on.
+     */
+    @FunctionalInterface
+    interface Work<I, O> {
+        O process(I input) throws Exception;
+    }
+
+    private final String name;
+    private final StageQueue<I> input;
+    private final Work<I, O> work;
+    private final StageQueue<O> output;
+    private final Consumer<? super I> release;
+    private final LanePool.Lane lane;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    /**
+     * @param output Next queue, or null for the last stage
+     * @param release Called for every input once processed, or null
+     * @param pool Workers the stage runs on
+     */
+    PipelineStage(String name, StageQueue<I> input, Work<I, O> work,
+                  StageQueue<O> output, Consumer<? super I> release, LanePool pool) {
+        this.name = name;
+        this.input = input;
+        this.work = work;
+        this.output = output;
+        this.release = release;
+        this.lane = pool.newLane(name, this::step, () -> input.depth() > 0);
+    }
+
+    void start() {
+        input.setOnAvailable(lane::schedule);
+        lane.schedule();
+    }
+
+    /**
+     * Stop scheduling the stage and wait briefly for the item in hand to finish.
+     */
+    void stop() {
+        input.setOnAvailable(null);
+        lane.close(STOP_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Process one queued item, if any.
+     */
+    private void step() {
+        I item = input.poll();
+        if (item == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            O result = work.process(item);
+            if (result != null && output != null) {
+                output.put(result);
+            }
+        } catch (InterruptedException e) {
+            // The worker belongs to a shared pool: end this stage only, not the thread
+            logger.warn("Pipeline stage {} interrupted - stopping it", name);
+            input.setOnAvailable(null);
+            lane.cancel();
+        } catch (Exception e) {
+            failed.increment();
+            logger.error("Pipeline stage {} failed", name, e);
+        } finally {
+            if (release != null) {
+                release.accept(item);
+            }
+            processed.increment();
+            busyNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getProcessed() {
+        return processed.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Average processing time per item in milliseconds.
+     */
+    double getAverageMillis() {
+        long count = processed.sum();
+        return count == 0 ? 0 : busyNanos.sum() / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,281 @@
+package com.icefx.service;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.*;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC4;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Camera preview that renders straight into {@link PixelBuffer}-backed images.
+ *
+ * The camera thread converts each frame into the native memory of a free
+ * image ({@link #offer}), so no {@code Image} is built per frame. Once per
+ * JavaFX pulse an {@link AnimationTimer} publishes the newest finished frame and
+ * the coalesced stats; frames finished in between are simply overwritten, so
+ * the FX event queue never backs up behind the camera.
+ *
+ * Three images rotate: one shown, one holding the newest finished frame, one
+ * being written. A shown image is only reused one pulse after it was replaced,
+ * when the renderer is done with it. While the preview view is hidden or its
+ * window minimized, frames are not converted at all.
+ */
+public class PreviewPresenter {
+    private static final Logger logger = LoggerFactory.getLogger(PreviewPresenter.class);
+
+    private static final int IMAGE_COUNT = 3;
+
+    /**
+     * One preview image and the native memory behind it.
+     */
+    private static final class Slot {
+        final Images owner;
+        final PixelBuffer<ByteBuffer> pixels;
+        final WritableImage image;
+        final Mat view; // BGRA Mat over the pixel buffer memory
+
+        Slot(Images owner) {
+            this.owner = owner;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(owner.width * owner.height * 4);
+            this.pixels = new PixelBuffer<>(owner.width, owner.height, buffer, PixelFormat.getByteBgraPreInstance());
+            this.image = new WritableImage(pixels);
+            this.view = new Mat(owner.height, owner.width, CV_8UC4, new BytePointer(buffer));
+        }
+    }
+
+    /**
+     * The image set for one frame size (replaced when the camera resolution changes).
+     */
+    private static final class Images {
+        final int width;
+        final int height;
+        final ConcurrentLinkedQueue<Slot> free = new ConcurrentLinkedQueue<>();
+
+        Images(int width, int height) {
+            this.width = width;
+            this.height = height;
+            for (int i = 0; i < IMAGE_COUNT; i++) {
+                free.offer(new Slot(this));
+            }
+        }
+    }
+
+    // Camera thread
+    private Images images;
+    private final AtomicReference<Slot> ready = new AtomicReference<>();
+
+    // FX thread
+    private Slot shown;
+    private Slot retired;
+    private AnimationTimer timer;
+    private Node view;
+
+    // Written by the camera thread, published once per pulse
+    private volatile int pendingFrameCount;
+    private volatile double pendingFps;
+    private volatile boolean rendering = true;
+
+    private final LongAdder rendered = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    private final ObjectProperty<Image> image = new SimpleObjectProperty<>();
+    private final IntegerProperty framesProcessed = new SimpleIntegerProperty(0);
+    private final DoubleProperty fps = new SimpleDoubleProperty(0.0);
+
+    /**
+     * Render frames only while this node is showing (visible, in a shown and not
+     * minimized window). Call on the FX thread.
+     */
+    public void attach(Node view) {
+        this.view = view;
+    }
+
+    /**
+     * Start publishing on every pulse. Safe to call from any thread.
+     */
+    public void start() {
+        runOnFxThread(() -> {
+            if (timer == null) {
+                timer = new AnimationTimer() {
+                    @Override
+                    public void handle(long now) {
+                        pulse();
+                    }
+                };
+            }
+            timer.start();
+        });
+    }
+
+    /**
+     * Stop publishing and clear the preview and stats. Safe to call from any thread.
+     */
+    public void stop() {
+        runOnFxThread(() -> {
+            if (timer != null) {
+                timer.stop();
+            }
+            Slot pending = ready.getAndSet(null);
+            if (pending != null) {
+                pending.owner.free.offer(pending);
+            }
+            pendingFrameCount = 0;
+            pendingFps = 0.0;
+            image.set(null);
+            framesProcessed.set(0);
+            fps.set(0.0);
+            logger.debug("Preview stopped: {} frames rendered, {} skipped", rendered.sum(), skipped.sum());
+        });
+    }
+
+    /**
+     * Write a frame into a free preview image. Called on the camera thread.
+     *
+     * @param frame BGR, BGRA or grayscale frame (not retained)
+     */
+    public void offer(Mat frame) {
+        if (!rendering || frame == null || frame.empty()) {
+            skipped.increment();
+            return;
+        }
+
+        Images current = images;
+        if (current == null || current.width != frame.cols() || current.height != frame.rows()) {
+            current = new Images(frame.cols(), frame.rows());
+            images = current;
+            logger.info("Preview images allocated for {}x{}", current.width, current.height);
+        }
+
+        Slot slot = current.free.poll();
+        if (slot == null) {
+            skipped.increment(); // the FX thread has not released an image yet
+            return;
+        }
+
+        switch (frame.channels()) {
+            case 1 -> cvtColor(frame, slot.view, COLOR_GRAY2BGRA);
+            case 4 -> frame.copyTo(slot.view);
+            default -> cvtColor(frame, slot.view, COLOR_BGR2BGRA);
+        }
+
+        // Replace a finished frame the FX thread has not picked up yet
+        Slot superseded = ready.getAndSet(slot);
+        if (superseded != null) {
+            superseded.owner.free.offer(superseded);
+        }
+    }
+
+    /**
+     * Record capture stats; they reach the properties on the next pulse.
+     */
+    public void updateStats(int frameCount, double currentFps) {
+        pendingFrameCount = frameCount;
+        pendingFps = currentFps;
+    }
+
+    /**
+     * One JavaFX pulse: publish the newest frame and the stats.
+     */
+    private void pulse() {
+        // The image replaced on the previous pulse has been rendered by now
+        if (retired != null) {
+            retired.owner.free.offer(retired);
+            retired = null;
+        }
+
+        rendering = view == null || isShowing(view);
+
+        Slot next = ready.getAndSet(null);
+        if (next != null) {
+            if (rendering) {
+                next.pixels.updateBuffer(buffer -> null); // whole image changed
+                image.set(next.image);
+                retired = shown;
+                shown = next;
+                rendered.increment();
+            } else {
+                next.owner.free.offer(next);
+            }
+        }
+
+        if (framesProcessed.get() != pendingFrameCount) {
+            framesProcessed.set(pendingFrameCount);
+        }
+        if (fps.get() != pendingFps) {
+            fps.set(pendingFps);
+        }
+    }
+
+    /**
+     * Whether a node and all its parents are visible in a shown, non-minimized window.
+     */
+    private static boolean isShowing(Node node) {
+        if (node.getScene() == null) {
+            return false;
+        }
+        Window window = node.getScene().getWindow();
+        if (window == null || !window.isShowing()
+                || (window instanceof Stage stage && stage.isIconified())) {
+            return false;
+        }
+        for (Node n = node; n != null; n = n.getParent()) {
+            if (!n.isVisible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    // === Property Getters for JavaFX Binding ===
+
+    public ObjectProperty<Image> imageProperty() {
+        return image;
+    }
+
+    public IntegerProperty framesProcessedProperty() {
+        return framesProcessed;
+    }
+
+    public DoubleProperty fpsProperty() {
+        return fps;
+    }
+
+    /**
+     * Frames published to the preview.
+     */
+    public long getRenderedFrames() {
+        return rendered.sum();
+    }
+
+    /**
+     * Frames not converted (preview hidden or no free image).
+     */
+    public long getSkippedFrames() {
+        return skipped.sum();
+    }
+}
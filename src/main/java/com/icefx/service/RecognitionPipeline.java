@@ -0,0 +1,249 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Staged frame processing of one camera, decoupled from capture:
+ * capture → detect → recognize → notify.
+ *
+ * The camera thread only copies a frame into the detect queue and goes back to
+ * grabbing, so a slow recognition never lowers the capture rate. Each stage has
+ * a bounded queue in front of it ({@code pipeline.*} in AppConfig):
+ *
+ * - detect: latest-wins by default - a stale frame is never worth detecting
+ * - recognize: drop-oldest by default - detected frames skipped under load
+ * - notify: blocking by default - results carry attendance, so the recognize
+ *   lane waits for room, but only up to {@code pipeline.notify.block.ms}; after
+ *   that the oldest result is dropped and counted rather than holding a shared
+ *   worker (and so every other camera) behind a slow listener
+ *
+ * Stages own no threads: detect and recognize run on a worker {@link LanePool}
+ * shared by every camera, notify on a separate one. Each stage is a lane, so
+ * one camera's frames are still processed in order (as its tracker needs), while
+ * cameras take turns on the workers.
+ */
+public class RecognitionPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(RecognitionPipeline.class);
+
+    /**
+     * Receives the results of every frame that made it through the pipeline,
+     * on the notify thread.
+     */
+    @FunctionalInterface
+    public interface ResultListener {
+        void onResults(String cameraId, List<FaceRecognitionService.RecognitionResult> results);
+    }
+
+    /**
+     * A frame copy waiting for detection, with the region that moved (null = whole frame).
+     */
+    private record Captured(Mat frame, FaceTracker.Box motion) {
+    }
+
+    private final String cameraId;
+
+    private final StageQueue<Captured> frames;
+    private final StageQueue<FaceRecognitionService.DetectedFrame> detected;
+    private final StageQueue<List<FaceRecognitionService.RecognitionResult>> results;
+
+    private final PipelineStage<Captured, FaceRecognitionService.DetectedFrame> detectStage;
+    private final PipelineStage<FaceRecognitionService.DetectedFrame,
+        List<FaceRecognitionService.RecognitionResult>> recognizeStage;
+    private final PipelineStage<List<FaceRecognitionService.RecognitionResult>, Void> notifyStage;
+
+    // Recycled frame copies: the camera thread copies into a free one instead of cloning
+    private final ConcurrentLinkedQueue<Mat> freeFrames = new ConcurrentLinkedQueue<>();
+    private final int maxFreeFrames;
+    private final LongAdder frameAllocations = new LongAdder();
+
+    private final long statsIntervalNanos;
+    private volatile long lastStats = System.nanoTime();
+    private volatile boolean running;
+
+    /**
+     * @param cameraId Camera the frames come from (passed to the listener)
+     * @param service Recognition service doing the detect and recognize work
+     * @param tracker Tracker of the camera, or null to recognize every face of every frame
+     * @param workers Shared pool running the detect and recognize stages
+     * @param notifier Shared pool running the notify stage
+     * @param listener Receives each frame's results
+     */
+    public RecognitionPipeline(String cameraId, FaceRecognitionService service, FaceTracker tracker,
+                               LanePool workers, LanePool notifier, ResultListener listener) {
+        this.cameraId = cameraId;
+        this.frames = new StageQueue<>(cameraId + "/detect",
+            AppConfig.getInt("pipeline.detect.queue", 1),
+            StageQueue.DropPolicy.parse(AppConfig.get("pipeline.detect.policy", "latest_wins"),
+                StageQueue.DropPolicy.LATEST_WINS),
+            captured -> recycle(captured.frame()));
+        this.detected = new StageQueue<>(cameraId + "/recognize",
+            AppConfig.getInt("pipeline.recognize.queue", 2),
+            workerPolicy(AppConfig.get("pipeline.recognize.policy", "drop_oldest")),
+            FaceRecognitionService.DetectedFrame::close);
+        this.results = new StageQueue<>(cameraId + "/notify",
+            AppConfig.getInt("pipeline.notify.queue", 64),
+            StageQueue.DropPolicy.parse(AppConfig.get("pipeline.notify.policy", "block"),
+                StageQueue.DropPolicy.BLOCK),
+            null, Math.max(1, AppConfig.getInt("pipeline.notify.block.ms", 100)));
+        this.maxFreeFrames = frames.getCapacity() + 2; // queued + in detection + being copied
+        this.statsIntervalNanos = AppConfig.getInt("pipeline.stats.interval.seconds", 60) * 1_000_000_000L;
+
+        this.detectStage = new PipelineStage<>(cameraId + "-Detect", frames,
+            captured -> service.detect(captured.frame(), tracker, captured.motion()), detected,
+            captured -> recycle(captured.frame()), workers);
+        this.recognizeStage = new PipelineStage<>(cameraId + "-Recognize", detected,
+            frame -> service.recognize(frame, tracker), results, FaceRecognitionService.DetectedFrame::close, workers);
+        this.notifyStage = new PipelineStage<>(cameraId + "-Notify", results,
+            frameResults -> {
+                listener.onResults(cameraId, frameResults);
+                return null;
+            }, null, null, notifier);
+
+        logger.info("Recognition pipeline created: {}, {}, {}", frames, detected, results);
+    }
+
+    public void start() {
+        running = true;
+        notifyStage.start();
+        recognizeStage.start();
+        detectStage.start();
+        logger.info("▶️ Recognition pipeline started for camera {}", cameraId);
+    }
+
+    /**
+     * Stop every stage (front to back) and release whatever is still queued.
+     */
+    public void stop() {
+        running = false;
+        detectStage.stop();
+        recognizeStage.stop();
+        notifyStage.stop();
+        frames.clear();
+        detected.clear();
+        results.clear();
+        logStats();
+        Mat free;
+        while ((free = freeFrames.poll()) != null) {
+            free.release();
+        }
+        logger.info("⏹️ Recognition pipeline stopped for camera {}", cameraId);
+    }
+
+    /**
+     * Hand a frame to the detect stage. Called on the camera thread; copies the
+     * frame into a recycled buffer and never waits unless the detect queue is
+     * configured to block.
+     *
+     * @param frame Captured frame (not retained)
+     * @return false if the pipeline is stopped or a queued frame was dropped for this one
+     */
+    public boolean submit(Mat frame) {
+        return submit(frame, null);
+    }
+
+    /**
+     * As {@link #submit(Mat)}, with the region that moved since the previous frame
+     * (detection is limited to it), or null to search the whole frame.
+     */
+    public boolean submit(Mat frame, FaceTracker.Box motion) {
+        if (!running || frame == null || frame.empty()) {
+            return false;
+        }
+        Mat copy = freeFrames.poll();
+        if (copy == null) {
+            copy = new Mat();
+        }
+        long before = copy.empty() ? 0 : copy.data().address();
+        frame.copyTo(copy);
+        if (copy.data().address() != before) {
+            frameAllocations.increment();
+        }
+
+        boolean queued;
+        try {
+            queued = frames.put(new Captured(copy, motion));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        long now = System.nanoTime();
+        if (statsIntervalNanos > 0 && now - lastStats >= statsIntervalNanos) {
+            lastStats = now;
+            logStats();
+        }
+        return queued;
+    }
+
+    /**
+     * The recognize queue is fed by a shared worker: a full blocking queue there
+     * could park every worker, so it may drop instead.
+     */
+    private static StageQueue.DropPolicy workerPolicy(String value) {
+        StageQueue.DropPolicy policy = StageQueue.DropPolicy.parse(value, StageQueue.DropPolicy.DROP_OLDEST);
+        if (policy == StageQueue.DropPolicy.BLOCK) {
+            logger.warn("pipeline.recognize.policy=block could stall the shared workers - using drop_oldest");
+            return StageQueue.DropPolicy.DROP_OLDEST;
+        }
+        return policy;
+    }
+
+    public String getCameraId() {
+        return cameraId;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Frames dropped by the detect and recognize queues.
+     */
+    public long getDroppedFrames() {
+        return frames.getDropped() + detected.getDropped();
+    }
+
+    /**
+     * Results dropped because the notify stage fell behind.
+     */
+    public long getDroppedResults() {
+        return results.getDropped();
+    }
+
+    /**
+     * Native frame buffers allocated for copies. Stays flat once the pool is warm.
+     */
+    public long getFrameAllocations() {
+        return frameAllocations.sum();
+    }
+
+    /**
+     * Return a frame copy to the pool (or free it if the pool is full or the pipeline stopped).
+     */
+    private void recycle(Mat frame) {
+        if (running && freeFrames.size() < maxFreeFrames) {
+            freeFrames.offer(frame);
+        } else {
+            frame.release();
+        }
+    }
+
+    public void logStats() {
+        logger.info("📊 Pipeline queues: {} | {} | {} (frame allocations: {})",
+            frames, detected, results, frameAllocations.sum());
+        logger.info("📊 Pipeline stages: {} | {} | {}",
+            describe(detectStage), describe(recognizeStage), describe(notifyStage));
+    }
+
+    private static String describe(PipelineStage<?, ?> stage) {
+        return String.format("%s[processed=%d, failed=%d, avg=%.1fms]",
+            stage.getName(), stage.getProcessed(), stage.getFailed(), stage.getAverageMillis());
+    }
+}
@@ -0,0 +1,283 @@
+package com.icefx.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off queue between two pipeline stages.
+ *
+ * What happens when a producer outruns its consumer is a per-queue
+ * {@link DropPolicy}. A queue owns every item passed to {@link #put}: items it
+ * drops or still holds when cleared are handed to the release callback (e.g.
+ * {@code Mat::release}), so native frames never leak.
+ */
+public class StageQueue<T> {
+
+    /**
+     * What {@link #put} does when the consumer is behind.
+     */
+    public enum DropPolicy {
+        /** Discard the oldest queued item when full. */
+        DROP_OLDEST,
+        /** Discard everything queued: the consumer only ever sees the newest item. */
+        LATEST_WINS,
+        /** Wait for room; nothing is dropped unless a maximum wait is set and runs out. */
+        BLOCK;
+
+        /**
+         * Parse a config value such as {@code latest_wins}.
+         */
+        public static DropPolicy parse(String value, DropPolicy fallback) {
+            if (value == null) {
+                return fallback;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return fallback;
+            }
+        }
+    }
+
+    private final String name;
+    private final int capacity;
+    private final DropPolicy policy;
+    private final Consumer<? super T> release;
+    private final long maxBlockNanos;
+    private volatile Runnable onAvailable;
+
+    private final ArrayDeque<T> items;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Counters (guarded by lock)
+    private long offered;
+    private long dropped;
+    private int peakDepth;
+
+    /**
+     * @param name Queue name for logs and stats
+     * @param capacity Maximum queued items (at least 1)
+     * @param policy Behaviour when full
+     * @param release Called for items the queue drops, or null if nothing needs releasing
+     */
+    public StageQueue(String name, int capacity, DropPolicy policy, Consumer<? super T> release) {
+        this(name, capacity, policy, release, 0);
+    }
+
+    /**
+     * As above, with a limit on how long a {@code BLOCK} put waits for room.
+     * When it runs out the oldest item is dropped as with {@code DROP_OLDEST}.
+     *
+     * @param maxBlockMillis Longest wait for room, or 0 to wait indefinitely
+     */
+    public StageQueue(String name, int capacity, DropPolicy policy, Consumer<? super T> release,
+                      long maxBlockMillis) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.release = release;
+        this.maxBlockNanos = Math.max(0, maxBlockMillis) * 1_000_000L;
+        this.items = new ArrayDeque<>(this.capacity);
+    }
+
+    /**
+     * Queue an item according to the drop policy. Only {@code BLOCK} queues wait,
+     * and only up to the maximum wait if one is set.
+     *
+     * @return true if nothing was dropped to make room
+     * @throws InterruptedException if interrupted while waiting (the item is released)
+     */
+    public boolean put(T item) throws InterruptedException {
+        List<T> discarded = null;
+        lock.lock();
+        try {
+            offered++;
+            if (policy == DropPolicy.LATEST_WINS && !items.isEmpty()) {
+                discarded = new ArrayList<>(items);
+                items.clear();
+            } else if (items.size() >= capacity) {
+                if (policy == DropPolicy.BLOCK) {
+                    try {
+                        long remaining = maxBlockNanos;
+                        while (items.size() >= capacity) {
+                            if (maxBlockNanos == 0) {
+                                notFull.await();
+                            } else if (remaining > 0) {
+                                remaining = notFull.awaitNanos(remaining);
+                            } else {
+                                discarded = List.of(items.pollFirst());
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        releaseAll(List.of(item));
+                        throw e;
+                    }
+                } else {
+                    discarded = List.of(items.pollFirst());
+                }
+            }
+            if (discarded != null) {
+                dropped += discarded.size();
+            }
+            items.addLast(item);
+            peakDepth = Math.max(peakDepth, items.size());
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        Runnable listener = onAvailable;
+        if (listener != null) {
+            listener.run();
+        }
+
+        // Release outside the lock so a slow release never holds up the consumer
+        if (discarded != null) {
+            releaseAll(discarded);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wait for and remove the oldest item.
+     */
+    public T take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (items.isEmpty()) {
+                notEmpty.await();
+            }
+            T item = items.pollFirst();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest item without waiting.
+     *
+     * @return The item, or null if the queue is empty
+     */
+    public T poll() {
+        lock.lock();
+        try {
+            T item = items.pollFirst();
+            if (item != null) {
+                notFull.signal();
+            }
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run {@code listener} after every {@link #put} (e.g. to schedule a consumer), or null for none.
+     */
+    public void setOnAvailable(Runnable listener) {
+        this.onAvailable = listener;
+    }
+
+    /**
+     * Release and remove every queued item.
+     */
+    public void clear() {
+        List<T> discarded;
+        lock.lock();
+        try {
+            discarded = new ArrayList<>(items);
+            items.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        releaseAll(discarded);
+    }
+
+    private void releaseAll(List<T> discarded) {
+        if (release != null) {
+            discarded.forEach(release);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public DropPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Items currently queued.
+     */
+    public int depth() {
+        lock.lock();
+        try {
+            return items.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Highest depth seen.
+     */
+    public int getPeakDepth() {
+        lock.lock();
+        try {
+            return peakDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Items passed to {@link #put}.
+     */
+    public long getOffered() {
+        lock.lock();
+        try {
+            return offered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Items discarded by the drop policy.
+     */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("%s[depth=%d/%d, peak=%d, offered=%d, dropped=%d, %s]",
+                name, items.size(), capacity, peakDepth, offered, dropped, policy);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
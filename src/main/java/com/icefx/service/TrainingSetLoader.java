@@ -0,0 +1,223 @@
+package com.icefx.service;
+
+import com.icefx.config.AppConfig;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_32SC1;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_GRAYSCALE;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+
+/**
+ * Loads face training images ({@code faces/<userId>/*.png|jpg}) in parallel.
+ *
+ * Decoding and preprocessing run on a fork-join pool, so cold training is bound
+ * by CPU across all cores rather than by one thread doing I/O and decode.
+ * Samples keep directory order, so repeated loads produce the same model.
+ *
+ * Shared by {@link FaceRecognitionService} and {@code util.ModelTrainer}.
+ */
+public class TrainingSetLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrainingSetLoader.class);
+
+    /**
+     * Progress callback. Invoked from worker threads.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int processed, int total);
+    }
+
+    /**
+     * Loaded samples in the layout LBPH train()/update() expect.
+     * Owns the native memory; close it once the recognizer has consumed it.
+     */
+    public static final class TrainingSet implements AutoCloseable {
+        private final List<Mat> faces;
+        private final int[] labels;
+        private final Map<Integer, Integer> perUserCounts;
+        private final int failedCount;
+
+        private TrainingSet(List<Mat> faces, int[] labels, Map<Integer, Integer> perUserCounts, int failedCount) {
+            this.faces = faces;
+            this.labels = labels;
+            this.perUserCounts = Collections.unmodifiableMap(perUserCounts);
+            this.failedCount = failedCount;
+        }
+
+        public int size() { return faces.size(); }
+        public boolean isEmpty() { return faces.isEmpty(); }
+        public List<Mat> getFaces() { return Collections.unmodifiableList(faces); }
+        public Map<Integer, Integer> getPerUserCounts() { return perUserCounts; }
+        public int getFailedCount() { return failedCount; }
+
+        /**
+         * Faces as a MatVector (caller closes it; the Mats stay owned by this set).
+         */
+        public MatVector toMatVector() {
+            MatVector vector = new MatVector(faces.size());
+            for (int i = 0; i < faces.size(); i++) {
+                vector.put(i, faces.get(i));
+            }
+            return vector;
+        }
+
+        /**
+         * Labels as an N x 1 CV_32SC1 Mat (caller closes it).
+         */
+        public Mat toLabelsMat() {
+            Mat labelsMat = new Mat(labels.length, 1, CV_32SC1);
+            for (int i = 0; i < labels.length; i++) {
+                labelsMat.ptr(i).putInt(labels[i]);
+            }
+            return labelsMat;
+        }
+
+        @Override
+        public void close() {
+            faces.forEach(Mat::release);
+        }
+    }
+
+    private record Sample(File file, int userId) {}
+
+    private final UnaryOperator<Mat> preprocessor;
+    private final int parallelism;
+
+    /**
+     * @param preprocessor Turns a decoded grayscale image into a training sample
+     *                     (must return a new Mat; the input is released afterwards)
+     */
+    public TrainingSetLoader(UnaryOperator<Mat> preprocessor) {
+        this(preprocessor, AppConfig.getInt("training.workers", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public TrainingSetLoader(UnaryOperator<Mat> preprocessor, int parallelism) {
+        this.preprocessor = preprocessor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Load every user directory under {@code facesDirectory}. Directories whose
+     * name is not a user id are skipped.
+     */
+    public TrainingSet loadAll(File facesDirectory, ProgressListener listener) {
+        List<Sample> samples = new ArrayList<>();
+        File[] userDirs = facesDirectory.listFiles(File::isDirectory);
+        if (userDirs != null) {
+            Arrays.sort(userDirs);
+            for (File userDir : userDirs) {
+                try {
+                    collect(Integer.parseInt(userDir.getName()), userDir, samples);
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid user directory name: {}", userDir.getName());
+                }
+            }
+        }
+        return load(samples, listener);
+    }
+
+    /**
+     * Load the images of a single user.
+     */
+    public TrainingSet loadUser(int userId, File userDirectory, ProgressListener listener) {
+        List<Sample> samples = new ArrayList<>();
+        collect(userId, userDirectory, samples);
+        return load(samples, listener);
+    }
+
+    private static void collect(int userId, File userDir, List<Sample> samples) {
+        File[] imageFiles = userDir.listFiles((d, name) -> name.endsWith(".png") || name.endsWith(".jpg"));
+        if (imageFiles == null) {
+            return;
+        }
+        Arrays.sort(imageFiles);
+        for (File imageFile : imageFiles) {
+            samples.add(new Sample(imageFile, userId));
+        }
+    }
+
+    private TrainingSet load(List<Sample> samples, ProgressListener listener) {
+        int total = samples.size();
+        Mat[] loaded = new Mat[total];
+        AtomicInteger processed = new AtomicInteger();
+        long start = System.nanoTime();
+
+        if (total > 0) {
+            ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, total));
+            try {
+                pool.submit(() -> IntStream.range(0, total).parallel().forEach(i -> {
+                    loaded[i] = decode(samples.get(i).file());
+                    int done = processed.incrementAndGet();
+                    if (listener != null) {
+                        listener.onProgress(done, total);
+                    }
+                })).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releaseAll(loaded);
+                throw new IllegalStateException("Interrupted while loading training images", e);
+            } catch (ExecutionException e) {
+                releaseAll(loaded);
+                throw new IllegalStateException("Failed to load training images", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        List<Mat> faces = new ArrayList<>(total);
+        int[] labels = new int[total];
+        Map<Integer, Integer> perUserCounts = new TreeMap<>();
+        for (int i = 0; i < total; i++) {
+            if (loaded[i] == null) {
+                continue;
+            }
+            int userId = samples.get(i).userId();
+            labels[faces.size()] = userId;
+            faces.add(loaded[i]);
+            perUserCounts.merge(userId, 1, Integer::sum);
+        }
+
+        logger.info("Loaded {} face images for {} users in {} ms ({} failed, {} threads)",
+            faces.size(), perUserCounts.size(), (System.nanoTime() - start) / 1_000_000,
+            total - faces.size(), Math.min(parallelism, Math.max(total, 1)));
+        return new TrainingSet(faces, Arrays.copyOf(labels, faces.size()), perUserCounts, total - faces.size());
+    }
+
+    private Mat decode(File imageFile) {
+        Mat image = imread(imageFile.getAbsolutePath(), IMREAD_GRAYSCALE);
+        try {
+            if (image.empty()) {
+                logger.warn("Failed to load image: {}", imageFile);
+                return null;
+            }
+            return preprocessor.apply(image);
+        } finally {
+            image.release();
+        }
+    }
+
+    private static void releaseAll(Mat[] mats) {
+        for (Mat mat : mats) {
+            if (mat != null) {
+                mat.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.icefx.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Frames of a recorded video file, decoded with {@link FFmpegFrameGrabber}
+ * (any container and codec FFmpeg reads). Audio is skipped.
+ */
+public class VideoFileFrameSource implements FrameSource {
+    private static final Logger logger = LoggerFactory.getLogger(VideoFileFrameSource.class);
+
+    private final Path file;
+    private final Pacing pacing;
+    private final boolean loop;
+    private FFmpegFrameGrabber grabber;
+
+    /**
+     * @param loop Start over at the end instead of finishing
+     */
+    public VideoFileFrameSource(Path file, Pacing pacing, boolean loop) {
+        this.file = file;
+        this.pacing = pacing;
+        this.loop = loop;
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("Video file not found: " + file);
+        }
+        FFmpegFrameGrabber video = new FFmpegFrameGrabber(file.toFile());
+        video.start();
+        grabber = video;
+        logger.info("Replaying {} ({}x{} at {} FPS, {} frames)", file,
+            video.getImageWidth(), video.getImageHeight(),
+            String.format("%.1f", video.getFrameRate()), video.getLengthInVideoFrames());
+    }
+
+    @Override
+    public Frame grab() throws IOException {
+        Frame frame = grabber.grabImage();
+        if (frame == null && loop) {
+            grabber.setVideoFrameNumber(0);
+            frame = grabber.grabImage();
+        }
+        return frame;
+    }
+
+    @Override
+    public boolean isFinite() {
+        return !loop;
+    }
+
+    @Override
+    public double getFrameRate() {
+        return grabber != null ? grabber.getFrameRate() : 0;
+    }
+
+    @Override
+    public Pacing getPacing() {
+        return pacing;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (grabber != null) {
+            try {
+                grabber.stop();
+                grabber.release();
+            } finally {
+                grabber = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "video " + file;
+    }
+}
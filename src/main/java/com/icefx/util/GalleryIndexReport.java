@@ -0,0 +1,103 @@
+package com.icefx.util;
+
+import com.icefx.config.AppConfig;
+import com.icefx.service.GalleryIndex;
+import com.icefx.service.LbphModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the approximate gallery index against the exact chi-square scan on a
+ * binary LBPH model: recall (same predicted label) and per-query latency.
+ *
+ * Each query is a gallery sample matched against the rest of the gallery
+ * (leave-one-out), so no separate probe set is needed.
+ *
+ * Usage: {@code GalleryIndexReport [model.lbph] [queries]}
+ */
+public class GalleryIndexReport {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GalleryIndexReport.class);
+    
+    public static void main(String[] args) {
+        try {
+            System.out.println("=== IceFX Gallery Index Report ===");
+            
+            Path binaryPath = LbphModel.binaryPathFor(AppConfig.get("recognition.model.path", "trained_faces.xml"));
+            Path modelPath = args.length > 0 ? Path.of(args[0]) : LbphModel.latestVersion(binaryPath);
+            int queries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+            
+            if (modelPath == null) {
+                logger.error("❌ Model not found: {}", binaryPath);
+                System.exit(1);
+            }
+            if (!Files.exists(modelPath)) {
+                logger.error("❌ Model not found: {}", modelPath);
+                System.exit(1);
+            }
+            
+            LbphModel model = LbphModel.map(modelPath);
+            logger.info("✅ Mapped {} ({} samples)", modelPath, model.size());
+            if (model.size() < 2) {
+                logger.error("❌ Need at least 2 samples to compare");
+                System.exit(1);
+            }
+            
+            GalleryIndex.Settings settings = GalleryIndex.Settings.fromConfig();
+            long buildStart = System.nanoTime();
+            model.buildIndex(settings);
+            logger.info("✅ Index built in {} ms ({})", (System.nanoTime() - buildStart) / 1_000_000, settings);
+            
+            Random random = new Random(42);
+            long[] exactNanos = new long[queries];
+            long[] indexedNanos = new long[queries];
+            int agreed = 0;
+            int[] exactLabel = new int[1];
+            int[] indexedLabel = new int[1];
+            double[] distance = new double[1];
+            
+            for (int q = 0; q < queries; q++) {
+                int sample;
+                do {
+                    sample = random.nextInt(model.getSampleCount());
+                } while (model.isRemoved(sample));
+                float[] query = model.sampleHistogram(sample);
+                
+                long start = System.nanoTime();
+                model.predictExact(query, Double.MAX_VALUE, sample, exactLabel, distance);
+                exactNanos[q] = System.nanoTime() - start;
+                
+                start = System.nanoTime();
+                model.predictIndexed(query, Double.MAX_VALUE, sample, indexedLabel, distance);
+                indexedNanos[q] = System.nanoTime() - start;
+                
+                if (exactLabel[0] == indexedLabel[0]) {
+                    agreed++;
+                }
+            }
+            
+            System.out.printf("%nQueries: %d (leave-one-out)%n", queries);
+            System.out.printf("Recall@1 (label agreement with exact scan): %.2f%%%n", agreed * 100.0 / queries);
+            printLatency("Exact scan", exactNanos);
+            printLatency("Indexed   ", indexedNanos);
+            
+        } catch (Exception e) {
+            logger.error("❌ Report failed", e);
+            System.exit(1);
+        }
+    }
+    
+    private static void printLatency(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double average = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+        System.out.printf("%s  avg %.3f ms  p50 %.3f ms  p95 %.3f ms%n", name, average,
+            sorted[sorted.length / 2] / 1_000_000.0,
+            sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.95))] / 1_000_000.0);
+    }
+}
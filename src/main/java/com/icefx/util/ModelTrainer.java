@@ -1,16 +1,15 @@
 package com.icefx.util;
 
+import com.icefx.service.FaceRecognitionService;
+import com.icefx.service.LbphModel;
+import com.icefx.service.TrainingSetLoader;
 import org.bytedeco.opencv.opencv_core.*;
 import org.bytedeco.opencv.opencv_face.*;
-import static org.bytedeco.opencv.global.opencv_core.*;
-import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
-import static org.bytedeco.opencv.global.opencv_imgproc.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility to train the face recognition model from existing face images.
@@ -41,64 +40,30 @@ public class ModelTrainer {
                 System.exit(1);
             }
             
-            List<Mat> images = new ArrayList<>();
-            List<Integer> labels = new ArrayList<>();
-            
-            // Scan each user directory
-            File[] userDirs = facesDir.listFiles(File::isDirectory);
-            if (userDirs == null || userDirs.length == 0) {
-                logger.error("❌ No user directories found in faces/");
-                System.exit(1);
-            }
-            
-            for (File userDir : userDirs) {
-                try {
-                    int userId = Integer.parseInt(userDir.getName());
-                    logger.info("Loading faces for user ID: {}", userId);
-                    
-                    File[] faceFiles = userDir.listFiles((dir, name) -> 
-                        name.endsWith(".jpg") || name.endsWith(".png"));
-                    
-                    if (faceFiles == null || faceFiles.length == 0) {
-                        logger.warn("  ⚠️  No face images found for user {}", userId);
-                        continue;
-                    }
-                    
-                    int loadedCount = 0;
-                    for (File faceFile : faceFiles) {
-                        Mat img = imread(faceFile.getAbsolutePath(), IMREAD_GRAYSCALE);
-                        if (img.empty()) {
-                            logger.warn("  ⚠️  Could not load: {}", faceFile.getName());
-                            continue;
-                        }
-                        
-                        images.add(img);
-                        labels.add(userId);
-                        loadedCount++;
-                    }
-                    
-                    logger.info("  ✅ Loaded {} images for user {}", loadedCount, userId);
-                    
-                } catch (NumberFormatException e) {
-                    logger.warn("Skipping invalid directory: {}", userDir.getName());
+            // Decode and preprocess every faces/<userId>/ image in parallel
+            TrainingSetLoader loader = new TrainingSetLoader(FaceRecognitionService::preprocessFace);
+            AtomicInteger lastReported = new AtomicInteger();
+            TrainingSetLoader.TrainingSet trainingSet = loader.loadAll(facesDir, (processed, total) -> {
+                int percent = processed * 100 / total;
+                int previous = lastReported.get();
+                if (percent >= previous + 10 && lastReported.compareAndSet(previous, percent)) {
+                    logger.info("  Loaded {}/{} images ({}%)", processed, total, percent);
                 }
-            }
+            });
+            
+            trainingSet.getPerUserCounts().forEach((userId, count) ->
+                logger.info("  ✅ Loaded {} images for user {}", count, userId));
             
-            if (images.isEmpty()) {
+            if (trainingSet.isEmpty()) {
                 logger.error("❌ No images to train!");
                 System.exit(1);
             }
             
-            logger.info("\n📊 Training with {} images...", images.size());
+            logger.info("\n📊 Training with {} images...", trainingSet.size());
             
             // Convert to OpenCV format
-            MatVector imageVector = new MatVector(images.size());
-            Mat labelsMat = new Mat(images.size(), 1, CV_32SC1);
-            
-            for (int i = 0; i < images.size(); i++) {
-                imageVector.put(i, images.get(i));
-                labelsMat.ptr(i).putInt(labels.get(i));
-            }
+            MatVector imageVector = trainingSet.toMatVector();
+            Mat labelsMat = trainingSet.toLabelsMat();
             
             // Train the model
             recognizer.train(imageVector, labelsMat);
@@ -109,6 +74,12 @@ public class ModelTrainer {
             recognizer.save(modelPath);
             logger.info("✅ Model saved to: {}", modelPath);
             
+            // A binary model converted from the previous XML would otherwise shadow this one
+            int stale = LbphModel.deleteAllVersions(LbphModel.binaryPathFor(modelPath));
+            if (stale > 0) {
+                logger.info("✅ Removed {} stale binary model file(s); the app converts the new model on load", stale);
+            }
+            
             // Verify file
             File modelFile = new File(modelPath);
             if (modelFile.exists()) {
@@ -122,9 +93,7 @@ public class ModelTrainer {
             }
             
             // Cleanup
-            for (Mat img : images) {
-                img.close();
-            }
+            trainingSet.close();
             imageVector.close();
             labelsMat.close();
             recognizer.close();
@@ -0,0 +1,185 @@
+package com.icefx.util;
+
+import com.icefx.config.AppConfig;
+import com.icefx.dao.AttendanceDAO;
+import com.icefx.dao.UserDAO;
+import com.icefx.service.AttendanceService;
+import com.icefx.service.AttendanceWriter;
+import com.icefx.service.CameraManager;
+import com.icefx.service.CaptureBuffers;
+import com.icefx.service.FaceRecognitionService;
+import com.icefx.service.FaceTracker;
+import com.icefx.service.FrameSource;
+import com.icefx.service.LanePool;
+import com.icefx.service.MotionDetector;
+import com.icefx.service.RecognitionPipeline;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a recording through the recognition pipeline without a camera or a
+ * window, e.g. recorded morning-rush footage on a CI machine, and reports
+ * throughput: frames captured and dropped, recognitions and (optionally)
+ * attendance logged.
+ *
+ * Uses the same pipeline settings as the dashboard ({@code pipeline.*},
+ * {@code recognition.*}). Attendance is logged under camera id {@code REPLAY}.
+ *
+ * Usage: {@code ReplayBenchmark <video:file | images:dir | index> [realtime|fast] [--attendance]}
+ */
+public class ReplayBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayBenchmark.class);
+    private static final String CAMERA_ID = "REPLAY";
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: ReplayBenchmark <video:file | images:dir | index> [realtime|fast] [--attendance]");
+            System.exit(1);
+        }
+
+        boolean logAttendance = false;
+        for (int i = 1; i < args.length; i++) {
+            if ("--attendance".equals(args[i])) {
+                logAttendance = true;
+            } else {
+                AppConfig.set("camera.source.pacing", args[i]);
+            }
+        }
+
+        LanePool workers = null;
+        LanePool notifier = null;
+        try {
+            System.out.println("=== IceFX Replay Benchmark ===");
+
+            int fps = AppConfig.getInt("camera.fps", 30);
+            FrameSource source = FrameSource.fromSpec(args[0], fps);
+
+            UserDAO userDAO = new UserDAO();
+            FaceRecognitionService recognition = new FaceRecognitionService(userDAO,
+                AppConfig.get("recognition.haar.cascade", "resources/haar/haarcascade_frontalface_default.xml"));
+            recognition.loadModel(AppConfig.getModelPath());
+            AttendanceWriter attendance = logAttendance
+                ? AttendanceWriter.start(new AttendanceService(new AttendanceDAO(), userDAO))
+                : null;
+
+            LongAdder faces = new LongAdder();
+            LongAdder recognized = new LongAdder();
+            LongAdder logged = new LongAdder();
+            RecognitionPipeline.ResultListener listener = (cameraId, results) -> {
+                for (FaceRecognitionService.RecognitionResult result : results) {
+                    faces.increment();
+                    if (result.getStatus() != FaceRecognitionService.RecognitionResult.Status.RECOGNIZED) {
+                        continue;
+                    }
+                    recognized.increment();
+                    if (attendance != null && result.shouldLogAttendance()) {
+                        attendance.submit(result.getUserId(), result.getConfidence(), cameraId, written -> {
+                            if (written.isSuccess()) {
+                                logged.increment();
+                            }
+                        });
+                    }
+                }
+            };
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            workers = new LanePool("Replay-Worker", CameraManager.laneWorkers(1));
+            notifier = new LanePool("Replay-Notify", 1);
+            recognition.setRecognitionWorkers(cores - workers.getWorkerCount());
+            FaceTracker tracker = AppConfig.getBoolean("recognition.tracking.enabled", true)
+                ? new FaceTracker(AppConfig.getInt("recognition.max.faces", 8))
+                : null;
+            RecognitionPipeline pipeline = new RecognitionPipeline(CAMERA_ID, recognition, tracker,
+                workers, notifier, listener);
+
+            long frames = 0;
+            long start;
+            long elapsed;
+            MotionDetector motion = AppConfig.getBoolean("motion.enabled", true) ? new MotionDetector() : null;
+            long stillFrames = 0;
+            try (source; CaptureBuffers buffers = new CaptureBuffers(3)) {
+                source.start();
+                pipeline.start();
+
+                long frameNanos = source.getPacing() == FrameSource.Pacing.REAL_TIME && source.getFrameRate() > 0
+                    ? (long) (1_000_000_000L / source.getFrameRate())
+                    : 0;
+                start = System.nanoTime();
+                Frame frame;
+                while ((frame = source.grab()) != null) {
+                    long frameStart = System.nanoTime();
+                    Mat mat = buffers.toMat(frame, false);
+                    if (mat != null) {
+                        frames++;
+                        // Same motion gate as the dashboard cameras
+                        FaceTracker.Box moved = motion != null ? motion.detect(mat) : null;
+                        if (motion != null && moved == null && (tracker == null || tracker.getTracks().isEmpty())) {
+                            stillFrames++;
+                        } else {
+                            pipeline.submit(mat, moved);
+                        }
+                    }
+                    long remaining = frameNanos - (System.nanoTime() - frameStart);
+                    if (remaining > 0) {
+                        Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                    }
+                    if (!source.isFinite() && frames >= AppConfig.getInt("replay.max.frames", 10_000)) {
+                        break;
+                    }
+                }
+                elapsed = System.nanoTime() - start;
+
+                awaitIdle(faces);
+                pipeline.stop();
+                if (attendance != null) {
+                    attendance.shutdown(AppConfig.getInt("attendance.writer.shutdown.ms", 5000));
+                }
+            } finally {
+                if (motion != null) {
+                    motion.close();
+                }
+            }
+
+            double seconds = elapsed / 1_000_000_000.0;
+            System.out.printf("%nSource: %s (%s)%n", args[0], source.getPacing());
+            System.out.printf("Frames: %d in %.2f s (%.1f FPS)%n", frames, seconds, seconds > 0 ? frames / seconds : 0);
+            System.out.printf("Skipped (no motion): %d%n", stillFrames);
+            System.out.printf("Dropped by pipeline: %d%n", pipeline.getDroppedFrames());
+            System.out.printf("Faces: %d, recognized: %d%n", faces.sum(), recognized.sum());
+            if (attendance != null) {
+                System.out.printf("Attendance logged: %d (%s)%n", logged.sum(), attendance);
+            }
+
+        } catch (Exception e) {
+            logger.error("❌ Replay failed", e);
+            System.exit(1);
+        } finally {
+            if (workers != null) {
+                workers.shutdown();
+                notifier.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Let frames still in the pipeline finish: wait until no results arrive for
+     * half a second (at most 10 seconds).
+     */
+    private static void awaitIdle(LongAdder results) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        long last = -1;
+        while (System.currentTimeMillis() < deadline) {
+            long current = results.sum();
+            if (current == last) {
+                return;
+            }
+            last = current;
+            Thread.sleep(500);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+-- =====================================================
+-- IceFX SQLite Schema
+-- Applied by DatabaseConfig on every start in SQLite mode;
+-- every statement is idempotent. Mirrors database_setup_simple.sql.
+-- =====================================================
+
+-- =====================================================
+-- Table 1: Persons (Users)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS persons (
+    person_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    person_code TEXT UNIQUE NOT NULL,
+    full_name TEXT NOT NULL,
+    department TEXT,
+    position TEXT,
+    role TEXT DEFAULT 'STUDENT' CHECK (role IN ('ADMIN', 'STAFF', 'STUDENT')),
+    password TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    active BOOLEAN DEFAULT 1
+);
+
+CREATE INDEX IF NOT EXISTS idx_person_code ON persons (person_code);
+CREATE INDEX IF NOT EXISTS idx_role ON persons (role);
+CREATE INDEX IF NOT EXISTS idx_active ON persons (active);
+
+-- =====================================================
+-- Table 2: Face Templates
+-- =====================================================
+CREATE TABLE IF NOT EXISTS face_templates (
+    template_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    person_id INTEGER NOT NULL REFERENCES persons (person_id) ON DELETE CASCADE,
+    template_data BLOB NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    is_primary BOOLEAN DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_templates_person_id ON face_templates (person_id);
+
+-- =====================================================
+-- Table 3: Attendance Logs
+-- =====================================================
+CREATE TABLE IF NOT EXISTS attendance_logs (
+    log_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    person_id INTEGER NOT NULL REFERENCES persons (person_id) ON DELETE CASCADE,
+    event_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    event_type TEXT NOT NULL CHECK (event_type IN ('Time In', 'Time Out')),
+    camera_id TEXT,
+    confidence DOUBLE,
+    activity TEXT,
+    snapshot BLOB
+);
+
+CREATE INDEX IF NOT EXISTS idx_attendance_person_id ON attendance_logs (person_id);
+CREATE INDEX IF NOT EXISTS idx_event_time ON attendance_logs (event_time);
+CREATE INDEX IF NOT EXISTS idx_attendance_person_time ON attendance_logs (person_id, event_time);
+CREATE INDEX IF NOT EXISTS idx_attendance_activity_time ON attendance_logs (activity, event_time);
+
+-- =====================================================
+-- Table 4: Schedules
+-- =====================================================
+CREATE TABLE IF NOT EXISTS schedules (
+    schedule_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    person_id INTEGER NOT NULL REFERENCES persons (person_id) ON DELETE CASCADE,
+    day TEXT NOT NULL CHECK (day IN ('MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY')),
+    start_time TIME NOT NULL,
+    end_time TIME NOT NULL,
+    activity TEXT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_schedules_person_id ON schedules (person_id);
+
+-- =====================================================
+-- Default Admin User (ADMIN001 / admin123)
+-- =====================================================
+INSERT OR IGNORE INTO persons (person_code, full_name, department, position, role, password, active)
+VALUES (
+    'ADMIN001',
+    'System Administrator',
+    'IT Department',
+    'Administrator',
+    'ADMIN',
+    '$2a$10$APvfzT88SxjsFmp/mWHUBuyz35R1NIbsXkcUuTLGajbdDPik0M5aq',
+    1
+);
@@ -0,0 +1,73 @@
+package com.icefx.config;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MigrationRunner against an in-memory SQLite database.
+ */
+class MigrationRunnerTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE attendance_logs (log_id INTEGER PRIMARY KEY, person_id INT, " +
+                "event_time TIMESTAMP, event_type TEXT, camera_id TEXT, confidence DOUBLE, activity TEXT, snapshot BLOB)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    @DisplayName("Should apply every migration once and record the schema version")
+    void testMigrateOnce() throws SQLException {
+        // Act
+        int first = MigrationRunner.migrate(conn);
+        int second = MigrationRunner.migrate(conn);
+
+        // Assert
+        assertEquals(MigrationRunner.MIGRATIONS.size(), first);
+        assertEquals(0, second);
+        Set<String> indexes = indexNames();
+        assertTrue(indexes.contains("idx_attendance_person_time"));
+        assertTrue(indexes.contains("idx_attendance_activity_time"));
+    }
+
+    @Test
+    @DisplayName("Should skip indexes that already exist")
+    void testExistingIndex() throws SQLException {
+        // Arrange - database created from the current setup script
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX idx_attendance_person_time ON attendance_logs (person_id, event_time)");
+        }
+
+        // Act & Assert
+        assertDoesNotThrow(() -> MigrationRunner.migrate(conn));
+        assertTrue(indexNames().contains("idx_attendance_activity_time"));
+    }
+
+    private Set<String> indexNames() throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(null, null, "attendance_logs", false, false)) {
+            while (rs.next()) {
+                names.add(rs.getString("INDEX_NAME"));
+            }
+        }
+        return names;
+    }
+}
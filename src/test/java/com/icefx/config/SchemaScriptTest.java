@@ -0,0 +1,63 @@
+package com.icefx.config;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SchemaScript and the bundled SQLite schema.
+ */
+class SchemaScriptTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    @DisplayName("Should strip comments and split statements")
+    void testParse() {
+        // Act
+        List<String> statements = SchemaScript.parse(
+            "-- header\nCREATE TABLE a (id INT); -- trailing\n\nINSERT INTO a VALUES (1);\n");
+
+        // Assert
+        assertEquals(List.of("CREATE TABLE a (id INT)", "INSERT INTO a VALUES (1)"), statements);
+    }
+
+    @Test
+    @DisplayName("Should apply the bundled SQLite schema repeatedly and leave nothing to migrate")
+    void testBundledSchema() throws SQLException {
+        // Act
+        SchemaScript.apply(conn, "/db/sqlite_schema.sql");
+        SchemaScript.apply(conn, "/db/sqlite_schema.sql");
+
+        // Assert
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM persons WHERE person_code = 'ADMIN001'")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+        assertEquals(MigrationRunner.MIGRATIONS.size(), MigrationRunner.migrate(conn));
+    }
+
+    @Test
+    @DisplayName("Should fail for a missing script")
+    void testMissingScript() {
+        assertThrows(SQLException.class, () -> SchemaScript.apply(conn, "/db/missing.sql"));
+    }
+}
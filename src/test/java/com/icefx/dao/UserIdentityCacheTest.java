@@ -0,0 +1,92 @@
+package com.icefx.dao;
+
+import com.icefx.model.User.UserRole;
+import com.icefx.model.UserIdentity;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserIdentityCache.
+ */
+class UserIdentityCacheTest {
+    
+    private AtomicInteger loads;
+    private UserIdentityCache.IdentityLoader loader;
+    
+    @BeforeEach
+    void setup() {
+        loads = new AtomicInteger();
+        loader = userId -> {
+            loads.incrementAndGet();
+            if (userId < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new UserIdentity(userId, "U" + userId, "User " + userId, UserRole.STUDENT, true));
+        };
+    }
+    
+    @Test
+    @DisplayName("Should serve repeated lookups from cache")
+    void testCacheHit() throws SQLException {
+        UserIdentityCache cache = new UserIdentityCache(100, 60_000);
+        
+        assertEquals("User 1", cache.get(1, loader).orElseThrow().getFullName());
+        assertEquals("User 1", cache.get(1, loader).orElseThrow().getFullName());
+        
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+    
+    @Test
+    @DisplayName("Should cache unknown users too")
+    void testNegativeCaching() throws SQLException {
+        UserIdentityCache cache = new UserIdentityCache(100, 60_000);
+        
+        assertTrue(cache.get(-5, loader).isEmpty());
+        assertTrue(cache.get(-5, loader).isEmpty());
+        
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    @DisplayName("Should reload after invalidation")
+    void testInvalidate() throws SQLException {
+        UserIdentityCache cache = new UserIdentityCache(100, 60_000);
+        
+        cache.get(1, loader);
+        cache.invalidate(1);
+        cache.get(1, loader);
+        
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    @DisplayName("Should reload after TTL expiry")
+    void testTtlExpiry() throws Exception {
+        UserIdentityCache cache = new UserIdentityCache(100, 1);
+        
+        cache.get(1, loader);
+        Thread.sleep(5);
+        cache.get(1, loader);
+        
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    @DisplayName("Should stay within its size bound")
+    void testBoundedSize() throws SQLException {
+        UserIdentityCache cache = new UserIdentityCache(50, 60_000);
+        
+        for (int i = 0; i < 500; i++) {
+            cache.get(i, loader);
+        }
+        
+        assertTrue(cache.size() <= 50, "cache grew to " + cache.size());
+    }
+}
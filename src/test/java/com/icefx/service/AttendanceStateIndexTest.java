@@ -0,0 +1,78 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory attendance duplicate check.
+ */
+class AttendanceStateIndexTest {
+
+    private static final String ACTIVITY = "Facial Recognition";
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 3, 10, 8, 0);
+
+    private AttendanceStateIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new AttendanceStateIndex();
+    }
+
+    @Test
+    @DisplayName("Should refuse a second claim within the window and allow one after it")
+    void testClaimWindow() {
+        // Act
+        boolean first = index.claim(1, ACTIVITY, MORNING, 60);
+        boolean repeat = index.claim(1, ACTIVITY, MORNING.plusMinutes(30), 60);
+        boolean later = index.claim(1, ACTIVITY, MORNING.plusMinutes(61), 60);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(repeat);
+        assertTrue(later);
+        assertEquals(MORNING.plusMinutes(61), index.lastEvent(1, ACTIVITY).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should keep people, activities and days apart")
+    void testKeysAndDays() {
+        // Arrange
+        index.record(1, ACTIVITY, MORNING.minusDays(1).withHour(23).withMinute(50));
+
+        // Act & Assert
+        assertFalse(index.isDuplicate(1, ACTIVITY, MORNING.withHour(0).withMinute(5), 60),
+            "Yesterday's event should not count");
+        assertTrue(index.claim(1, ACTIVITY, MORNING, 60));
+        assertTrue(index.claim(2, ACTIVITY, MORNING, 60));
+        assertTrue(index.claim(1, "Manual", MORNING, 60));
+    }
+
+    @Test
+    @DisplayName("Should release a claim whose write failed")
+    void testRelease() {
+        // Arrange
+        assertTrue(index.claim(1, ACTIVITY, MORNING, 60));
+
+        // Act
+        index.release(1, ACTIVITY, MORNING);
+
+        // Assert
+        assertTrue(index.claim(1, ACTIVITY, MORNING.plusMinutes(1), 60));
+    }
+
+    @Test
+    @DisplayName("Should keep the latest event when warmed out of order")
+    void testRecordKeepsLatest() {
+        // Act
+        index.record(1, ACTIVITY, MORNING.plusHours(2));
+        index.record(1, ACTIVITY, MORNING);
+
+        // Assert
+        assertEquals(MORNING.plusHours(2), index.lastEvent(1, ACTIVITY).orElseThrow());
+        index.forget(1);
+        assertTrue(index.lastEvent(1, ACTIVITY).isEmpty());
+    }
+}
@@ -0,0 +1,144 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AttendanceWriter batching, backpressure and shutdown drain.
+ */
+class AttendanceWriterTest {
+
+    private AttendanceService service;
+    private AttendanceWriter writer;
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setup() {
+        service = mock(AttendanceService.class);
+        when(service.logAttendanceBatch(anyList())).thenAnswer(invocation -> {
+            List<AttendanceService.Request> requests = invocation.getArgument(0);
+            batchSizes.add(requests.size());
+            List<AttendanceService.AttendanceResult> results = new ArrayList<>();
+            for (AttendanceService.Request request : requests) {
+                results.add(AttendanceService.AttendanceResult.success("ok", null));
+            }
+            return results;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown(1000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write queued requests in batches no larger than the batch size")
+    void testBatching() throws InterruptedException {
+        // Arrange
+        writer = AttendanceWriter.start(service, 1000, 10, 200);
+        CountDownLatch done = new CountDownLatch(35);
+
+        // Act
+        for (int i = 0; i < 35; i++) {
+            assertTrue(writer.submit(i, 50.0, "CAM1", result -> done.countDown()));
+        }
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(35, writer.getWritten());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+        assertTrue(writer.getBatches() < 35, "Requests should share batches");
+    }
+
+    @Test
+    @DisplayName("Should refuse requests when the queue is full")
+    void testBackpressure() throws InterruptedException {
+        // Arrange - the first batch blocks the writer thread
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        when(service.logAttendanceBatch(anyList())).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await();
+            List<AttendanceService.Request> requests = invocation.getArgument(0);
+            List<AttendanceService.AttendanceResult> results = new ArrayList<>();
+            for (AttendanceService.Request request : requests) {
+                results.add(AttendanceService.AttendanceResult.success("ok", null));
+            }
+            return results;
+        });
+        writer = AttendanceWriter.start(service, 2, 1, 0);
+        assertTrue(writer.submit(1, 50.0, "CAM1", null));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        // Act
+        boolean second = writer.submit(2, 50.0, "CAM1", null);
+        boolean third = writer.submit(3, 50.0, "CAM1", null);
+        boolean fourth = writer.submit(4, 50.0, "CAM1", null);
+        release.countDown();
+
+        // Assert
+        assertTrue(second);
+        assertTrue(third);
+        assertFalse(fourth);
+        assertEquals(1, writer.getRejected());
+    }
+
+    @Test
+    @DisplayName("Should report a failed batch to its callbacks and keep writing")
+    void testBatchFailure() throws InterruptedException {
+        // Arrange - the first batch throws, later ones succeed
+        AtomicInteger calls = new AtomicInteger();
+        when(service.logAttendanceBatch(anyList())).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("boom");
+            }
+            return List.of(AttendanceService.AttendanceResult.success("ok", null));
+        });
+        writer = AttendanceWriter.start(service, 10, 1, 0);
+        List<AttendanceService.AttendanceResult> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+
+        // Act
+        assertTrue(writer.submit(1, 50.0, "CAM1", result -> { results.add(result); done.countDown(); }));
+        assertTrue(writer.submit(2, 50.0, "CAM1", result -> { results.add(result); done.countDown(); }));
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(AttendanceService.AttendanceResult.Status.ERROR, results.get(0).getStatus());
+        assertEquals(AttendanceService.AttendanceResult.Status.SUCCESS, results.get(1).getStatus());
+        assertEquals(1, writer.getFailed());
+        assertEquals(1, writer.getWritten());
+    }
+
+    @Test
+    @DisplayName("Should write everything still queued on shutdown")
+    void testShutdownDrains() {
+        // Arrange - a long flush interval keeps requests queued
+        writer = AttendanceWriter.start(service, 1000, 1000, 60_000);
+        AtomicInteger callbacks = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            writer.submit(i, 50.0, "CAM1", result -> callbacks.incrementAndGet());
+        }
+
+        // Act
+        boolean drained = writer.shutdown(5000);
+
+        // Assert
+        assertTrue(drained);
+        assertEquals(20, writer.getWritten());
+        assertEquals(20, callbacks.get());
+        assertFalse(writer.submit(99, 50.0, "CAM1", null));
+    }
+}
@@ -0,0 +1,103 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the debounce table.
+ */
+class DebounceTableTest {
+
+    private static final long WINDOW_MS = 5000;
+    private static final long MS = 1_000_000L;
+
+    private DebounceTable table;
+
+    @BeforeEach
+    void setup() {
+        table = new DebounceTable(WINDOW_MS);
+    }
+
+    @Test
+    @DisplayName("Should debounce a user inside the window and let them through after it")
+    void testWindow() {
+        long start = System.nanoTime();
+
+        assertTrue(table.tryMark(42, start));
+        assertFalse(table.tryMark(42, start + 4999 * MS));
+        assertTrue(table.tryMark(42, start + 5000 * MS));
+
+        assertEquals(1, table.getHits());
+        assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    @DisplayName("Should reject the id reserved for empty slots")
+    void testReservedId() {
+        assertThrows(IllegalArgumentException.class, () -> table.tryMark(Integer.MIN_VALUE));
+        assertFalse(table.isDebounced(Integer.MIN_VALUE));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    @DisplayName("Should forget a cleared user")
+    void testClear() {
+        long start = System.nanoTime();
+        table.tryMark(1, start);
+        table.tryMark(2, start);
+
+        table.clear(1);
+
+        assertTrue(table.tryMark(1, start + MS));
+        assertFalse(table.tryMark(2, start + MS));
+        table.clearAll();
+        assertTrue(table.tryMark(2, start + 2 * MS));
+    }
+
+    @Test
+    @DisplayName("Should stay bounded by the users seen within one window")
+    void testSweep() {
+        // Arrange - thousands of distinct users, each window apart from the next batch
+        long now = System.nanoTime();
+        for (int batch = 0; batch < 10; batch++) {
+            for (int user = 0; user < 1000; user++) {
+                assertTrue(table.tryMark(batch * 1000 + user, now));
+            }
+            now += WINDOW_MS * MS;
+        }
+
+        // Act - one more mark after the last window triggers a sweep
+        table.tryMark(-7, now);
+
+        // Assert
+        assertTrue(table.size() <= 1001, "size was " + table.size());
+        assertTrue(table.tryMark(9999, now), "expired user is let through");
+    }
+
+    @Test
+    @DisplayName("Should let exactly one of many concurrent checks through")
+    void testConcurrentMark() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger accepted = new AtomicInteger();
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 1000; i++) {
+            pool.submit(() -> {
+                if (table.tryMark(7, now)) {
+                    accepted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, accepted.get());
+        assertEquals(999, table.getHits());
+    }
+}
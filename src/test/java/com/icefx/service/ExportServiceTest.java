@@ -0,0 +1,98 @@
+package com.icefx.service;
+
+import com.icefx.dao.AttendanceDAO;
+import com.icefx.model.AttendanceLog;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for streaming CSV export.
+ */
+class ExportServiceTest {
+
+    private static final int ROWS = 2500;
+
+    @TempDir
+    Path tempDir;
+
+    private AttendanceDAO attendanceDAO;
+    private ExportService exportService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        attendanceDAO = mock(AttendanceDAO.class);
+        when(attendanceDAO.streamAllAttendanceLogs(any())).thenAnswer(invocation -> {
+            Consumer<AttendanceLog> handler = invocation.getArgument(0);
+            LocalDateTime time = LocalDateTime.of(2025, 3, 10, 8, 0);
+            for (int i = 0; i < ROWS; i++) {
+                handler.accept(new AttendanceLog(i, 1, "Alice", time, "Time In", "Lab", "CAM1", 91.5));
+            }
+            return (long) ROWS;
+        });
+        exportService = new ExportService(attendanceDAO, tempDir.toString());
+        exportService.setGzip(false);
+    }
+
+    @Test
+    @DisplayName("Should stream every record into the CSV and report progress")
+    void testPlainExport() throws Exception {
+        // Arrange
+        List<Long> progress = new ArrayList<>();
+        exportService.setProgressListener(progress::add);
+
+        // Act
+        File file = exportService.exportAllAttendance();
+
+        // Assert
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(ROWS + 1, lines.size());
+        assertEquals("Log ID,User ID,User Name,Event Time,Event Type,Camera ID,Confidence,Activity", lines.get(0));
+        assertEquals("0,1,Alice,2025-03-10 08:00:00,Time In,CAM1,91.50,Lab", lines.get(1));
+        assertEquals(List.of(1000L, 2000L, 2500L), progress);
+    }
+
+    @Test
+    @DisplayName("Should write a readable gzip file when compression is on")
+    void testGzipExport() throws Exception {
+        // Arrange
+        exportService.setGzip(true);
+
+        // Act
+        File file = exportService.exportAllAttendance();
+
+        // Assert
+        assertTrue(file.getName().endsWith(".csv.gz"));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(ROWS + 1, csv.lines().count());
+        }
+        assertEquals(1, exportService.listExports().length);
+    }
+
+    @Test
+    @DisplayName("Should delete the partial file when the query fails")
+    void testFailedExportCleansUp() throws Exception {
+        // Arrange
+        doThrow(new SQLException("boom")).when(attendanceDAO).streamAllAttendanceLogs(any());
+
+        // Act & Assert
+        assertThrows(SQLException.class, () -> exportService.exportAllAttendance());
+        assertEquals(0, exportService.listExports().length);
+    }
+}
@@ -0,0 +1,67 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for spreading the faces of one frame over threads, with the pool
+ * sizes CameraManager picks.
+ */
+class FaceFanOutTest {
+
+    private FaceFanOut fanOut;
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should recognize the faces of a single camera's frame on more than one thread")
+    void testSingleCameraFansOut() throws InterruptedException {
+        // Arrange - pools as CameraManager sizes them for one camera on an 8-core machine
+        int cores = 8;
+        int lanes = CameraManager.laneWorkers(0, 1, cores);
+        fanOut = new FaceFanOut(cores);
+        fanOut.setWorkers(cores - lanes);
+        List<Integer> faces = List.of(1, 2, 3, 4, 5, 6);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch together = new CountDownLatch(2);
+
+        // Act - each face waits briefly for another one to run alongside it
+        List<Integer> results = fanOut.map(faces, face -> {
+            threads.add(Thread.currentThread());
+            together.countDown();
+            try {
+                together.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return face * 10;
+        }, failure -> -1);
+
+        // Assert
+        assertTrue(fanOut.getWorkers() > 0, "lane workers must leave cores for the faces");
+        assertEquals(List.of(10, 20, 30, 40, 50, 60), results);
+        assertTrue(threads.size() > 1, "faces ran on " + threads.size() + " thread(s)");
+        assertEquals(0, together.getCount());
+    }
+
+    @Test
+    @DisplayName("Should give lane workers two threads per camera, within the cores")
+    void testLaneWorkerSizing() {
+        fanOut = new FaceFanOut(0);
+
+        assertEquals(2, CameraManager.laneWorkers(0, 1, 8));
+        assertEquals(8, CameraManager.laneWorkers(0, 6, 8));
+        assertEquals(1, CameraManager.laneWorkers(0, 1, 1));
+        assertEquals(3, CameraManager.laneWorkers(3, 1, 8));
+    }
+}
@@ -0,0 +1,189 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FaceTracker association and re-recognition decisions.
+ */
+class FaceTrackerTest {
+
+    private static final double THRESHOLD = 80.0;
+
+    private FaceTracker tracker;
+
+    @BeforeEach
+    void setup() {
+        // Full detection every 5 frames, drop after 2 misses, retry unknowns every 3 frames,
+        // confirm an identity with 3 of the last 5 votes
+        tracker = new FaceTracker(5, 2, 4, 3, 30, 5, 3);
+    }
+
+    private static FaceTracker.Box box(int x, int y) {
+        return new FaceTracker.Box(x, y, 100, 100);
+    }
+
+    @Test
+    @DisplayName("Should keep the same track id while a face moves slowly")
+    void testAssociation() {
+        // Arrange
+        List<FaceTracker.Track> first = tracker.update(List.of(box(100, 100)), true);
+
+        // Act
+        List<FaceTracker.Track> second = tracker.update(List.of(box(110, 104)), false);
+
+        // Assert
+        assertEquals(1, second.size());
+        assertEquals(first.get(0).getId(), second.get(0).getId());
+        assertEquals(box(110, 104), second.get(0).getBox());
+        assertEquals(box(120, 108), second.get(0).predictedBox());
+    }
+
+    @Test
+    @DisplayName("Should run full detection only on the interval while tracking")
+    void testDetectionInterval() {
+        // Arrange
+        assertTrue(tracker.isFullDetectionDue());
+        tracker.update(List.of(box(100, 100)), true);
+
+        // Act & Assert - frames 1..4 use local search, frame 5 is a full detection
+        for (int frame = 1; frame < 5; frame++) {
+            assertFalse(tracker.isFullDetectionDue(), "frame " + frame);
+            tracker.update(List.of(box(100, 100)), false);
+        }
+        assertTrue(tracker.isFullDetectionDue());
+    }
+
+    @Test
+    @DisplayName("Should request a full detection and eventually drop a lost track")
+    void testLostTrack() {
+        // Arrange
+        tracker.update(List.of(box(100, 100)), true);
+
+        // Act - face not found by the local search
+        tracker.update(List.of(), false);
+
+        // Assert
+        assertTrue(tracker.isFullDetectionDue());
+        assertEquals(1, tracker.getTracks().size());
+        tracker.update(List.of(), true);
+        tracker.update(List.of(), true);
+        assertTrue(tracker.getTracks().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should start separate tracks for separate faces and merge duplicates")
+    void testMultipleFaces() {
+        // Act - the second and third boxes are the same face found twice
+        List<FaceTracker.Track> tracks = tracker.update(
+            List.of(box(0, 0), box(300, 0), box(305, 2)), true);
+
+        // Assert
+        assertEquals(2, tracks.size());
+        assertNotEquals(tracks.get(0).getId(), tracks.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Should search a clipped region around each predicted position")
+    void testSearchRegions() {
+        // Arrange
+        tracker.update(List.of(box(0, 0)), true);
+
+        // Act
+        List<FaceTracker.Box> regions = tracker.searchRegions(640, 480);
+
+        // Assert - 50% margin, clipped at the top-left corner
+        assertEquals(List.of(new FaceTracker.Box(0, 0, 150, 150)), regions);
+    }
+
+    @Test
+    @DisplayName("Should not re-recognize a confidently identified face that stays put")
+    void testRecognitionReuse() {
+        // Arrange
+        FaceTracker.Track track = tracker.update(List.of(box(100, 100)), true).get(0);
+        assertTrue(tracker.needsRecognition(track, 1, THRESHOLD));
+        tracker.recordRecognition(track, FaceRecognitionService.RecognitionResult.recognized(7, "Ana", 40.0), 1);
+
+        // Act
+        for (int frame = 0; frame < 10; frame++) {
+            tracker.update(List.of(box(102, 101)), false);
+        }
+
+        // Assert
+        assertFalse(tracker.needsRecognition(track, 1, THRESHOLD));
+        assertTrue(tracker.needsRecognition(track, 2, THRESHOLD), "model changed");
+    }
+
+    @Test
+    @DisplayName("Should retry unknown faces and weak matches every few frames")
+    void testRecognitionRetry() {
+        // Arrange
+        FaceTracker.Track unknown = tracker.update(List.of(box(100, 100), box(400, 100)), true).get(0);
+        FaceTracker.Track weak = tracker.getTracks().get(1);
+        tracker.recordRecognition(unknown, FaceRecognitionService.RecognitionResult.unknown(120.0), 1);
+        tracker.recordRecognition(weak, FaceRecognitionService.RecognitionResult.recognized(3, "Ben", 75.0), 1);
+
+        // Act & Assert
+        tracker.update(List.of(box(100, 100), box(400, 100)), false);
+        assertFalse(tracker.needsRecognition(unknown, 1, THRESHOLD));
+        assertFalse(tracker.needsRecognition(weak, 1, THRESHOLD));
+        tracker.update(List.of(box(100, 100), box(400, 100)), false);
+        tracker.update(List.of(box(100, 100), box(400, 100)), false);
+        assertTrue(tracker.needsRecognition(unknown, 1, THRESHOLD));
+        assertTrue(tracker.needsRecognition(weak, 1, THRESHOLD));
+    }
+
+    @Test
+    @DisplayName("Should confirm an identity only after enough agreeing votes")
+    void testVoting() {
+        // Arrange
+        FaceTracker.Track track = tracker.update(List.of(box(100, 100)), true).get(0);
+
+        // Act & Assert - a lookalike frame in between does not reset the count
+        assertEquals(-1, tracker.vote(track, 7));
+        assertTrue(tracker.isVoting(track));
+        tracker.recordRecognition(track, FaceRecognitionService.RecognitionResult.verifying(7, 50.0), 1);
+        assertTrue(tracker.needsRecognition(track, 1, THRESHOLD), "open vote is predicted every frame");
+        assertEquals(-1, tracker.vote(track, 9));
+        assertEquals(-1, tracker.vote(track, 7));
+        assertEquals(7, tracker.vote(track, 7));
+        assertTrue(tracker.isConfirmed(track));
+        assertFalse(tracker.isVoting(track));
+    }
+
+    @Test
+    @DisplayName("Should keep a confirmed identity while votes agree and reopen on disagreement")
+    void testConfirmedVote() {
+        // Arrange
+        FaceTracker.Track track = tracker.update(List.of(box(100, 100)), true).get(0);
+        for (int i = 0; i < 3; i++) {
+            tracker.vote(track, 7);
+        }
+
+        // Act & Assert
+        assertEquals(7, tracker.vote(track, 7));
+        assertEquals(-1, tracker.vote(track, 9));
+        assertFalse(tracker.isConfirmed(track));
+        assertTrue(tracker.isVoting(track));
+    }
+
+    @Test
+    @DisplayName("Should not open a vote for frames without a clear match")
+    void testAbstainingVotes() {
+        // Arrange
+        FaceTracker.Track track = tracker.update(List.of(box(100, 100)), true).get(0);
+        tracker.recordRecognition(track, FaceRecognitionService.RecognitionResult.unknown(120.0), 1);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertEquals(-1, tracker.vote(track, -1));
+        }
+
+        // Assert - unknown faces fall back to the slow retry cadence
+        assertFalse(tracker.isVoting(track));
+        assertFalse(tracker.needsRecognition(track, 1, THRESHOLD));
+    }
+}
@@ -0,0 +1,63 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the idle frame throttle of a capture loop.
+ */
+class FrameThrottleTest {
+
+    private static final long FRAME_NANOS = 33_000_000L;       // 30 FPS camera
+    private static final long IDLE_INTERVAL_NANOS = 500_000_000L; // motion.idle.fps = 2
+
+    @Test
+    @DisplayName("Should process every frame while active and one per idle interval while idle")
+    void testIdleRate() {
+        // Arrange
+        FrameThrottle throttle = new FrameThrottle(2);
+
+        // Act - one second active, then two seconds idle
+        int active = 0;
+        int idle = 0;
+        for (int i = 0; i < 30; i++) {
+            if (throttle.shouldProcess(false, i * FRAME_NANOS)) {
+                active++;
+            }
+        }
+        for (int i = 30; i < 90; i++) {
+            if (throttle.shouldProcess(true, i * FRAME_NANOS)) {
+                idle++;
+            }
+        }
+
+        // Assert
+        assertEquals(30, active);
+        assertEquals(3, idle); // every 16th frame: 500ms rounded up to the next grab
+    }
+
+    @Test
+    @DisplayName("Should see motion on an idle camera within one idle interval of it starting")
+    void testWakeLatency() {
+        // Arrange - the camera has been idle for a while; motion starts between two checks
+        FrameThrottle throttle = new FrameThrottle(2);
+        long motionStart = 10_000_000_000L + 17_000_000L;
+        boolean idle = true;
+        long wokeAt = -1;
+
+        // Act - every frame is grabbed at the device rate; the throttle picks what is processed
+        for (long now = 0; now < motionStart + 5 * IDLE_INTERVAL_NANOS && wokeAt < 0; now += FRAME_NANOS) {
+            if (throttle.shouldProcess(idle, now) && now >= motionStart) {
+                idle = false;
+                wokeAt = now;
+            }
+        }
+
+        // Assert - the processed frame is the one just grabbed, so no stale backlog delays the wake-up
+        assertTrue(wokeAt >= motionStart);
+        assertTrue(wokeAt - motionStart <= IDLE_INTERVAL_NANOS,
+            "woke " + (wokeAt - motionStart) / 1_000_000 + "ms after motion started");
+        assertTrue(throttle.shouldProcess(idle, wokeAt + FRAME_NANOS));
+    }
+}
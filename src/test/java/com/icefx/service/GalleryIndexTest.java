@@ -0,0 +1,165 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the approximate gallery index (HNSW graph over PCA-projected histograms).
+ */
+class GalleryIndexTest {
+
+    private static final int PEOPLE = 20;
+    private static final int SAMPLES_PER_PERSON = 30;
+
+    private LbphModel model;
+
+    @BeforeEach
+    void setup() {
+        // Small grid: 2 x 2 cells of 16 bins
+        model = LbphModel.create(1, 4, 2, 2);
+        Random random = new Random(7);
+        int length = model.getHistogramLength();
+        for (int person = 0; person < PEOPLE; person++) {
+            float[] centroid = new float[length];
+            for (int j = 0; j < length; j++) {
+                centroid[j] = random.nextFloat();
+            }
+            for (int s = 0; s < SAMPLES_PER_PERSON; s++) {
+                float[] histogram = new float[length];
+                for (int j = 0; j < length; j++) {
+                    histogram[j] = Math.max(0f, centroid[j] + (float) random.nextGaussian() * 0.05f);
+                }
+                model.add(person, histogram);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("HNSW search should find the true nearest neighbour almost always")
+    void testGraphRecall() {
+        // Arrange
+        Random random = new Random(11);
+        int dims = 8;
+        float[][] vectors = new float[2000][dims];
+        HnswGraph graph = new HnswGraph(dims, 16, 100, 1);
+        for (float[] vector : vectors) {
+            for (int j = 0; j < dims; j++) {
+                vector[j] = random.nextFloat();
+            }
+            graph.add(vector);
+        }
+
+        // Act
+        int hits = 0;
+        int queries = 200;
+        for (int q = 0; q < queries; q++) {
+            float[] query = new float[dims];
+            for (int j = 0; j < dims; j++) {
+                query[j] = random.nextFloat();
+            }
+            int[] found = graph.search(query, 1, 64);
+            if (found.length == 1 && found[0] == bruteForceNearest(vectors, query)) {
+                hits++;
+            }
+        }
+
+        // Assert
+        assertEquals(vectors.length, graph.size());
+        assertTrue(hits >= queries * 0.95, "recall@1 was " + hits + "/" + queries);
+    }
+
+    @Test
+    @DisplayName("Indexed prediction should agree with the exact scan")
+    void testIndexedMatchesExact() {
+        // Arrange
+        model.buildIndex(new GalleryIndex.Settings(8, 256, 8, 64, 32, 16));
+        int[] exactLabel = new int[1];
+        int[] indexedLabel = new int[1];
+        double[] exactDistance = new double[1];
+        double[] indexedDistance = new double[1];
+
+        // Act - leave-one-out over every sample
+        int agreed = 0;
+        int total = model.getSampleCount();
+        for (int i = 0; i < total; i++) {
+            float[] query = model.sampleHistogram(i);
+            model.predictExact(query, Double.MAX_VALUE, i, exactLabel, exactDistance);
+            model.predictIndexed(query, Double.MAX_VALUE, i, indexedLabel, indexedDistance);
+            if (exactLabel[0] == indexedLabel[0]) {
+                agreed++;
+            }
+            assertTrue(indexedDistance[0] >= exactDistance[0] - 1e-9);
+        }
+
+        // Assert
+        assertEquals(total, model.getIndex().size());
+        assertTrue(agreed >= total * 0.98, "agreement was " + agreed + "/" + total);
+    }
+
+    @Test
+    @DisplayName("Samples added after the index was built should still be matched")
+    void testSamplesAddedAfterBuild() {
+        // Arrange
+        model.buildIndex(new GalleryIndex.Settings(8, 256, 8, 64, 32, 16));
+        float[] newcomer = new float[model.getHistogramLength()];
+        newcomer[0] = 5f;
+        model.add(99, newcomer);
+
+        // Act
+        int[] label = new int[1];
+        double[] distance = new double[1];
+        model.predict(newcomer, Double.MAX_VALUE, label, distance);
+
+        // Assert
+        assertEquals(99, label[0]);
+        assertEquals(0.0, distance[0], 1e-9);
+    }
+
+    @Test
+    @DisplayName("An index built from a snapshot should ignore later adds and removes")
+    void testBuildFromSnapshot() {
+        // Arrange - grow the overlay past its capacity and retire a person after the snapshot
+        LbphModel.Snapshot snapshot = model.snapshot();
+        int length = model.getHistogramLength();
+        for (int i = 0; i < 500; i++) {
+            model.add(100 + i, new float[length]);
+        }
+        float[] newcomer = new float[length];
+        newcomer[1] = 5f;
+        model.add(99, newcomer);
+        float[] retired = model.sampleHistogram(0);
+        model.remove(0);
+
+        // Act
+        model.buildIndex(snapshot, new GalleryIndex.Settings(8, 256, 8, 64, 32, 16));
+        int[] label = new int[1];
+        double[] distance = new double[1];
+
+        // Assert
+        assertEquals(PEOPLE * SAMPLES_PER_PERSON, model.getIndex().size());
+        model.predict(newcomer, Double.MAX_VALUE, label, distance);
+        assertEquals(99, label[0]);
+        model.predict(retired, Double.MAX_VALUE, label, distance);
+        assertNotEquals(0, label[0]);
+    }
+
+    private static int bruteForceNearest(float[][] vectors, float[] query) {
+        int best = -1;
+        float bestDistance = Float.MAX_VALUE;
+        for (int i = 0; i < vectors.length; i++) {
+            float sum = 0;
+            for (int j = 0; j < query.length; j++) {
+                float diff = query[j] - vectors[i][j];
+                sum += diff * diff;
+            }
+            if (sum < bestDistance) {
+                bestDistance = sum;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,93 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LanePool scheduling: serial lanes and round-robin fairness.
+ */
+class LanePoolTest {
+
+    private LanePool pool;
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should never run two steps of one lane at the same time")
+    void testSerialLane() throws InterruptedException {
+        // Arrange
+        pool = new LanePool("test", 4);
+        AtomicInteger remaining = new AtomicInteger(200);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        LanePool.Lane lane = pool.newLane("serial", () -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            Thread.yield();
+            concurrent.decrementAndGet();
+            if (remaining.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }, () -> remaining.get() > 0);
+
+        // Act - schedule from several threads at once
+        for (int i = 0; i < 4; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < 50; j++) {
+                    lane.schedule();
+                }
+            }).start();
+        }
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxConcurrent.get());
+    }
+
+    @Test
+    @DisplayName("Should let lanes take turns on a single worker")
+    void testRoundRobin() throws InterruptedException {
+        // Arrange - a busy lane with many steps and a quiet lane with one
+        pool = new LanePool("test", 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger busySteps = new AtomicInteger(10);
+        AtomicInteger quietSteps = new AtomicInteger(1);
+        CountDownLatch done = new CountDownLatch(11);
+        CountDownLatch quietScheduled = new CountDownLatch(1);
+        LanePool.Lane busy = pool.newLane("busy", () -> {
+            try {
+                quietScheduled.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            busySteps.decrementAndGet();
+            order.add("busy");
+            done.countDown();
+        }, () -> busySteps.get() > 0);
+        LanePool.Lane quiet = pool.newLane("quiet", () -> {
+            quietSteps.decrementAndGet();
+            order.add("quiet");
+            done.countDown();
+        }, () -> quietSteps.get() > 0);
+
+        // Act
+        busy.schedule();
+        quiet.schedule();
+        quietScheduled.countDown();
+
+        // Assert - the quiet lane runs right after the busy lane's first step
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("quiet", order.get(1));
+    }
+}
@@ -0,0 +1,272 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary LBPH model format and the Java histogram extractor.
+ */
+class LbphModelTest {
+
+    private static final int SIZE = 100;
+
+    @TempDir
+    Path tempDir;
+
+    private LbphModel model;
+    private LbphHistogramExtractor extractor;
+
+    @BeforeEach
+    void setup() {
+        model = LbphModel.create(1, 8, 8, 8);
+        extractor = model.newExtractor();
+    }
+
+    private float[] histogramOf(long seed) {
+        byte[] pixels = new byte[SIZE * SIZE];
+        new Random(seed).nextBytes(pixels);
+        float[] histogram = new float[extractor.histogramLength()];
+        extractor.extract(pixels, SIZE, SIZE, histogram);
+        return histogram;
+    }
+
+    @Test
+    @DisplayName("Should produce one normalized histogram per grid cell")
+    void testExtractorNormalization() {
+        // Arrange - flat image: every pixel produces the same pattern
+        byte[] pixels = new byte[SIZE * SIZE];
+        java.util.Arrays.fill(pixels, (byte) 128);
+        float[] histogram = new float[extractor.histogramLength()];
+
+        // Act
+        extractor.extract(pixels, SIZE, SIZE, histogram);
+
+        // Assert
+        assertEquals(8 * 8 * 256, histogram.length);
+        for (int cell = 0; cell < 64; cell++) {
+            float sum = 0;
+            float max = 0;
+            for (int bin = 0; bin < 256; bin++) {
+                sum += histogram[cell * 256 + bin];
+                max = Math.max(max, histogram[cell * 256 + bin]);
+            }
+            assertEquals(1.0f, sum, 1e-5);
+            assertEquals(1.0f, max, 1e-6);
+        }
+    }
+
+    @Test
+    @DisplayName("Should find the nearest sample after a write/map round trip")
+    void testRoundTrip() throws Exception {
+        // Arrange
+        model.add(7, histogramOf(1));
+        model.add(9, histogramOf(2));
+        Path file = tempDir.resolve("model" + LbphModel.FILE_EXTENSION);
+
+        // Act
+        assertEquals(2, model.write(file, LbphModel.HistogramType.FLOAT32));
+        LbphModel mapped = LbphModel.map(file);
+        int[] label = new int[1];
+        double[] distance = new double[1];
+        mapped.predict(histogramOf(2), Double.MAX_VALUE, label, distance);
+
+        // Assert
+        assertEquals(2, mapped.size());
+        assertEquals(9, label[0]);
+        assertEquals(0.0, distance[0], 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should keep matching with a quantized histogram block")
+    void testQuantizedRoundTrip() throws Exception {
+        model.add(7, histogramOf(1));
+        model.add(9, histogramOf(2));
+        Path file = tempDir.resolve("quantized" + LbphModel.FILE_EXTENSION);
+
+        model.write(file, LbphModel.HistogramType.UINT8);
+        LbphModel mapped = LbphModel.map(file);
+        int[] label = new int[1];
+        double[] distance = new double[1];
+        mapped.predict(histogramOf(1), Double.MAX_VALUE, label, distance);
+
+        assertEquals(7, label[0]);
+        assertTrue(Files.size(file) < 2 * 8 * 8 * 256 + 1024);
+    }
+
+    @Test
+    @DisplayName("Should apply additions and removals on top of a mapped model")
+    void testOverlay() throws Exception {
+        // Arrange
+        model.add(7, histogramOf(1));
+        model.add(9, histogramOf(2));
+        Path file = tempDir.resolve("overlay" + LbphModel.FILE_EXTENSION);
+        model.write(file, LbphModel.HistogramType.FLOAT32);
+        LbphModel mapped = LbphModel.map(file);
+        int[] label = new int[1];
+        double[] distance = new double[1];
+
+        // Act
+        assertEquals(1, mapped.remove(9));
+        mapped.add(11, histogramOf(3));
+        mapped.predict(histogramOf(3), Double.MAX_VALUE, label, distance);
+
+        // Assert
+        assertEquals(11, label[0]);
+        assertEquals(2, mapped.size());
+
+        // Removed samples are dropped when written back over the mapped file
+        mapped.write(file, LbphModel.HistogramType.FLOAT32);
+        LbphModel reloaded = LbphModel.map(file);
+        reloaded.predict(histogramOf(2), Double.MAX_VALUE, label, distance);
+        assertEquals(2, reloaded.size());
+        assertNotEquals(9, label[0]);
+    }
+
+    @Test
+    @DisplayName("Should save twice while an earlier version is still mapped")
+    void testSaveWhileMapped() throws Exception {
+        // Arrange - version 1 mapped, as by a running recognizer
+        model.add(7, histogramOf(1));
+        Path binaryPath = tempDir.resolve("trained_faces" + LbphModel.FILE_EXTENSION);
+        Path first = model.writeNextVersion(binaryPath, LbphModel.HistogramType.FLOAT32);
+        LbphModel mapped = LbphModel.map(first);
+        int[] label = new int[1];
+        double[] distance = new double[1];
+
+        // Act - enroll and save twice without unmapping
+        mapped.add(9, histogramOf(2));
+        Path second = mapped.writeNextVersion(binaryPath, LbphModel.HistogramType.FLOAT32);
+        mapped.add(11, histogramOf(3));
+        Path third = mapped.writeNextVersion(binaryPath, LbphModel.HistogramType.FLOAT32);
+
+        // Assert - no save targets the mapped file, and the newest version has every sample
+        assertEquals(tempDir.resolve("trained_faces.1.lbph"), first);
+        assertEquals(tempDir.resolve("trained_faces.3.lbph"), third);
+        assertNotEquals(first, second);
+        assertEquals(third, LbphModel.latestVersion(binaryPath));
+        mapped.predict(histogramOf(1), Double.MAX_VALUE, label, distance);
+        assertEquals(7, label[0]);
+        try (LbphModel reloaded = LbphModel.map(third)) {
+            assertEquals(3, reloaded.size());
+            reloaded.predict(histogramOf(3), Double.MAX_VALUE, label, distance);
+            assertEquals(11, label[0]);
+        }
+
+        // Once unmapped, the older versions are cleaned up
+        mapped.close();
+        assertEquals(2, LbphModel.deleteOlderVersions(binaryPath, third));
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(third));
+    }
+
+    @Test
+    @DisplayName("Should report no match beyond the threshold")
+    void testThreshold() {
+        model.add(7, histogramOf(1));
+        int[] label = new int[1];
+        double[] distance = new double[1];
+
+        model.predict(histogramOf(2), 1e-6, label, distance);
+
+        assertEquals(-1, label[0]);
+        assertEquals(Double.MAX_VALUE, distance[0]);
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not LBPH models")
+    void testRejectsForeignFile() throws Exception {
+        Path file = tempDir.resolve("trained_faces.xml");
+        Files.writeString(file, "<?xml version=\"1.0\"?><opencv_storage></opencv_storage>" + " ".repeat(64));
+
+        assertThrows(java.io.IOException.class, () -> LbphModel.map(file));
+        assertEquals(tempDir.resolve("trained_faces.lbph"), LbphModel.binaryPathFor(file.toString()));
+    }
+
+    @Test
+    @DisplayName("Should reject a model whose histogram block runs past the end of the file")
+    void testRejectsTruncatedFile() throws Exception {
+        // Arrange
+        model.add(7, histogramOf(1));
+        model.add(9, histogramOf(2));
+        Path file = tempDir.resolve("truncated" + LbphModel.FILE_EXTENSION);
+        model.write(file, LbphModel.HistogramType.FLOAT32);
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file,
+                java.nio.file.StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        // Act & Assert
+        assertThrows(java.io.IOException.class, () -> LbphModel.map(file));
+    }
+
+    @Test
+    @DisplayName("Should match the scalar chi-square with the fastest available kernel")
+    void testKernelAgreement() {
+        float[] query = histogramOf(1);
+        float[] samples = new float[3 * query.length];
+        System.arraycopy(histogramOf(2), 0, samples, query.length, query.length);
+
+        double scalar = new ChiSquareKernel().distance(query, samples, query.length);
+        double best = ChiSquareKernel.best().distance(query, samples, query.length);
+
+        assertTrue(scalar > 0);
+        assertEquals(scalar, best, scalar * 1e-5);
+    }
+
+    @Test
+    @DisplayName("Should find the same nearest sample when the scan is split across cores")
+    void testParallelScan() {
+        // Arrange - small histograms (2x2 grid, 4 neighbors) so a large gallery stays cheap
+        LbphModel large = LbphModel.create(1, 4, 2, 2);
+        Random random = new Random(42);
+        int samples = 5000;
+        float[][] histograms = new float[samples][large.getHistogramLength()];
+        for (int i = 0; i < samples; i++) {
+            for (int j = 0; j < large.getHistogramLength(); j++) {
+                histograms[i][j] = random.nextFloat();
+            }
+            large.add(i, histograms[i]);
+        }
+        float[] query = histograms[3777].clone();
+        query[0] += 0.01f;
+
+        // Act
+        int[] label = new int[1];
+        double[] distance = new double[1];
+        large.predict(query, Double.MAX_VALUE, label, distance);
+
+        // Assert
+        assertEquals(3777, label[0]);
+        assertEquals(new ChiSquareKernel().distance(query, histograms[3777], 0), distance[0], 1e-5);
+    }
+
+    @Test
+    @DisplayName("Should list the closest distinct labels with their best distances")
+    void testPredictTopK() {
+        // Arrange - two samples of label 1, one of labels 2 and 3
+        float[] query = histogramOf(1);
+        model.add(1, histogramOf(2));
+        model.add(1, query.clone());
+        model.add(2, histogramOf(3));
+        model.add(3, histogramOf(4));
+
+        // Act
+        int[] labels = new int[2];
+        double[] distances = new double[2];
+        int count = model.predictTopK(query, Double.MAX_VALUE, 2, labels, distances);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals(1, labels[0]);
+        assertEquals(0.0, distances[0], 1e-9);
+        assertNotEquals(1, labels[1]);
+        assertTrue(distances[1] > 0);
+        assertEquals(0, model.predictTopK(query, -1.0, 2, labels, distances));
+    }
+}
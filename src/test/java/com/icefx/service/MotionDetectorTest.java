@@ -0,0 +1,37 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for mapping MotionDetector boxes back to the frame.
+ */
+class MotionDetectorTest {
+
+    @Test
+    @DisplayName("Should scale a motion box back to frame coordinates")
+    void testToFrameScalesBox() {
+        // Arrange - 160px copy of a 640px frame (scale 0.25), no padding
+        double scale = 0.25;
+
+        // Act
+        FaceTracker.Box box = MotionDetector.toFrame(10, 20, 30, 40, scale, 0.0, 640, 480);
+
+        // Assert
+        assertEquals(new FaceTracker.Box(40, 80, 120, 160), box);
+    }
+
+    @Test
+    @DisplayName("Should pad a motion box and clip it to the frame")
+    void testToFramePadsAndClips() {
+        // Arrange - box touching the top-left corner
+        double scale = 0.25;
+
+        // Act
+        FaceTracker.Box box = MotionDetector.toFrame(0, 0, 40, 40, scale, 0.25, 640, 480);
+
+        // Assert - grown by 40px on every side, clipped at 0
+        assertEquals(new FaceTracker.Box(0, 0, 200, 200), box);
+    }
+}
@@ -0,0 +1,116 @@
+package com.icefx.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StageQueue drop policies and counters.
+ */
+class StageQueueTest {
+
+    private final List<Integer> released = new ArrayList<>();
+
+    @Test
+    @DisplayName("Should drop the oldest item when full and release it")
+    void testDropOldest() throws InterruptedException {
+        // Arrange
+        StageQueue<Integer> queue = new StageQueue<>("test", 2, StageQueue.DropPolicy.DROP_OLDEST, released::add);
+
+        // Act
+        assertTrue(queue.put(1));
+        assertTrue(queue.put(2));
+        assertFalse(queue.put(3));
+
+        // Assert
+        assertEquals(List.of(1), released);
+        assertEquals(2, queue.take());
+        assertEquals(3, queue.take());
+        assertEquals(3, queue.getOffered());
+        assertEquals(1, queue.getDropped());
+        assertEquals(2, queue.getPeakDepth());
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest item with latest-wins")
+    void testLatestWins() throws InterruptedException {
+        // Arrange
+        StageQueue<Integer> queue = new StageQueue<>("test", 4, StageQueue.DropPolicy.LATEST_WINS, released::add);
+
+        // Act
+        queue.put(1);
+        queue.put(2);
+        queue.put(3);
+
+        // Assert
+        assertEquals(List.of(1, 2), released);
+        assertEquals(1, queue.depth());
+        assertEquals(3, queue.take());
+    }
+
+    @Test
+    @DisplayName("Should make a blocking producer wait for the consumer instead of dropping")
+    void testBlock() throws InterruptedException {
+        // Arrange
+        StageQueue<Integer> queue = new StageQueue<>("test", 1, StageQueue.DropPolicy.BLOCK, released::add);
+        queue.put(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        // Act
+        producer.start();
+        assertEquals(1, queue.take());
+        producer.join(2000);
+
+        // Assert
+        assertFalse(producer.isAlive());
+        assertEquals(2, queue.take());
+        assertEquals(0, queue.getDropped());
+        assertTrue(released.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting after the maximum block time and drop the oldest item")
+    void testBlockTimeout() throws InterruptedException {
+        // Arrange
+        StageQueue<Integer> queue = new StageQueue<>("test", 1, StageQueue.DropPolicy.BLOCK, released::add, 50);
+        queue.put(1);
+
+        // Act
+        long start = System.nanoTime();
+        boolean kept = queue.put(2);
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertFalse(kept);
+        assertTrue(waitedMillis >= 40 && waitedMillis < 2000, "waited " + waitedMillis + "ms");
+        assertEquals(List.of(1), released);
+        assertEquals(1, queue.getDropped());
+        assertEquals(2, queue.take());
+    }
+
+    @Test
+    @DisplayName("Should release queued items when cleared")
+    void testClear() throws InterruptedException {
+        // Arrange
+        StageQueue<Integer> queue = new StageQueue<>("test", 3, StageQueue.DropPolicy.DROP_OLDEST, released::add);
+        queue.put(1);
+        queue.put(2);
+
+        // Act
+        queue.clear();
+
+        // Assert
+        assertEquals(List.of(1, 2), released);
+        assertEquals(0, queue.depth());
+        assertEquals(StageQueue.DropPolicy.LATEST_WINS, StageQueue.DropPolicy.parse("latest-wins", null));
+        assertEquals(StageQueue.DropPolicy.BLOCK, StageQueue.DropPolicy.parse("nonsense", StageQueue.DropPolicy.BLOCK));
+    }
+}